@@ -0,0 +1,81 @@
+package com.shop.cache;
+
+import com.shop.event.ProductChangedEvent;
+import com.shop.event.ProductSnapshot;
+import com.shop.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 各二级分类的上架商品数量
+ * 启动时用一条分组统计查询初始化，之后根据ProductChangedEvent增量维护，读取时不再查询数据库
+ */
+@Component
+public class ActiveProductCounts {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveProductCounts.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final Map<Long, Long> countsBySubCategoryId = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            // 并发的首次读取只需一个线程加载，其余线程等锁后直接使用结果
+            if (loaded) {
+                return;
+            }
+            Map<Long, Long> counts = new ConcurrentHashMap<>();
+            List<Object[]> rows = productRepository.countActiveGroupBySubCategory();
+            for (Object[] row : rows) {
+                counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+            }
+            countsBySubCategoryId.clear();
+            countsBySubCategoryId.putAll(counts);
+            loaded = true;
+            logger.info("Loaded active product counts for {} sub-categories", counts.size());
+        }
+    }
+
+    // 事务提交后应用增量；没有事务时立即执行
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (this) {
+            if (!loaded) {
+                // 尚未初始化，启动时的全量统计会包含这次修改
+                return;
+            }
+            adjust(event.getBefore(), -1);
+            adjust(event.getAfter(), 1);
+        }
+    }
+
+    // 指定二级分类下的上架商品数量
+    public long getCount(Long subCategoryId) {
+        if (!loaded) {
+            load();
+        }
+        return countsBySubCategoryId.getOrDefault(subCategoryId, 0L);
+    }
+
+    private void adjust(ProductSnapshot snapshot, long delta) {
+        if (snapshot == null || !snapshot.isActive() || snapshot.getSubCategoryId() == null) {
+            return;
+        }
+        countsBySubCategoryId.merge(snapshot.getSubCategoryId(), delta,
+                (current, change) -> current + change == 0 ? null : current + change);
+    }
+}
@@ -0,0 +1,55 @@
+package com.shop.cache;
+
+import com.shop.event.ProductChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品目录版本号
+ * 商品、分类或二级分类的每次写入在事务提交后递增版本号，目录读接口用它生成ETag。
+ * ETag带有进程启动时生成的随机前缀，重启后版本号从头计数也不会与重启前发出的ETag相同
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    // 弱ETag：同一版本下目录接口的响应内容相同，但压缩等编码可能不同
+    public String etag() {
+        return "W/\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    // 目录数据发生变化，在事务提交后递增；没有事务时立即递增
+    public void increment() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    // 排在搜索索引等其他提交后监听器之后，读到新版本号时这些派生数据已经更新
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,149 @@
+package com.shop.cache;
+
+import com.shop.dto.CategoryDTO;
+import com.shop.dto.SubCategoryDTO;
+import com.shop.model.Category;
+import com.shop.repository.CategoryRepository;
+import com.shop.repository.SubCategoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * 分类树进程内缓存
+ * 读请求直接返回当前快照；分类或二级分类写入并提交后重建快照并整体替换
+ */
+@Component
+public class CategoryTreeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeCache.class);
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SubCategoryRepository subCategoryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<CategoryTreeSnapshot> current = new AtomicReference<>();
+
+    // 每次失效递增，重建期间如果发生新的写入，旧的重建结果不会被安装
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Object rebuildLock = new Object();
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        hitCounter = Counter.builder("category.tree.cache.requests")
+                .description("分类树缓存读取次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        missCounter = Counter.builder("category.tree.cache.requests")
+                .description("分类树缓存读取次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        rebuildTimer = Timer.builder("category.tree.cache.rebuild")
+                .description("分类树快照重建耗时")
+                .register(meterRegistry);
+        Gauge.builder("category.tree.cache.size", current, ref -> {
+                    CategoryTreeSnapshot snapshot = ref.get();
+                    return snapshot == null ? 0 : snapshot.size();
+                })
+                .description("当前快照中的分类节点数")
+                .register(meterRegistry);
+    }
+
+    // 获取当前快照，不存在时同步构建（同一时间只有一个线程构建）
+    public CategoryTreeSnapshot get() {
+        CategoryTreeSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            hitCounter.increment();
+            return snapshot;
+        }
+        missCounter.increment();
+        synchronized (rebuildLock) {
+            snapshot = current.get();
+            if (snapshot != null) {
+                return snapshot;
+            }
+            long expectedGeneration = generation.get();
+            snapshot = rebuild();
+            if (generation.get() == expectedGeneration) {
+                current.compareAndSet(null, snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    // 分类数据发生变化，在事务提交后重建快照；没有事务时立即重建
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        long expectedGeneration = generation.incrementAndGet();
+        try {
+            synchronized (rebuildLock) {
+                CategoryTreeSnapshot snapshot = rebuild();
+                // 重建期间又有新的写入时放弃本次结果，由更晚的刷新安装；在锁内安装，较早的刷新不会覆盖较新的快照
+                if (generation.get() == expectedGeneration) {
+                    current.set(snapshot);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 重建失败时清空快照，下次读取时重新构建
+            logger.error("Failed to rebuild category tree snapshot", e);
+            current.set(null);
+        }
+    }
+
+    private CategoryTreeSnapshot rebuild() {
+        return rebuildTimer.record(() -> {
+            List<Category> categories = categoryRepository.findByActiveTrueOrderBySortOrderAsc();
+            List<CategoryDTO> categoryDTOs = new ArrayList<>(categories.size());
+            Map<Long, List<SubCategoryDTO>> subCategories = new LinkedHashMap<>();
+            for (Category category : categories) {
+                categoryDTOs.add(CategoryDTO.fromEntity(category));
+                subCategories.put(category.getId(),
+                        subCategoryRepository.findByCategoryIdAndActiveTrueOrderBySortOrderAsc(category.getId())
+                                .stream()
+                                .map(SubCategoryDTO::fromEntity)
+                                .collect(Collectors.toList()));
+            }
+            return new CategoryTreeSnapshot(categoryDTOs, subCategories);
+        });
+    }
+}
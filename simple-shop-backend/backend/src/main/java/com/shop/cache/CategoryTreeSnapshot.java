@@ -0,0 +1,55 @@
+package com.shop.cache;
+
+import com.shop.dto.CategoryDTO;
+import com.shop.dto.SubCategoryDTO;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启用状态的一级分类 → 二级分类树快照
+ * 构建完成后只读，整体替换而不是原地修改；调用方不要修改其中的DTO
+ */
+public final class CategoryTreeSnapshot {
+
+    private final List<CategoryDTO> categories;
+
+    private final Map<Long, List<SubCategoryDTO>> subCategoriesByCategoryId;
+
+    private final int subCategoryCount;
+
+    public CategoryTreeSnapshot(List<CategoryDTO> categories,
+                                Map<Long, List<SubCategoryDTO>> subCategoriesByCategoryId) {
+        this.categories = Collections.unmodifiableList(categories);
+        Map<Long, List<SubCategoryDTO>> copy = new LinkedHashMap<>();
+        int count = 0;
+        for (Map.Entry<Long, List<SubCategoryDTO>> entry : subCategoriesByCategoryId.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            count += entry.getValue().size();
+        }
+        this.subCategoriesByCategoryId = Collections.unmodifiableMap(copy);
+        this.subCategoryCount = count;
+    }
+
+    // 按排序权重排列的启用一级分类
+    public List<CategoryDTO> getCategories() {
+        return categories;
+    }
+
+    // 是否包含该启用的一级分类
+    public boolean containsCategory(Long categoryId) {
+        return subCategoriesByCategoryId.containsKey(categoryId);
+    }
+
+    // 指定一级分类下启用的二级分类，不在快照中时返回空列表
+    public List<SubCategoryDTO> getSubCategories(Long categoryId) {
+        return subCategoriesByCategoryId.getOrDefault(categoryId, Collections.emptyList());
+    }
+
+    // 快照中的节点总数（一级 + 二级）
+    public int size() {
+        return categories.size() + subCategoryCount;
+    }
+}
@@ -0,0 +1,77 @@
+package com.shop.cache;
+
+/**
+ * 近似访问频率统计（Count-Min Sketch）
+ * 每个键映射到4行计数器中的各一个，取最小值作为频率估计，计数上限为15；
+ * 累计记录次数达到采样上限后所有计数减半，使频率随时间衰减，过去热门但已冷却的键不会一直占优
+ */
+public class FrequencySketch {
+
+    private static final int ROWS = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0x27D4EB2F165667C5L};
+
+    private final int[][] counters;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    // expectedKeys为需要区分的键的数量，通常取缓存可容纳条目数的若干倍
+    public FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(16, expectedKeys - 1) << 1);
+        counters = new int[ROWS][width];
+        mask = width - 1;
+        sampleSize = width * 10;
+    }
+
+    // 记录一次访问，返回记录后的频率估计
+    public synchronized int increment(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            int index = index(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+            }
+            frequency = Math.min(frequency, counters[row][index]);
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+        return frequency;
+    }
+
+    public synchronized int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            frequency = Math.min(frequency, counters[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (int[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45D9F3B;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,220 @@
+package com.shop.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热门图片内容缓存
+ * 图片内容保存在堆外（direct ByteBuffer），连同Content-Type、ETag和修改时间一起缓存，命中时不再访问磁盘。
+ * 总字节数有上限，按LRU淘汰；新条目按TinyLFU方式准入：访问频率达到门槛才读入缓存，
+ * 空间不足时只有频率不低于被淘汰条目的新条目才能挤占位置，一次性访问的图片不会冲掉热门图片。
+ * 图片文件名由内容决定，缓存内容不会过期，只在图片被清理时移除
+ */
+public class ImageBodyCache {
+
+    private final long maxBytes;
+
+    private final long maxEntryBytes;
+
+    private final int admitFrequency;
+
+    private final FrequencySketch sketch;
+
+    // 按访问顺序排列，第一个是最久未访问的条目
+    private final LinkedHashMap<String, CachedImage> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public ImageBodyCache(long maxBytes, long maxEntryBytes, int admitFrequency, int expectedKeys) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, Integer.MAX_VALUE);
+        this.admitFrequency = admitFrequency;
+        this.sketch = new FrequencySketch(expectedKeys);
+    }
+
+    // 查找缓存并记录一次访问
+    public CachedImage get(String key) {
+        CachedImage cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        sketch.increment(key);
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return cached;
+    }
+
+    // 未命中后尝试读入缓存；访问频率不足、文件过大、被准入策略拒绝或读取期间文件变化时返回null
+    public CachedImage load(String key, String fileName, Path path, long size, long lastModified,
+                            String contentType, String etag) throws IOException {
+        if (size <= 0 || size > maxEntryBytes || size > maxBytes) {
+            return null;
+        }
+        int frequency = sketch.frequency(key);
+        if (frequency < admitFrequency) {
+            return null;
+        }
+        synchronized (this) {
+            CachedImage existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            // 先按当前状态判断一次，被拒绝时不读文件
+            if (!canAdmit(size, frequency)) {
+                return null;
+            }
+        }
+
+        ByteBuffer body = ByteBuffer.allocateDirect((int) size);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (body.hasRemaining() && channel.read(body) >= 0) {
+                // 读满为止
+            }
+            if (body.hasRemaining() || channel.size() != size) {
+                return null;
+            }
+        }
+        body.flip();
+        CachedImage cached = new CachedImage(fileName, contentType, etag, lastModified, body.asReadOnlyBuffer());
+
+        synchronized (this) {
+            CachedImage existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (!makeRoom(size, frequency)) {
+                return null;
+            }
+            entries.put(key, cached);
+            usedBytes += size;
+        }
+        return cached;
+    }
+
+    // 移除指定文件的所有缓存条目（同一缩略图可能以不同的请求宽度缓存多次）
+    public synchronized void evict(String fileName) {
+        Iterator<CachedImage> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CachedImage cached = iterator.next();
+            if (cached.fileName.equals(fileName)) {
+                iterator.remove();
+                usedBytes -= cached.getLength();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    // 不淘汰任何条目，判断按当前最久未访问的条目能否腾出空间
+    private boolean canAdmit(long size, int frequency) {
+        long available = maxBytes - usedBytes;
+        for (Map.Entry<String, CachedImage> eldest : entries.entrySet()) {
+            if (available >= size) {
+                break;
+            }
+            if (sketch.frequency(eldest.getKey()) > frequency) {
+                return false;
+            }
+            available += eldest.getValue().getLength();
+        }
+        return available >= size;
+    }
+
+    // 从最久未访问的条目开始淘汰；被淘汰条目的访问频率高于新条目时拒绝新条目，频率相同时按LRU淘汰旧条目
+    private boolean makeRoom(long size, int frequency) {
+        Iterator<Map.Entry<String, CachedImage>> iterator = entries.entrySet().iterator();
+        while (usedBytes + size > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedImage> eldest = iterator.next();
+            if (sketch.frequency(eldest.getKey()) > frequency) {
+                return false;
+            }
+            iterator.remove();
+            usedBytes -= eldest.getValue().getLength();
+        }
+        return usedBytes + size <= maxBytes;
+    }
+
+    /**
+     * 缓存的图片内容和响应头
+     */
+    public static final class CachedImage {
+
+        private final String fileName;
+
+        private final String contentType;
+
+        private final String etag;
+
+        private final long lastModified;
+
+        private final ByteBuffer body;
+
+        private CachedImage(String fileName, String contentType, String etag, long lastModified, ByteBuffer body) {
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getLength() {
+            return body.capacity();
+        }
+
+        // [start, end)区间的只读视图，每次调用返回独立的读取位置，可被多个请求同时使用
+        public ByteBuffer slice(long start, long end) {
+            ByteBuffer view = body.duplicate();
+            view.limit((int) end).position((int) start);
+            return view;
+        }
+    }
+}
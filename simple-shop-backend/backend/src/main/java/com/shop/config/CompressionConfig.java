@@ -0,0 +1,43 @@
+package com.shop.config;
+
+import com.shop.filter.DeflaterPool;
+import com.shop.filter.GzipResponseFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.unit.DataSize;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 接口响应压缩过滤器及其指标
+ */
+@Configuration
+@ConditionalOnProperty(name = "http.compression.enabled", havingValue = "true", matchIfMissing = true)
+public class CompressionConfig {
+
+    // 直接声明为过滤器，由过滤器自己按路径筛选：Spring Boot 2.7.0在存在任何FilterRegistrationBean时
+    // 不再注册接口耗时统计过滤器（http.server.requests）
+    @Bean
+    public GzipResponseFilter gzipResponseFilter(
+            @Value("${http.compression.min-size:1KB}") DataSize minSize,
+            @Value("${http.compression.mime-types:application/json,text/plain,text/csv}") List<String> mimeTypes,
+            @Value("${http.compression.excluded-paths:/api/files/}") List<String> excludedPaths,
+            @Value("${http.compression.level:1}") int level,
+            @Value("${http.compression.pool-size:16}") int poolSize,
+            MeterRegistry meterRegistry) {
+        List<MimeType> types = mimeTypes.stream().map(MimeTypeUtils::parseMimeType).collect(Collectors.toList());
+        GzipResponseFilter filter = new GzipResponseFilter((int) minSize.toBytes(), types, "/api/", excludedPaths,
+                new DeflaterPool(level, poolSize));
+        FunctionCounter.builder("http.compression.bytes", filter, GzipResponseFilter::getBytesIn)
+                .description("已压缩响应的字节数").tag("stage", "original").baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("http.compression.bytes", filter, GzipResponseFilter::getBytesOut)
+                .description("已压缩响应的字节数").tag("stage", "compressed").baseUnit("bytes").register(meterRegistry);
+        return filter;
+    }
+}
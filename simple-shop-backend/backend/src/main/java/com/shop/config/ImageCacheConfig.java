@@ -0,0 +1,42 @@
+package com.shop.config;
+
+import com.shop.cache.ImageBodyCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 热门图片内容缓存及其指标
+ */
+@Configuration
+public class ImageCacheConfig {
+
+    // 频率统计需要区分的图片数，按平均每张图片32KB估算缓存可容纳的数量再放大4倍
+    private static final long ESTIMATED_IMAGE_BYTES = 32 * 1024;
+
+    @Bean
+    public ImageBodyCache imageBodyCache(@Value("${image.cache.max-size:64MB}") DataSize maxSize,
+                                         @Value("${image.cache.max-entry-size:1MB}") DataSize maxEntrySize,
+                                         @Value("${image.cache.admit-frequency:2}") int admitFrequency,
+                                         MeterRegistry meterRegistry) {
+        int expectedKeys = (int) Math.min(1 << 20, Math.max(1024, maxSize.toBytes() / ESTIMATED_IMAGE_BYTES * 4));
+        ImageBodyCache cache = new ImageBodyCache(maxSize.toBytes(), maxEntrySize.toBytes(), admitFrequency, expectedKeys);
+        FunctionCounter.builder("image.cache.requests", cache, ImageBodyCache::getHitCount)
+                .description("图片缓存请求数").tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("image.cache.requests", cache, ImageBodyCache::getMissCount)
+                .description("图片缓存请求数").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("image.cache.hit.ratio", cache, c -> {
+            long total = c.getHitCount() + c.getMissCount();
+            return total == 0 ? 0 : (double) c.getHitCount() / total;
+        }).description("图片缓存命中率（启动以来）").register(meterRegistry);
+        Gauge.builder("image.cache.size", cache, ImageBodyCache::getUsedBytes)
+                .description("图片缓存占用的堆外内存").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("image.cache.entries", cache, ImageBodyCache::getEntryCount)
+                .description("图片缓存条目数").register(meterRegistry);
+        return cache;
+    }
+}
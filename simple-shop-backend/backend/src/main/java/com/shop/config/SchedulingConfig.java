@@ -0,0 +1,12 @@
+package com.shop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 启用定时任务（如上传图片清理）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,49 @@
+package com.shop.config;
+
+import com.shop.filter.SqlTraceFilter;
+import com.shop.jdbc.SqlTracer;
+import com.shop.jdbc.TracingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 按请求统计SQL：包装数据源和请求过滤器（Server-Timing响应头见ServerTimingAdvice）
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.trace.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTraceConfig {
+
+    @Bean
+    public SqlTracer sqlTracer(@Value("${sql.trace.slow-statement-threshold:200ms}") Duration slowStatement,
+                               @Value("${sql.trace.slow-request-threshold:500ms}") Duration slowRequest,
+                               @Value("${sql.trace.statement-count-threshold:50}") int statementCountThreshold,
+                               @Value("${sql.trace.max-logged-statements:50}") int maxLoggedStatements) {
+        return new SqlTracer(slowStatement, slowRequest, statementCountThreshold, maxLoggedStatements);
+    }
+
+    // 后处理器要在其他bean之前创建，用static方法声明，SqlTracer在包装数据源时才取得
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor(ObjectProvider<SqlTracer> sqlTracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof TracingDataSource)) {
+                    return new TracingDataSource((DataSource) bean, sqlTracer.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SqlTraceFilter sqlTraceFilter(SqlTracer sqlTracer) {
+        return new SqlTraceFilter(sqlTracer);
+    }
+}
@@ -1,13 +1,18 @@
 package com.shop.config;
 
+import com.shop.filter.CatalogETagInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private CatalogETagInterceptor catalogETagInterceptor;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         // 允许所有/api/**路径的请求跨域访问
@@ -27,10 +32,11 @@ public class WebConfig implements WebMvcConfigurer {
     }
 
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // 添加静态资源映射，使上传的图片可以通过URL访问
-        // 将/api/files/images/**路径映射到uploads/images目录
-        registry.addResourceHandler("/api/files/images/**")
-                .addResourceLocations("file:uploads/images/");
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 商品和分类的读接口按目录版本号返回ETag和304
+        registry.addInterceptor(catalogETagInterceptor)
+                .addPathPatterns("/api/products/**", "/api/categories/**", "/api/sub-categories/**",
+                        "/categories/**", "/subcategories/**", "/api/catalog/**")
+                .excludePathPatterns("/api/categories/test", "/categories/test");
     }
 }
@@ -1,9 +1,14 @@
 package com.shop.controller;
 
+import com.shop.dto.BuyerDTO;
+import com.shop.dto.SettlementRequestDTO;
+import com.shop.dto.SettlementResultDTO;
+import com.shop.filter.SessionTokenFilter;
 import com.shop.model.Buyer;
 import com.shop.service.BuyerService;
 import com.shop.service.CustomerService;
 import com.shop.service.ProductService;
+import com.shop.session.SessionPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,9 +31,10 @@ public class BuyerController {
     private CustomerService customerService;
 
     @PostMapping("/product/{productId}")
-    public ResponseEntity<?> createBuyer(@RequestBody Buyer buyer, @PathVariable Long productId, @RequestHeader(value = "X-Username", required = false) String username) {
-        // 验证用户是否已登录（简单实现，实际项目中应使用更安全的认证机制）
-        if (username == null || username.isEmpty()) {
+    public ResponseEntity<?> createBuyer(@RequestBody Buyer buyer, @PathVariable Long productId,
+                                         @RequestAttribute(value = SessionTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) SessionPrincipal principal) {
+        // 验证用户是否已登录：客户ID只来自会话令牌
+        if (principal == null || !principal.isCustomer()) {
             // 返回未授权错误
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
@@ -67,18 +73,13 @@ public class BuyerController {
             }
             
             // 创建购买意向 - 现在会抛出具体的异常
-            Buyer created = buyerService.createBuyer(buyer, productId, username);
-            
-            // 清除循环引用，避免JSON序列化问题
-            if (created.getProduct() != null) {
-                created.getProduct().setSubCategory(null);
-            }
+            Buyer created = buyerService.createBuyer(buyer, productId, principal.getId());
             
             // 如果成功，返回创建的购买意向
             Map<String, Object> successResponse = new HashMap<>();
             successResponse.put("success", true);
             successResponse.put("message", "购买意向创建成功");
-            successResponse.put("data", created);
+            successResponse.put("data", BuyerDTO.fromEntity(created));
             return ResponseEntity.ok(successResponse);
         } catch (RuntimeException e) {
             // 捕获所有运行时异常，特别是BuyerServiceException
@@ -92,6 +93,8 @@ public class BuyerController {
             HttpStatus status = HttpStatus.BAD_REQUEST;
             if (errorMessage.contains("不存在")) {
                 status = HttpStatus.NOT_FOUND;
+            } else if (errorMessage.contains("已被预订")) {
+                status = HttpStatus.CONFLICT;
             } else if (errorMessage.contains("失败")) {
                 status = HttpStatus.INTERNAL_SERVER_ERROR;
             }
@@ -108,15 +111,42 @@ public class BuyerController {
     }
 
     @GetMapping
-    public List<Buyer> getAllBuyers() {
-        List<Buyer> buyers = buyerService.getAllBuyers();
-        // 清除循环引用，避免JSON序列化问题
-        for (Buyer buyer : buyers) {
-            if (buyer.getProduct() != null) {
-                buyer.getProduct().setSubCategory(null);
-            }
+    public List<BuyerDTO> getAllBuyers() {
+        return buyerService.getAllBuyerDTOs();
+    }
+
+    // 批量结算购买意向，逐条返回处理结果
+    @PutMapping("/complete")
+    public ResponseEntity<Map<String, Object>> settleTransactions(@RequestBody List<SettlementRequestDTO> requests) {
+        Map<String, Object> response = new HashMap<>();
+        if (requests == null || requests.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "结算列表不能为空");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        if (requests.size() > BuyerService.MAX_SETTLEMENT_SIZE) {
+            response.put("success", false);
+            response.put("message", "单次最多结算" + BuyerService.MAX_SETTLEMENT_SIZE + "条");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+
+        List<SettlementResultDTO> results;
+        try {
+            results = buyerService.settleTransactions(requests);
+        } catch (IllegalStateException e) {
+            // 无法确认结算结果时整批已回滚
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
-        return buyers;
+        long settled = results.stream()
+                .filter(result -> SettlementResultDTO.SETTLED.equals(result.getStatus()))
+                .count();
+        response.put("success", true);
+        response.put("message", "已结算" + settled + "条购买意向");
+        response.put("settled", settled);
+        response.put("data", results);
+        return ResponseEntity.ok(response);
     }
 
     @PutMapping("/{id}/complete")
@@ -0,0 +1,42 @@
+package com.shop.controller;
+
+import com.shop.dto.CatalogNodeDTO;
+import com.shop.service.CatalogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogController.class);
+
+    @Autowired
+    private CatalogService catalogService;
+
+    // 一次返回完整的启用分类树（含二级分类和各节点上架商品数量）
+    @GetMapping("/tree")
+    public ResponseEntity<Map<String, Object>> getCatalogTree() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<CatalogNodeDTO> tree = catalogService.getCatalogTree();
+            response.put("status", "success");
+            response.put("data", tree);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error getting catalog tree", e);
+            response.put("status", "error");
+            response.put("message", "Failed to get catalog tree");
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+}
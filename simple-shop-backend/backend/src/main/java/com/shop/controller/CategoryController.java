@@ -36,13 +36,7 @@ public class CategoryController {
         logger.info("Active categories endpoint called");
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Category> categories = categoryService.getAllActiveCategories();
-            // 清除子分类引用以避免循环依赖
-            for (Category category : categories) {
-                if (category.getSubCategories() != null) {
-                    category.setSubCategories(null);
-                }
-            }
+            List<CategoryDTO> categories = categoryService.getActiveCategoryDTOs();
             response.put("status", "success");
             response.put("data", categories);
             return ResponseEntity.ok(response);
@@ -59,13 +53,7 @@ public class CategoryController {
         logger.info("All categories endpoint called");
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Category> categories = categoryService.getAllCategories();
-            // 清除子分类引用以避免循环依赖
-            for (Category category : categories) {
-                if (category.getSubCategories() != null) {
-                    category.setSubCategories(null);
-                }
-            }
+            List<CategoryDTO> categories = categoryService.getAllCategoryDTOs();
             response.put("status", "success");
             response.put("data", categories);
             return ResponseEntity.ok(response);
@@ -84,12 +72,8 @@ public class CategoryController {
         try {
             return categoryService.getCategoryById(id)
                 .map(category -> {
-                    // 清除子分类引用以避免循环依赖
-                    if (category.getSubCategories() != null) {
-                        category.setSubCategories(null);
-                    }
                     response.put("status", "success");
-                    response.put("data", category);
+                    response.put("data", CategoryDTO.fromEntity(category));
                     return ResponseEntity.ok(response);
                 })
                 .orElseGet(() -> {
@@ -110,17 +94,11 @@ public class CategoryController {
         logger.info("Create category: {}", category.getName());
         Map<String, Object> response = new HashMap<>();
         try {
-            // 清除子分类引用以避免循环依赖
-            if (category.getSubCategories() != null) {
-                category.setSubCategories(null);
-            }
+            // 忽略请求体中的子分类集合，子分类通过二级分类接口维护
+            category.setSubCategories(null);
             Category created = categoryService.createCategory(category);
-            // 确保返回的对象也没有子分类引用
-            if (created.getSubCategories() != null) {
-                created.setSubCategories(null);
-            }
             response.put("status", "success");
-            response.put("data", created);
+            response.put("data", CategoryDTO.fromEntity(created));
             return ResponseEntity.status(201).body(response);
         } catch (Exception e) {
             logger.error("Error creating category", e);
@@ -136,17 +114,11 @@ public class CategoryController {
         Map<String, Object> response = new HashMap<>();
         try {
             category.setId(id);
-            // 清除子分类引用以避免循环依赖
-            if (category.getSubCategories() != null) {
-                category.setSubCategories(null);
-            }
+            // 忽略请求体中的子分类集合，子分类通过二级分类接口维护
+            category.setSubCategories(null);
             Category updated = categoryService.updateCategory(category);
-            // 确保返回的对象也没有子分类引用
-            if (updated.getSubCategories() != null) {
-                updated.setSubCategories(null);
-            }
             response.put("status", "success");
-            response.put("data", updated);
+            response.put("data", CategoryDTO.fromEntity(updated));
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error updating category", e);
@@ -1,13 +1,28 @@
 package com.shop.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.dto.CursorPageDTO;
+import com.shop.dto.CustomerPageDTO;
+import com.shop.dto.CustomerOrderRow;
+import com.shop.filter.SessionTokenFilter;
 import com.shop.model.Customer;
+import com.shop.security.PasswordWorkRejectedException;
+import com.shop.service.CustomerSearchService;
 import com.shop.service.CustomerService;
+import com.shop.session.SessionPrincipal;
+import com.shop.session.SessionTokenStore;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
@@ -23,6 +38,15 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private CustomerSearchService customerSearchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SessionTokenStore sessionTokenStore;
+
     @PostMapping("/register")
     public ResponseEntity<Map<String, Object>> register(
             @RequestParam String username,
@@ -47,7 +71,12 @@ public class CustomerController {
         }
         
         // 执行注册
-        boolean success = customerService.register(username, password, phone, defaultLocation);
+        boolean success;
+        try {
+            success = customerService.register(username, password, phone, defaultLocation);
+        } catch (PasswordWorkRejectedException e) {
+            return tooManyRequests(response, e);
+        }
         
         if (success) {
             response.put("success", true);
@@ -67,16 +96,40 @@ public class CustomerController {
         
         Map<String, Object> response = new HashMap<>();
         
-        boolean success = customerService.login(username, password).isPresent();
+        Optional<Customer> customer;
+        try {
+            customer = customerService.login(username, password);
+        } catch (PasswordWorkRejectedException e) {
+            return tooManyRequests(response, e);
+        }
         
-        if (success) {
+        if (customer.isPresent()) {
+            // 签发会话令牌，之后的请求通过Authorization: Bearer携带，不再按用户名查询客户
+            String token = sessionTokenStore.issue(SessionPrincipal.Role.CUSTOMER,
+                    customer.get().getId(), customer.get().getUsername());
             response.put("success", true);
             response.put("message", "登录成功");
-        } else {
-            response.put("success", false);
-            response.put("message", "用户名或密码错误");
+            response.put("token", token);
+            response.put("customerId", customer.get().getId());
+            response.put("expiresIn", sessionTokenStore.getTtl().getSeconds());
+            return ResponseEntity.ok().header(HttpHeaders.AUTHORIZATION, "Bearer " + token).body(response);
         }
         
+        response.put("success", false);
+        response.put("message", "用户名或密码错误");
+        return ResponseEntity.ok(response);
+    }
+
+    // 注销当前会话令牌
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, Object>> logout(HttpServletRequest request) {
+        String token = SessionTokenFilter.bearerToken(request);
+        if (token != null) {
+            sessionTokenStore.revoke(token);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "已退出登录");
         return ResponseEntity.ok(response);
     }
 
@@ -85,7 +138,8 @@ public class CustomerController {
     public ResponseEntity<?> getCustomers(
             @RequestParam(required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         
         // 如果没有指定分页参数或者设置为特殊值，返回所有数据（兼容旧接口）
         if (page < 0 || size <= 0) {
@@ -93,53 +147,113 @@ public class CustomerController {
             return ResponseEntity.ok(customers);
         }
         
-        // 支持分页和搜索的查询
-        Page<Customer> customerPage = customerService.getCustomers(keyword, page, size);
+        // 走用户名/手机号索引搜索，默认用hasMore判断是否有下一页，不统计总数
+        CustomerPageDTO customerPage = customerSearchService.search(keyword, page, size, withTotal);
         
         // 构建响应对象，包含数据和分页信息
         Map<String, Object> response = new HashMap<>();
-        response.put("customers", customerPage.getContent());
-        response.put("currentPage", customerPage.getNumber());
-        response.put("totalItems", customerPage.getTotalElements());
-        response.put("totalPages", customerPage.getTotalPages());
+        response.put("customers", customerPage.getCustomers());
+        response.put("currentPage", customerPage.getPage());
+        response.put("hasMore", customerPage.isHasMore());
+        if (customerPage.getTotal() != null) {
+            int total = customerPage.getTotal();
+            response.put("totalItems", total);
+            response.put("totalPages", (total + customerPage.getSize() - 1) / customerPage.getSize());
+        }
         
         return ResponseEntity.ok(response);
     }
 
-    // 获取当前登录用户的订单记录（根据请求头中的用户名）
+    // 获取当前登录用户的订单记录（客户ID来自会话令牌）
     @GetMapping("/orders")
     public ResponseEntity<?> getAllOrders(
-            @RequestHeader(value = "X-Username", required = false) String username,
+            @RequestAttribute(value = SessionTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) SessionPrincipal principal,
             @RequestParam(required = false) String status,
-            @RequestParam(defaultValue = "desc") String sort) {
+            @RequestParam(defaultValue = "desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         // 验证用户是否已登录
-        if (username == null || username.isEmpty()) {
+        if (principal == null || !principal.isCustomer()) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
             errorResponse.put("message", "请先登录再查看订单");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
         }
-        
-        // 根据用户名查找客户
-        Optional<Customer> customerOpt = customerService.findByUsername(username);
-        if (!customerOpt.isPresent()) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "用户不存在");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        return ordersResponse(principal.getId(), status, sort, cursor, size);
+    }
+
+    // 流式输出当前登录用户的全部订单（JSON数组），用于订单很多的客户，服务端不整体物化结果集
+    @GetMapping("/orders/stream")
+    public ResponseEntity<StreamingResponseBody> streamOrders(
+            @RequestAttribute(value = SessionTokenFilter.PRINCIPAL_ATTRIBUTE, required = false) SessionPrincipal principal,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "desc") String sort) {
+        if (principal == null || !principal.isCustomer()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        
-        // 获取客户ID并查询订单
-        Long customerId = customerOpt.get().getId();
-        List<Map<String, Object>> orders = customerService.getCustomerOrders(customerId, status, sort);
-        return ResponseEntity.ok(orders);
+        return streamOrdersResponse(principal.getId(), status, sort);
     }
 
     // 获取指定客户的订单记录（仅卖家可访问）
     @GetMapping("/customers/{customerId}/orders")
-    public ResponseEntity<List<Map<String, Object>>> getCustomerOrders(@PathVariable Long customerId) {
-        // 调用service方法，使用默认的筛选参数（不筛选状态，按时间降序）
-        List<Map<String, Object>> orders = customerService.getCustomerOrders(customerId, null, "desc");
+    public ResponseEntity<?> getCustomerOrders(
+            @PathVariable Long customerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        // 使用默认的筛选参数（不筛选状态，按时间降序）
+        return ordersResponse(customerId, null, "desc", cursor, size);
+    }
+
+    // 流式输出指定客户的全部订单（仅卖家可访问）
+    @GetMapping("/customers/{customerId}/orders/stream")
+    public ResponseEntity<StreamingResponseBody> streamCustomerOrders(@PathVariable Long customerId) {
+        return streamOrdersResponse(customerId, null, "desc");
+    }
+
+    // 带cursor或size时键集分页，否则返回全部订单（兼容旧接口）
+    private ResponseEntity<?> ordersResponse(Long customerId, String status, String sort,
+                                             String cursor, Integer size) {
+        if (cursor != null || size != null) {
+            try {
+                int pageSize = size == null ? CustomerService.DEFAULT_ORDER_PAGE_SIZE : size;
+                CursorPageDTO<CustomerOrderRow> page =
+                        customerService.getCustomerOrderPage(customerId, status, sort, cursor, pageSize);
+                return ResponseEntity.ok(page);
+            } catch (IllegalArgumentException e) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+        }
+        List<CustomerOrderRow> orders = customerService.getCustomerOrders(customerId, status, sort);
         return ResponseEntity.ok(orders);
     }
-}
\ No newline at end of file
+
+    // 边读边写JSON数组，每行写出后即可丢弃
+    private ResponseEntity<StreamingResponseBody> streamOrdersResponse(Long customerId, String status, String sort) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.writeStartArray();
+                customerService.streamCustomerOrders(customerId, status, sort, row -> {
+                    try {
+                        gen.writeObject(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gen.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // 密码线程池已满，客户端稍后重试
+    private ResponseEntity<Map<String, Object>> tooManyRequests(Map<String, Object> response,
+                                                                PasswordWorkRejectedException e) {
+        response.put("success", false);
+        response.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, PasswordWorkRejectedException.RETRY_AFTER_SECONDS).body(response);
+    }
+}
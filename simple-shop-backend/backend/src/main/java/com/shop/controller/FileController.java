@@ -1,17 +1,45 @@
 package com.shop.controller;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.shop.cache.ImageBodyCache;
+import com.shop.service.ImageStoreService;
+import com.shop.service.ImageVariantService;
+import com.shop.storage.ImageFormat;
+import com.shop.storage.ImageStorage;
+import com.shop.storage.StoredImage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.io.File;
+import javax.annotation.PostConstruct;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/files")
@@ -28,82 +56,130 @@ public class FileController {
     // 最多上传图片数量
     private static final int MAX_FILE_COUNT = 10;
 
-    // 文件存储路径（从配置文件读取）
-    @Value("${file.upload-dir}")
-    private String uploadDir;
+    // 单次上传请求体上限：全部图片加上multipart分隔和头部的余量
+    private static final long MAX_REQUEST_SIZE = MAX_FILE_COUNT * MAX_FILE_SIZE + 64 * 1024;
+
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
+
+    // 图片文件名由内容决定，浏览器和CDN缓存一年且无需再验证
+    private static final String IMAGE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Tomcat sendfile约定的请求属性
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 请求的缩略图尚未生成时退回原图，只短期缓存，生成后客户端重新验证即可拿到缩略图
+    private static final long FALLBACK_MAX_AGE = 60;
+    private static final String FALLBACK_CACHE_CONTROL = "public, max-age=" + FALLBACK_MAX_AGE;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private ImageBodyCache imageBodyCache;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ImageStoreService imageStoreService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter cacheDownloadBytes;
+
+    private Counter storageDownloadBytes;
+
+    // 图片响应体字节数，按来源区分；重定向到对象存储的请求不经过本服务，不计入
+    @PostConstruct
+    public void registerMetrics() {
+        cacheDownloadBytes = Counter.builder("image.download.bytes")
+                .description("图片响应体字节数")
+                .baseUnit("bytes")
+                .tag("source", "cache")
+                .register(meterRegistry);
+        storageDownloadBytes = Counter.builder("image.download.bytes")
+                .description("图片响应体字节数")
+                .baseUnit("bytes")
+                .tag("source", "storage")
+                .register(meterRegistry);
+    }
 
     /**
      * 上传图片接口
      * 支持单次上传多张图片（最多10张）
-     * 限制图片大小和格式
+     * 流式解析请求体：根据每个文件开头的魔数判断格式，不支持的文件不落盘直接跳过，超过大小限制时立即停止写入；
+     * 跳过的内容同样计入请求体上限，没有Content-Length的分块请求读到上限即中止并返回413；
+     * 接收完成的文件交给上传线程池并行提交，响应中逐个返回每个文件的结果
      */
     @PostMapping("/upload/images")
-    public ResponseEntity<?> uploadImages(@RequestParam("files") MultipartFile[] files) {
-        // 验证文件数量
-        if (files == null || files.length == 0) {
+    public ResponseEntity<?> uploadImages(HttpServletRequest request) {
+        if (!ServletFileUpload.isMultipartContent(request)) {
             return ResponseEntity.badRequest().body(Map.of("error", "请选择要上传的图片"));
         }
-
-        if (files.length > MAX_FILE_COUNT) {
-            return ResponseEntity.badRequest().body(Map.of("error", "最多只能上传" + MAX_FILE_COUNT + "张图片"));
-        }
-
-        List<String> imageUrls = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
-
-        // 创建上传目录（如果不存在）
-        File uploadDirFile = new File(uploadDir);
-        if (!uploadDirFile.exists()) {
-            uploadDirFile.mkdirs();
+        // 声明的请求体长度已超出上限时不读取请求体
+        if (request.getContentLengthLong() > MAX_REQUEST_SIZE) {
+            return payloadTooLarge();
         }
 
-        // 处理每个文件
-        for (int i = 0; i < files.length; i++) {
-            MultipartFile file = files[i];
-
-            // 跳过空文件
-            if (file.isEmpty()) {
-                errors.add("第" + (i + 1) + "个文件为空");
-                continue;
-            }
-
-            // 验证文件大小
-            if (file.getSize() > MAX_FILE_SIZE) {
-                errors.add("第" + (i + 1) + "个文件大小超过限制（最大5MB）");
-                continue;
+        List<Map<String, Object>> fileResults = new ArrayList<>();
+        List<CompletableFuture<String>> commits = new ArrayList<>();
+        try {
+            ServletFileUpload upload = new ServletFileUpload();
+            upload.setSizeMax(MAX_REQUEST_SIZE);
+            upload.setFileSizeMax(MAX_FILE_SIZE);
+            FileItemIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (item.isFormField() || !"files".equals(item.getFieldName())) {
+                    continue;
+                }
+                Map<String, Object> fileResult = new LinkedHashMap<>();
+                fileResult.put("index", fileResults.size() + 1);
+                fileResult.put("fileName", item.getName());
+                fileResults.add(fileResult);
+                commits.add(receive(item, fileResults.size(), fileResult));
             }
-
-            // 验证文件格式
-            String fileName = file.getOriginalFilename();
-            if (fileName == null || !fileName.contains(".")) {
-                errors.add("第" + (i + 1) + "个文件格式无效");
-                continue;
+        } catch (FileUploadException | IOException e) {
+            // 已接收的文件仍然正常提交，按引用计数为0由清理任务回收；
+            // 请求体超限，或分段头声明的文件长度超限（解析器无法跳过该段继续）时返回413
+            if (limitExceeded(e) != null) {
+                return payloadTooLarge();
             }
+            return ResponseEntity.badRequest().body(Map.of("error", "上传请求读取失败：" + e.getMessage()));
+        }
+        if (fileResults.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "请选择要上传的图片"));
+        }
 
-            String fileExtension = fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
-            if (!ALLOWED_IMAGE_FORMATS.contains(fileExtension)) {
-                errors.add("第" + (i + 1) + "个文件格式不支持，仅支持：" + String.join(", ", ALLOWED_IMAGE_FORMATS));
-                continue;
+        List<String> imageUrls = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < fileResults.size(); i++) {
+            Map<String, Object> fileResult = fileResults.get(i);
+            CompletableFuture<String> commit = commits.get(i);
+            if (commit != null) {
+                try {
+                    String imageUrl = ImageStoreService.IMAGE_URL_PREFIX + commit.join();
+                    fileResult.put("success", true);
+                    fileResult.put("url", imageUrl);
+                    imageUrls.add(imageUrl);
+                } catch (CompletionException e) {
+                    fileResult.put("success", false);
+                    fileResult.put("error", "第" + (i + 1) + "个文件上传失败：" + e.getCause().getMessage());
+                }
             }
-
-            // 生成唯一文件名
-            String uniqueFileName = UUID.randomUUID().toString() + "." + fileExtension;
-            Path targetLocation = Paths.get(uploadDir + File.separator + uniqueFileName);
-
-            try {
-                // 保存文件
-                Files.copy(file.getInputStream(), targetLocation);
-                // 生成访问URL（这里使用相对路径，实际部署时可能需要配置绝对URL）
-                String imageUrl = "/api/files/images/" + uniqueFileName;
-                imageUrls.add(imageUrl);
-            } catch (IOException e) {
-                errors.add("第" + (i + 1) + "个文件上传失败：" + e.getMessage());
+            if (!Boolean.TRUE.equals(fileResult.get("success"))) {
+                errors.add((String) fileResult.get("error"));
             }
         }
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("imageUrls", imageUrls);
+        response.put("files", fileResults);
         
         if (!errors.isEmpty()) {
             response.put("success", false);
@@ -114,27 +190,223 @@ public class FileController {
         return ResponseEntity.ok(response);
     }
 
+    // 校验并接收一个文件，校验失败时把错误写入fileResult并返回null
+    private CompletableFuture<String> receive(FileItemStream item, int index, Map<String, Object> fileResult)
+            throws IOException {
+        if (index > MAX_FILE_COUNT) {
+            return reject(fileResult, "第" + index + "个文件被忽略，最多只能上传" + MAX_FILE_COUNT + "张图片");
+        }
+        try (InputStream input = new BufferedInputStream(item.openStream(), UPLOAD_BUFFER_SIZE)) {
+            input.mark(ImageFormat.MAGIC_LENGTH);
+            byte[] head = new byte[ImageFormat.MAGIC_LENGTH];
+            int length = input.readNBytes(head, 0, head.length);
+            input.reset();
+            if (length == 0) {
+                return reject(fileResult, "第" + index + "个文件为空");
+            }
+            ImageFormat format = ImageFormat.sniff(head, length);
+            if (format == null) {
+                // 关闭时跳过该文件剩余内容，不写入磁盘
+                return reject(fileResult, "第" + index + "个文件格式不支持，仅支持：" + String.join(", ", ALLOWED_IMAGE_FORMATS));
+            }
+            try {
+                return imageStoreService.commitAsync(imageStoreService.receive(input, format, MAX_FILE_SIZE));
+            } catch (IllegalArgumentException e) {
+                return reject(fileResult, "第" + index + "个文件大小超过限制（最大5MB）");
+            } catch (FileUploadBase.FileUploadIOException e) {
+                // 单个文件超过上限时解析器已跳过其余内容，继续处理后面的文件；整个请求超限时向上抛出
+                if (limitExceeded(e) instanceof FileUploadBase.FileSizeLimitExceededException) {
+                    return reject(fileResult, "第" + index + "个文件大小超过限制（最大5MB）");
+                }
+                throw e;
+            }
+        }
+    }
+
+    // 解析器报告的大小超限异常（请求体或单个文件），其他异常返回null
+    private static FileUploadException limitExceeded(Exception e) {
+        Throwable cause = e instanceof FileUploadBase.FileUploadIOException ? e.getCause() : e;
+        if (cause instanceof FileUploadBase.SizeLimitExceededException
+                || cause instanceof FileUploadBase.FileSizeLimitExceededException) {
+            return (FileUploadException) cause;
+        }
+        return null;
+    }
+
+    private static ResponseEntity<?> payloadTooLarge() {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(Map.of("error", "最多只能上传" + MAX_FILE_COUNT + "张图片，每张不超过5MB"));
+    }
+
+    private static CompletableFuture<String> reject(Map<String, Object> fileResult, String error) {
+        fileResult.put("success", false);
+        fileResult.put("error", error);
+        return null;
+    }
+
     /**
      * 获取图片资源
-     * 这个方法需要配合Spring的静态资源配置使用
-     * 或者在WebConfig中添加相应的资源映射
+     * 上传的文件名即内容的SHA-256摘要，同名文件内容永远相同，因此直接以文件名作为强ETag并允许客户端长期缓存；
+     * 支持条件请求（304）和单段Range请求，文件内容由Tomcat sendfile从内核直接写出，不经过堆内存；
+     * 带w参数时返回宽度不小于w的最小缩略图。访问频繁的图片缓存在堆外内存中，命中时不访问磁盘；
+     * 使用对象存储时重定向到预签名地址，由对象存储直接返回图片内容
      */
-    @GetMapping("/images/{fileName:.+}")
-    public ResponseEntity<?> getImage(@PathVariable String fileName) {
-        try {
-            Path imagePath = Paths.get(uploadDir + File.separator + fileName);
-            if (Files.exists(imagePath)) {
-                String contentType = Files.probeContentType(imagePath);
-                byte[] imageData = Files.readAllBytes(imagePath);
-                return ResponseEntity.ok()
-                        .header("Content-Type", contentType)
-                        .body(imageData);
+    @RequestMapping(value = "/images/{fileName:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getImage(@PathVariable String fileName,
+                         @RequestParam(value = "w", required = false) Integer width,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean variantRequested = width != null && width > 0;
+        // 缓存键包含请求的宽度，命中时不再逐个查找缩略图文件
+        String cacheKey = variantRequested ? fileName + "?w=" + width : fileName;
+        ImageBodyCache.CachedImage cached = imageBodyCache.get(cacheKey);
+        if (cached != null) {
+            writeCached(cached, request, response);
+            return;
+        }
+
+        StoredImage image = imageStorage.stat(fileName);
+        if (image == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String cacheControl = IMAGE_CACHE_CONTROL;
+        if (variantRequested) {
+            StoredImage variant = imageVariantService.resolveVariant(fileName, width);
+            if (variant == null) {
+                cacheControl = FALLBACK_CACHE_CONTROL;
             } else {
-                return ResponseEntity.notFound().build();
+                image = variant;
+                fileName = variant.getFileName();
             }
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
+
+        URI directUrl = imageStorage.directUrl(fileName);
+        if (directUrl != null) {
+            // 重定向只在预签名地址的有效期内缓存；退回原图时仍按短期缓存，缩略图生成后重新请求即可拿到
+            long maxAge = imageStorage.directUrlLifetime().getSeconds();
+            if (FALLBACK_CACHE_CONTROL.equals(cacheControl)) {
+                maxAge = Math.min(maxAge, FALLBACK_MAX_AGE);
+            }
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + maxAge);
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.LOCATION, directUrl.toString());
+            return;
+        }
+
+        Path imagePath = image.getPath();
+        String etag = "\"" + stripExtension(fileName) + "\"";
+        String contentType = ImageFormat.contentTypeOf(fileName);
+        // 访问足够频繁的图片读入缓存后从内存返回；退回原图的响应在缩略图生成后会改变，不缓存
+        if (IMAGE_CACHE_CONTROL.equals(cacheControl)) {
+            cached = imageBodyCache.load(cacheKey, fileName, imagePath, image.getSize(), image.getLastModified(),
+                    contentType, etag);
+            if (cached != null) {
+                writeCached(cached, request, response);
+                return;
+            }
+        }
+
+        long[] range = prepareResponse(request, response, etag, image.getLastModified(), image.getSize(),
+                contentType, cacheControl);
+        if (range == null) {
+            return;
+        }
+        long start = range[0];
+        long end = range[1];
+        storageDownloadBytes.increment(end - start);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 交给Tomcat在请求结束后用sendfile/transferTo写出
+            request.setAttribute(SENDFILE_FILENAME, imagePath.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    // 缓存命中：内容直接从堆外内存写出，不访问磁盘
+    private void writeCached(ImageBodyCache.CachedImage cached, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        long[] range = prepareResponse(request, response, cached.getEtag(), cached.getLastModified(),
+                cached.getLength(), cached.getContentType(), IMAGE_CACHE_CONTROL);
+        if (range == null) {
+            return;
+        }
+        cacheDownloadBytes.increment(range[1] - range[0]);
+        ByteBuffer body = cached.slice(range[0], range[1]);
+        ServletOutputStream output = response.getOutputStream();
+        if (output instanceof CoyoteOutputStream) {
+            // Tomcat直接从ByteBuffer写出，不经过堆内数组中转
+            ((CoyoteOutputStream) output).write(body);
+            return;
+        }
+        WritableByteChannel out = Channels.newChannel(output);
+        while (body.hasRemaining()) {
+            out.write(body);
+        }
+    }
+
+    // 写出缓存头，处理条件请求和Range；返回要写出的区间[start, end)，已经完成响应（304、416或HEAD请求）时返回null
+    private static long[] prepareResponse(HttpServletRequest request, HttpServletResponse response, String etag,
+                                          long lastModified, long length, String contentType, String cacheControl)
+            throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // 命中If-None-Match或If-Modified-Since时返回304，同时写入ETag和Last-Modified
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
+        long start = 0;
+        long end = length;
+        HttpRange range = resolveRange(request, etag);
+        if (range != null) {
+            if (length == 0 || range.getRangeStart(length) >= length) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return null;
+            }
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length) + 1;
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+        response.setContentType(contentType);
+        response.setContentLengthLong(end - start);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return null;
+        }
+        return new long[]{start, end};
+    }
+
+    // 解析单段Range请求头；多段、格式错误或If-Range与当前ETag不符时忽略Range，返回完整文件
+    private static HttpRange resolveRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
     }
 
     /**
@@ -1,14 +1,24 @@
 package com.shop.controller;
 
+import com.shop.dto.CursorPageDTO;
+import com.shop.dto.ProductDTO;
+import com.shop.dto.ProductListItemDTO;
+import com.shop.dto.ProductSearchResultDTO;
 import com.shop.model.Product;
+import com.shop.search.ProductSearchQuery;
+import com.shop.service.ProductSearchService;
 import com.shop.service.ProductService;
 import com.shop.service.SubCategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -20,125 +30,154 @@ public class ProductController {
     @Autowired
     private SubCategoryService subCategoryService;
 
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    // 是否保留旧的全量商品列表接口（兼容开关，新前端应改用/page）
+    @Value("${product.legacy-list.enabled:true}")
+    private boolean legacyListEnabled;
+
     @GetMapping("/active")
-    public ResponseEntity<Product> getActiveProduct() {
-        Optional<Product> product = productService.getActiveProduct();
-        return product.map(p -> {
-            // 清除循环引用
-            if (p.getSubCategory() != null) {
-                p.getSubCategory().setCategory(null);
-            }
-            return ResponseEntity.ok(p);
-        })
-        .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<ProductDTO> getActiveProduct() {
+        return productService.getActiveProductDTO()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping
-    public List<Product> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        // 清除循环引用
-        for (Product product : products) {
-            if (product.getSubCategory() != null) {
-                product.getSubCategory().setCategory(null);
-            }
+    public ResponseEntity<?> getAllProducts() {
+        if (!legacyListEnabled) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "全量商品列表接口已停用，请使用/api/products/page分页接口");
+            return ResponseEntity.status(HttpStatus.GONE).body(response);
+        }
+        List<ProductDTO> products = productService.getAllProductDTOs();
+        return ResponseEntity.ok(products);
+    }
+
+    // 键集分页商品列表，按创建时间倒序，返回精简的列表项和下一页游标
+    @GetMapping("/page")
+    public ResponseEntity<?> getProductPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            CursorPageDTO<ProductListItemDTO> page = productService.getProductPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         }
-        return products;
+    }
+
+    // 商品搜索：名称和描述全文检索，支持二级分类、价格区间和上架/冻结状态筛选，按相关度排序
+    @GetMapping("/search")
+    public ProductSearchResultDTO searchProducts(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Long subCategoryId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) Boolean frozen,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + ProductSearchService.DEFAULT_PAGE_SIZE) int size) {
+        ProductSearchQuery query = new ProductSearchQuery();
+        query.setKeyword(q);
+        query.setSubCategoryId(subCategoryId);
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        query.setActive(active);
+        query.setFrozen(frozen);
+        return productSearchService.search(query, page, size);
     }
 
     @GetMapping("/sub-category/{subCategoryId}")
-    public ResponseEntity<List<Product>> getProductsBySubCategory(@PathVariable Long subCategoryId) {
+    public ResponseEntity<List<ProductDTO>> getProductsBySubCategory(@PathVariable Long subCategoryId) {
         // 验证二级分类是否存在
         if (!subCategoryService.getSubCategoryById(subCategoryId).isPresent()) {
             return ResponseEntity.notFound().build();
         }
-        List<Product> products = productService.getProductsBySubCategoryId(subCategoryId);
-        // 清除循环引用
-        for (Product product : products) {
-            if (product.getSubCategory() != null) {
-                product.getSubCategory().setCategory(null);
-            }
-        }
+        List<ProductDTO> products = productService.getProductDTOsBySubCategoryId(subCategoryId);
         return ResponseEntity.ok(products);
     }
     
     // 添加通过一级分类ID获取商品的API端点
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable Long categoryId) {
-        List<Product> products = productService.getProductsByCategoryId(categoryId);
-        // 清除循环引用
-        for (Product product : products) {
-            if (product.getSubCategory() != null) {
-                product.getSubCategory().setCategory(null);
-            }
-        }
+    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable Long categoryId) {
+        List<ProductDTO> products = productService.getProductDTOsByCategoryId(categoryId);
         return ResponseEntity.ok(products);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        Optional<Product> product = productService.getProductById(id);
-        return product.map(p -> {
-            // 清除循环引用
-            if (p.getSubCategory() != null) {
-                p.getSubCategory().setCategory(null);
-            }
-            return ResponseEntity.ok(p);
-        })
-        .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
+        return productService.getProductDTOById(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public Product createProduct(@RequestBody Product product) {
+    public ProductDTO createProduct(@RequestBody Product product) {
         Product created = productService.createProduct(product);
-        // 清除循环引用
-        if (created.getSubCategory() != null) {
-            created.getSubCategory().setCategory(null);
-        }
-        return created;
+        return ProductDTO.fromEntity(created);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Product product) {
-        return productService.getProductById(id)
-                .map(existingProduct -> {
-                    product.setId(id);
-                    Product updated = productService.updateProduct(product);
-                    // 清除循环引用
-                    if (updated.getSubCategory() != null) {
-                        updated.getSubCategory().setCategory(null);
-                    }
-                    return ResponseEntity.ok(updated);
-                })
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody Product product) {
+        if (!productService.getProductById(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        product.setId(id);
+        try {
+            Product updated = productService.updateProduct(product);
+            return ResponseEntity.ok(ProductDTO.fromEntity(updated));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return concurrentModification();
+        }
     }
 
     @PutMapping("/{id}/freeze")
-    public ResponseEntity<Boolean> freezeProduct(@PathVariable Long id, @RequestParam boolean freeze) {
-        boolean success = productService.freezeProduct(id, freeze);
-        return success ? ResponseEntity.ok(true) : ResponseEntity.notFound().build();
+    public ResponseEntity<?> freezeProduct(@PathVariable Long id, @RequestParam boolean freeze) {
+        try {
+            boolean success = productService.freezeProduct(id, freeze);
+            return success ? ResponseEntity.ok(true) : ResponseEntity.notFound().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return concurrentModification();
+        }
     }
 
     @PutMapping("/{id}/deactivate")
-    public ResponseEntity<Boolean> deactivateProduct(@PathVariable Long id) {
-        boolean success = productService.deactivateProduct(id);
-        return success ? ResponseEntity.ok(true) : ResponseEntity.notFound().build();
+    public ResponseEntity<?> deactivateProduct(@PathVariable Long id) {
+        try {
+            boolean success = productService.deactivateProduct(id);
+            return success ? ResponseEntity.ok(true) : ResponseEntity.notFound().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return concurrentModification();
+        }
     }
 
     // 激活（上架）某个商品，允许多个商品同时上架
     @PutMapping("/{id}/activate")
-    public ResponseEntity<Product> activateProduct(@PathVariable Long id) {
+    public ResponseEntity<?> activateProduct(@PathVariable Long id) {
         try {
             Product updated = productService.activateProduct(id);
             if (updated != null) {
-                // 清除循环引用
-                if (updated.getSubCategory() != null) {
-                    updated.getSubCategory().setCategory(null);
-                }
-                return ResponseEntity.ok(updated);
+                return ResponseEntity.ok(ProductDTO.fromEntity(updated));
             }
             return ResponseEntity.notFound().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return concurrentModification();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // 商品在读取和保存之间被其他操作（如买家预订）修改，版本号不一致
+    private ResponseEntity<Map<String, Object>> concurrentModification() {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", "商品状态已被其他操作修改，请刷新后重试");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
 }
\ No newline at end of file
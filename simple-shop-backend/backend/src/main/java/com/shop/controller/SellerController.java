@@ -1,12 +1,18 @@
 package com.shop.controller;
 
 import com.shop.model.Seller;
+import com.shop.security.PasswordWorkRejectedException;
 import com.shop.service.SellerService;
+import com.shop.session.SessionPrincipal;
+import com.shop.session.SessionTokenStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.PostConstruct;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/seller")
@@ -15,18 +21,32 @@ public class SellerController {
     @Autowired
     private SellerService sellerService;
 
+    @Autowired
+    private SessionTokenStore sessionTokenStore;
+
     // 初始化卖家账号
     @PostConstruct
     public void init() {
         sellerService.initializeSeller();
     }
 
+    // 登录成功时在Authorization响应头中返回会话令牌，响应体保持原来的true/false
     @PostMapping("/login")
     public ResponseEntity<Boolean> login(
             @RequestParam String username, 
             @RequestParam String password) {
-        boolean success = sellerService.login(username, password).isPresent();
-        return ResponseEntity.ok(success);
+        Optional<Seller> seller;
+        try {
+            seller = sellerService.login(username, password);
+        } catch (PasswordWorkRejectedException e) {
+            return tooManyRequests();
+        }
+        if (!seller.isPresent()) {
+            return ResponseEntity.ok(false);
+        }
+        String token = sessionTokenStore.issue(SessionPrincipal.Role.SELLER,
+                seller.get().getId(), seller.get().getUsername());
+        return ResponseEntity.ok().header(HttpHeaders.AUTHORIZATION, "Bearer " + token).body(true);
     }
 
     @PostMapping("/change-password")
@@ -34,7 +54,16 @@ public class SellerController {
             @RequestParam String username,
             @RequestParam String oldPassword,
             @RequestParam String newPassword) {
-        boolean success = sellerService.changePassword(username, oldPassword, newPassword);
-        return ResponseEntity.ok(success);
+        try {
+            return ResponseEntity.ok(sellerService.changePassword(username, oldPassword, newPassword));
+        } catch (PasswordWorkRejectedException e) {
+            return tooManyRequests();
+        }
+    }
+
+    // 密码线程池已满，客户端稍后重试
+    private ResponseEntity<Boolean> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, PasswordWorkRejectedException.RETRY_AFTER_SECONDS).build();
     }
 }
@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping({"/subcategories", "/api/sub-categories"})
@@ -24,16 +25,10 @@ public class SubCategoryController {
 
     // 根据一级分类ID获取启用的二级分类
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<SubCategory>> getActiveSubCategoriesByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<List<SubCategoryDTO>> getActiveSubCategoriesByCategory(@PathVariable Long categoryId) {
         logger.info("Get subcategories for category ID: {}", categoryId);
         try {
-            List<SubCategory> subCategories = subCategoryService.getActiveSubCategoriesByCategoryId(categoryId);
-            // 清除分类引用以避免循环依赖
-            for (SubCategory subCategory : subCategories) {
-                if (subCategory.getCategory() != null) {
-                    subCategory.setCategory(null);
-                }
-            }
+            List<SubCategoryDTO> subCategories = subCategoryService.getActiveSubCategoryDTOsByCategoryId(categoryId);
             return ResponseEntity.ok(subCategories);
         } catch (Exception e) {
             logger.error("Error getting subcategories by category id", e);
@@ -43,16 +38,12 @@ public class SubCategoryController {
 
     // 获取所有启用的二级分类
     @GetMapping("/active")
-    public ResponseEntity<List<SubCategory>> getAllActiveSubCategories() {
+    public ResponseEntity<List<SubCategoryDTO>> getAllActiveSubCategories() {
         logger.info("Get all active subcategories");
         try {
-            List<SubCategory> subCategories = subCategoryService.getAllActiveSubCategories();
-            // 清除分类引用以避免循环依赖
-            for (SubCategory subCategory : subCategories) {
-                if (subCategory.getCategory() != null) {
-                    subCategory.setCategory(null);
-                }
-            }
+            List<SubCategoryDTO> subCategories = subCategoryService.getAllActiveSubCategories().stream()
+                    .map(SubCategoryDTO::fromEntity)
+                    .collect(Collectors.toList());
             return ResponseEntity.ok(subCategories);
         } catch (Exception e) {
             logger.error("Error getting all active subcategories", e);
@@ -62,17 +53,11 @@ public class SubCategoryController {
 
     // 根据ID获取二级分类
     @GetMapping("/{id}")
-    public ResponseEntity<SubCategory> getSubCategoryById(@PathVariable Long id) {
+    public ResponseEntity<SubCategoryDTO> getSubCategoryById(@PathVariable Long id) {
         logger.info("Get subcategory by ID: {}", id);
         try {
-            return subCategoryService.getSubCategoryById(id)
-                .map(subCategory -> {
-                    // 清除分类引用以避免循环依赖
-                    if (subCategory.getCategory() != null) {
-                        subCategory.setCategory(null);
-                    }
-                    return ResponseEntity.ok(subCategory);
-                })
+            return subCategoryService.getSubCategoryDTOById(id)
+                .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             logger.error("Error getting subcategory by id", e);
@@ -86,11 +71,7 @@ public class SubCategoryController {
         logger.info("Create subcategory: {}", subCategory.getName());
         try {
             SubCategory created = subCategoryService.createSubCategory(subCategory);
-            // 清除分类引用以避免循环依赖
-            if (created.getCategory() != null) {
-                created.setCategory(null);
-            }
-            return ResponseEntity.status(201).body(created);
+            return ResponseEntity.status(201).body(SubCategoryDTO.fromEntity(created));
         } catch (IllegalArgumentException e) {
             Map<String, Object> response = new HashMap<>();
             response.put("status", "error");
@@ -109,11 +90,7 @@ public class SubCategoryController {
         try {
             subCategory.setId(id);
             SubCategory updated = subCategoryService.updateSubCategory(subCategory);
-            // 清除分类引用以避免循环依赖
-            if (updated.getCategory() != null) {
-                updated.setCategory(null);
-            }
-            return ResponseEntity.ok(updated);
+            return ResponseEntity.ok(SubCategoryDTO.fromEntity(updated));
         } catch (IllegalArgumentException e) {
             Map<String, Object> response = new HashMap<>();
             response.put("status", "error");
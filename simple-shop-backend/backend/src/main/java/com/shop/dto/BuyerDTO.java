@@ -0,0 +1,125 @@
+package com.shop.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.shop.dto.serializer.BuyerDTOSerializer;
+import com.shop.model.Buyer;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 购买意向数据传输对象
+ * 关联商品只包含商品本身的字段，不包含二级分类
+ */
+@JsonSerialize(using = BuyerDTOSerializer.class)
+public class BuyerDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String phone;
+
+    private String address;
+
+    private String notes;
+
+    private ProductDTO product;
+
+    private boolean completed;
+
+    private LocalDateTime createdAt;
+
+    private Long customerId;
+
+    // 由实体转换
+    public static BuyerDTO fromEntity(Buyer buyer) {
+        BuyerDTO dto = new BuyerDTO();
+        dto.setId(buyer.getId());
+        dto.setName(buyer.getName());
+        dto.setPhone(buyer.getPhone());
+        dto.setAddress(buyer.getAddress());
+        dto.setNotes(buyer.getNotes());
+        if (buyer.getProduct() != null) {
+            dto.setProduct(ProductDTO.fromEntity(buyer.getProduct(), false));
+        }
+        dto.setCompleted(buyer.isCompleted());
+        dto.setCreatedAt(buyer.getCreatedAt());
+        dto.setCustomerId(buyer.getCustomerId());
+        return dto;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+
+    public ProductDTO getProduct() {
+        return product;
+    }
+
+    public void setProduct(ProductDTO product) {
+        this.product = product;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+}
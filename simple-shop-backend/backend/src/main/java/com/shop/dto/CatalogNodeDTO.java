@@ -0,0 +1,83 @@
+package com.shop.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 分类树节点数据传输对象
+ * 一级分类节点的children为其启用的二级分类，二级分类节点的children为空列表
+ */
+public class CatalogNodeDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private String icon;
+
+    private Integer sortOrder;
+
+    private long productCount;
+
+    private List<CatalogNodeDTO> children;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getIcon() {
+        return icon;
+    }
+
+    public void setIcon(String icon) {
+        this.icon = icon;
+    }
+
+    public Integer getSortOrder() {
+        return sortOrder;
+    }
+
+    public void setSortOrder(Integer sortOrder) {
+        this.sortOrder = sortOrder;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+
+    public void setProductCount(long productCount) {
+        this.productCount = productCount;
+    }
+
+    public List<CatalogNodeDTO> getChildren() {
+        return children;
+    }
+
+    public void setChildren(List<CatalogNodeDTO> children) {
+        this.children = children;
+    }
+}
@@ -1,5 +1,7 @@
 package com.shop.dto;
 
+import com.shop.model.Category;
+
 import java.io.Serializable;
 
 /**
@@ -21,6 +23,18 @@ public class CategoryDTO implements Serializable {
     
     private String icon;
 
+    // 由实体转换，不访问子分类集合
+    public static CategoryDTO fromEntity(Category category) {
+        CategoryDTO dto = new CategoryDTO();
+        dto.setId(category.getId());
+        dto.setName(category.getName());
+        dto.setDescription(category.getDescription());
+        dto.setActive(category.isActive());
+        dto.setSortOrder(category.getSortOrder());
+        dto.setIcon(category.getIcon());
+        return dto;
+    }
+
     public Long getId() {
         return id;
     }
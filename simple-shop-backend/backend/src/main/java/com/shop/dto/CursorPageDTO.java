@@ -0,0 +1,63 @@
+package com.shop.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * nextCursor为空表示已经是最后一页
+ */
+public class CursorPageDTO<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<T> items;
+
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    private int size;
+
+    public CursorPageDTO() {
+    }
+
+    public CursorPageDTO(List<T> items, String nextCursor, int size) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.size = size;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
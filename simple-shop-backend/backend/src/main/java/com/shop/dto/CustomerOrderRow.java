@@ -0,0 +1,131 @@
+package com.shop.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * 客户订单历史中的一行（buyers LEFT JOIN products）
+ * JSON字段名与原先返回的Map保持一致
+ */
+public class CustomerOrderRow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String address;
+
+    private Timestamp createdAt;
+
+    private boolean completed;
+
+    private String buyerName;
+
+    private String notes;
+
+    private String phone;
+
+    private String productName;
+
+    private BigDecimal price;
+
+    public CustomerOrderRow() {
+    }
+
+    public CustomerOrderRow(Long id, String address, Timestamp createdAt, boolean completed, String buyerName,
+                            String notes, String phone, String productName, BigDecimal price) {
+        this.id = id;
+        this.address = address;
+        this.createdAt = createdAt;
+        this.completed = completed;
+        this.buyerName = buyerName;
+        this.notes = notes;
+        this.phone = phone;
+        this.productName = productName;
+        this.price = price;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    @JsonProperty("created_at")
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @JsonProperty("is_completed")
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    @JsonProperty("buyer_name")
+    public String getBuyerName() {
+        return buyerName;
+    }
+
+    public void setBuyerName(String buyerName) {
+        this.buyerName = buyerName;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    @JsonProperty("product_name")
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    // 订单状态由是否完成推导
+    public String getStatus() {
+        return completed ? "completed" : "pending";
+    }
+}
@@ -0,0 +1,76 @@
+package com.shop.dto;
+
+import com.shop.model.Customer;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 客户列表分页结果
+ * 默认只给出hasMore，不统计总数；total仅在调用方要求时填充，否则为空
+ */
+public class CustomerPageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<Customer> customers;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasMore;
+
+    private Integer total;
+
+    public CustomerPageDTO() {
+    }
+
+    public CustomerPageDTO(List<Customer> customers, int page, int size, boolean hasMore, Integer total) {
+        this.customers = customers;
+        this.page = page;
+        this.size = size;
+        this.hasMore = hasMore;
+        this.total = total;
+    }
+
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    public void setCustomers(List<Customer> customers) {
+        this.customers = customers;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,67 @@
+package com.shop.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页游标（createdAt + id）
+ * 以不透明字符串的形式返回给前端，下一页请求原样带回即可。
+ * 历史数据的createdAt可能为NULL，此时createdAt为空，表示游标位于NULL行区间内，只按id比较
+ */
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime createdAt;
+
+    private final Long id;
+
+    public KeysetCursor(LocalDateTime createdAt, Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("游标ID不能为空");
+        }
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    // 游标是否位于createdAt为NULL的行区间内
+    public boolean isNullCreatedAt() {
+        return createdAt == null;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    // 编码为URL安全的Base64字符串
+    public String encode() {
+        String raw = (createdAt == null ? "" : createdAt.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 解析前端带回的游标，格式非法时抛出IllegalArgumentException
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("游标不能为空");
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            if (separatorIndex < 0 || separatorIndex == raw.length() - 1) {
+                throw new IllegalArgumentException("游标格式无效");
+            }
+            LocalDateTime createdAt = separatorIndex == 0 ? null : LocalDateTime.parse(raw.substring(0, separatorIndex));
+            Long id = Long.valueOf(raw.substring(separatorIndex + 1));
+            return new KeysetCursor(createdAt, id);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("游标格式无效", e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.shop.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.shop.dto.serializer.ProductDTOSerializer;
+import com.shop.model.Product;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 商品数据传输对象
+ * 字段与原先直接返回的Product实体JSON保持一致，二级分类以SubCategoryDTO表示
+ */
+@JsonSerialize(using = ProductDTOSerializer.class)
+public class ProductDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private String imageUrl;
+
+    private double price;
+
+    private boolean active;
+
+    private boolean frozen;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private SubCategoryDTO subCategory;
+
+    // 由实体转换，包含二级分类
+    public static ProductDTO fromEntity(Product product) {
+        return fromEntity(product, true);
+    }
+
+    // 由实体转换，includeSubCategory为false时不访问二级分类关联
+    public static ProductDTO fromEntity(Product product, boolean includeSubCategory) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setDescription(product.getDescription());
+        dto.setImageUrl(product.getImageUrl());
+        dto.setPrice(product.getPrice());
+        dto.setActive(product.isActive());
+        dto.setFrozen(product.isFrozen());
+        dto.setCreatedAt(product.getCreatedAt());
+        dto.setUpdatedAt(product.getUpdatedAt());
+        if (includeSubCategory && product.getSubCategory() != null) {
+            dto.setSubCategory(SubCategoryDTO.fromEntity(product.getSubCategory()));
+        }
+        return dto;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public void setFrozen(boolean frozen) {
+        this.frozen = frozen;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public SubCategoryDTO getSubCategory() {
+        return subCategory;
+    }
+
+    public void setSubCategory(SubCategoryDTO subCategory) {
+        this.subCategory = subCategory;
+    }
+}
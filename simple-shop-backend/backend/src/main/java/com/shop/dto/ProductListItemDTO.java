@@ -0,0 +1,119 @@
+package com.shop.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 商品列表项数据传输对象
+ * 由JPQL构造表达式直接投影生成，不加载商品描述和分类实体
+ */
+public class ProductListItemDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String imageUrl;
+
+    private double price;
+
+    private boolean active;
+
+    private boolean frozen;
+
+    private LocalDateTime createdAt;
+
+    private Long subCategoryId;
+
+    private String subCategoryName;
+
+    public ProductListItemDTO() {
+    }
+
+    public ProductListItemDTO(Long id, String name, String imageUrl, double price, boolean active,
+                              boolean frozen, LocalDateTime createdAt, Long subCategoryId, String subCategoryName) {
+        this.id = id;
+        this.name = name;
+        this.imageUrl = imageUrl;
+        this.price = price;
+        this.active = active;
+        this.frozen = frozen;
+        this.createdAt = createdAt;
+        this.subCategoryId = subCategoryId;
+        this.subCategoryName = subCategoryName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public void setFrozen(boolean frozen) {
+        this.frozen = frozen;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getSubCategoryId() {
+        return subCategoryId;
+    }
+
+    public void setSubCategoryId(Long subCategoryId) {
+        this.subCategoryId = subCategoryId;
+    }
+
+    public String getSubCategoryName() {
+        return subCategoryName;
+    }
+
+    public void setSubCategoryName(String subCategoryName) {
+        this.subCategoryName = subCategoryName;
+    }
+}
@@ -0,0 +1,63 @@
+package com.shop.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 商品搜索结果
+ * items按相关度排序，total为匹配的商品总数
+ */
+public class ProductSearchResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<ProductListItemDTO> items;
+
+    private int total;
+
+    private int page;
+
+    private int size;
+
+    public ProductSearchResultDTO() {
+    }
+
+    public ProductSearchResultDTO(List<ProductListItemDTO> items, int total, int page, int size) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+    }
+
+    public List<ProductListItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductListItemDTO> items) {
+        this.items = items;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
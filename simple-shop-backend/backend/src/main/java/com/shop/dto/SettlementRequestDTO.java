@@ -0,0 +1,40 @@
+package com.shop.dto;
+
+import java.io.Serializable;
+
+/**
+ * 批量结算中的单个购买意向
+ * success为true表示交易成功（商品下架），false表示交易失败（商品解冻）
+ */
+public class SettlementRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long buyerId;
+
+    private boolean success;
+
+    public SettlementRequestDTO() {
+    }
+
+    public SettlementRequestDTO(Long buyerId, boolean success) {
+        this.buyerId = buyerId;
+        this.success = success;
+    }
+
+    public Long getBuyerId() {
+        return buyerId;
+    }
+
+    public void setBuyerId(Long buyerId) {
+        this.buyerId = buyerId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+}
@@ -0,0 +1,70 @@
+package com.shop.dto;
+
+import java.io.Serializable;
+
+/**
+ * 批量结算中单个购买意向的处理结果
+ */
+public class SettlementResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 已结算
+    public static final String SETTLED = "settled";
+    // 购买意向不存在
+    public static final String NOT_FOUND = "not_found";
+    // 购买意向此前已经结算
+    public static final String ALREADY_COMPLETED = "already_completed";
+    // 同一请求中重复出现，只处理第一次
+    public static final String DUPLICATE = "duplicate";
+
+    private Long buyerId;
+
+    private boolean success;
+
+    private String status;
+
+    private Long productId;
+
+    public SettlementResultDTO() {
+    }
+
+    public SettlementResultDTO(Long buyerId, boolean success, String status, Long productId) {
+        this.buyerId = buyerId;
+        this.success = success;
+        this.status = status;
+        this.productId = productId;
+    }
+
+    public Long getBuyerId() {
+        return buyerId;
+    }
+
+    public void setBuyerId(Long buyerId) {
+        this.buyerId = buyerId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+}
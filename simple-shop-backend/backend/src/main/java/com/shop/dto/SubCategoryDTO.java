@@ -1,5 +1,7 @@
 package com.shop.dto;
 
+import com.shop.model.SubCategory;
+
 import java.io.Serializable;
 
 /**
@@ -23,6 +25,19 @@ public class SubCategoryDTO implements Serializable {
     
     private Long categoryId;
 
+    // 由实体转换，只取所属一级分类的ID
+    public static SubCategoryDTO fromEntity(SubCategory subCategory) {
+        SubCategoryDTO dto = new SubCategoryDTO();
+        dto.setId(subCategory.getId());
+        dto.setName(subCategory.getName());
+        dto.setDescription(subCategory.getDescription());
+        dto.setActive(subCategory.isActive());
+        dto.setSortOrder(subCategory.getSortOrder());
+        dto.setIcon(subCategory.getIcon());
+        dto.setCategoryId(subCategory.getCategory() != null ? subCategory.getCategory().getId() : null);
+        return dto;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,60 @@
+package com.shop.dto.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.shop.dto.BuyerDTO;
+
+import java.io.IOException;
+
+/**
+ * BuyerDTO的手写序列化器，关联商品直接内联写出
+ */
+public class BuyerDTOSerializer extends StdSerializer<BuyerDTO> implements ResolvableSerializer {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final SerializedString PHONE = new SerializedString("phone");
+    private static final SerializedString ADDRESS = new SerializedString("address");
+    private static final SerializedString NOTES = new SerializedString("notes");
+    private static final SerializedString PRODUCT = new SerializedString("product");
+    private static final SerializedString COMPLETED = new SerializedString("completed");
+    private static final SerializedString CUSTOMER_ID = new SerializedString("customerId");
+
+    private final ProductDTOSerializer productSerializer = new ProductDTOSerializer();
+
+    public BuyerDTOSerializer() {
+        super(BuyerDTO.class);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        productSerializer.resolve(provider);
+    }
+
+    @Override
+    public void serialize(BuyerDTO buyer, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(buyer);
+        ProductDTOSerializer.writeNumberOrNull(gen, ProductDTOSerializer.ID, buyer.getId());
+        ProductDTOSerializer.writeString(gen, ProductDTOSerializer.NAME, buyer.getName());
+        ProductDTOSerializer.writeString(gen, PHONE, buyer.getPhone());
+        ProductDTOSerializer.writeString(gen, ADDRESS, buyer.getAddress());
+        ProductDTOSerializer.writeString(gen, NOTES, buyer.getNotes());
+        gen.writeFieldName(PRODUCT);
+        if (buyer.getProduct() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartObject(buyer.getProduct());
+            productSerializer.writeFields(buyer.getProduct(), gen, provider);
+            gen.writeEndObject();
+        }
+        gen.writeFieldName(COMPLETED);
+        gen.writeBoolean(buyer.isCompleted());
+        productSerializer.writeDateTime(gen, provider, ProductDTOSerializer.CREATED_AT, buyer.getCreatedAt());
+        ProductDTOSerializer.writeNumberOrNull(gen, CUSTOMER_ID, buyer.getCustomerId());
+        gen.writeEndObject();
+    }
+}
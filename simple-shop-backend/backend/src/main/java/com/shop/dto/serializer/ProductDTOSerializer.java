@@ -0,0 +1,129 @@
+package com.shop.dto.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.shop.dto.ProductDTO;
+import com.shop.dto.SubCategoryDTO;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * ProductDTO的手写序列化器
+ * 按固定顺序写出预编码的字段名，避免Jackson对每个对象做反射式属性访问；
+ * 日期序列化器在创建时从ObjectMapper解析一次，输出格式与全局配置保持一致
+ */
+public class ProductDTOSerializer extends StdSerializer<ProductDTO> implements ResolvableSerializer {
+
+    private static final long serialVersionUID = 1L;
+
+    static final SerializedString ID = new SerializedString("id");
+    static final SerializedString NAME = new SerializedString("name");
+    static final SerializedString DESCRIPTION = new SerializedString("description");
+    static final SerializedString IMAGE_URL = new SerializedString("imageUrl");
+    static final SerializedString PRICE = new SerializedString("price");
+    static final SerializedString ACTIVE = new SerializedString("active");
+    static final SerializedString FROZEN = new SerializedString("frozen");
+    static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+    static final SerializedString SUB_CATEGORY = new SerializedString("subCategory");
+    static final SerializedString SORT_ORDER = new SerializedString("sortOrder");
+    static final SerializedString ICON = new SerializedString("icon");
+    static final SerializedString CATEGORY_ID = new SerializedString("categoryId");
+
+    private transient JsonSerializer<Object> dateTimeSerializer;
+
+    public ProductDTOSerializer() {
+        super(ProductDTO.class);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        dateTimeSerializer = provider.findValueSerializer(LocalDateTime.class);
+    }
+
+    @Override
+    public void serialize(ProductDTO product, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(product);
+        writeFields(product, gen, provider);
+        gen.writeEndObject();
+    }
+
+    // 写出商品字段（不含对象的开始和结束），供BuyerDTOSerializer内联商品时复用
+    void writeFields(ProductDTO product, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeNumberOrNull(gen, ID, product.getId());
+        writeString(gen, NAME, product.getName());
+        writeString(gen, DESCRIPTION, product.getDescription());
+        writeString(gen, IMAGE_URL, product.getImageUrl());
+        gen.writeFieldName(PRICE);
+        gen.writeNumber(product.getPrice());
+        gen.writeFieldName(ACTIVE);
+        gen.writeBoolean(product.isActive());
+        gen.writeFieldName(FROZEN);
+        gen.writeBoolean(product.isFrozen());
+        writeDateTime(gen, provider, CREATED_AT, product.getCreatedAt());
+        writeDateTime(gen, provider, UPDATED_AT, product.getUpdatedAt());
+
+        gen.writeFieldName(SUB_CATEGORY);
+        SubCategoryDTO subCategory = product.getSubCategory();
+        if (subCategory == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartObject();
+            writeNumberOrNull(gen, ID, subCategory.getId());
+            writeString(gen, NAME, subCategory.getName());
+            writeString(gen, DESCRIPTION, subCategory.getDescription());
+            gen.writeFieldName(ACTIVE);
+            if (subCategory.getActive() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeBoolean(subCategory.getActive());
+            }
+            gen.writeFieldName(SORT_ORDER);
+            if (subCategory.getSortOrder() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(subCategory.getSortOrder());
+            }
+            writeString(gen, ICON, subCategory.getIcon());
+            writeNumberOrNull(gen, CATEGORY_ID, subCategory.getCategoryId());
+            gen.writeEndObject();
+        }
+    }
+
+    // 日期格式由ObjectMapper决定（Spring Boot默认输出ISO-8601字符串）
+    void writeDateTime(JsonGenerator gen, SerializerProvider provider, SerializedString name, LocalDateTime value)
+            throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else if (dateTimeSerializer != null) {
+            dateTimeSerializer.serialize(value, gen, provider);
+        } else {
+            provider.defaultSerializeValue(value, gen);
+        }
+    }
+
+    static void writeString(JsonGenerator gen, SerializedString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+
+    static void writeNumberOrNull(JsonGenerator gen, SerializedString name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.shop.event;
+
+/**
+ * 客户注册事件，由CustomerService在新客户保存后发布
+ */
+public class CustomerRegisteredEvent {
+
+    private final Long customerId;
+
+    private final String username;
+
+    private final String phone;
+
+    public CustomerRegisteredEvent(Long customerId, String username, String phone) {
+        this.customerId = customerId;
+        this.username = username;
+        this.phone = phone;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+}
@@ -0,0 +1,29 @@
+package com.shop.event;
+
+/**
+ * 商品写入事件，由ProductService在每次修改商品后发布
+ * before为空表示新建商品，after为空表示商品被删除
+ */
+public class ProductChangedEvent {
+
+    private final ProductSnapshot before;
+
+    private final ProductSnapshot after;
+
+    public ProductChangedEvent(ProductSnapshot before, ProductSnapshot after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public ProductSnapshot getBefore() {
+        return before;
+    }
+
+    public ProductSnapshot getAfter() {
+        return after;
+    }
+
+    public Long getProductId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
@@ -0,0 +1,97 @@
+package com.shop.event;
+
+import com.shop.model.Product;
+
+import java.time.LocalDateTime;
+
+/**
+ * 商品在某一时刻的状态副本
+ * 与实体脱离，事件监听器在事务提交后读取也不会触发懒加载
+ */
+public final class ProductSnapshot {
+
+    private final Long id;
+
+    private final String name;
+
+    private final String description;
+
+    private final String imageUrl;
+
+    private final double price;
+
+    private final boolean active;
+
+    private final boolean frozen;
+
+    private final Long subCategoryId;
+
+    private final LocalDateTime createdAt;
+
+    public ProductSnapshot(Long id, String name, String description, String imageUrl, double price,
+                           boolean active, boolean frozen, Long subCategoryId, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.imageUrl = imageUrl;
+        this.price = price;
+        this.active = active;
+        this.frozen = frozen;
+        this.subCategoryId = subCategoryId;
+        this.createdAt = createdAt;
+    }
+
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getImageUrl(),
+                product.getPrice(),
+                product.isActive(),
+                product.isFrozen(),
+                product.getSubCategory() != null ? product.getSubCategory().getId() : null,
+                product.getCreatedAt());
+    }
+
+    // 复制一份只改变上下架/冻结状态的快照，用于条件更新语句前后的状态
+    public ProductSnapshot withState(boolean active, boolean frozen) {
+        return new ProductSnapshot(id, name, description, imageUrl, price, active, frozen, subCategoryId, createdAt);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public Long getSubCategoryId() {
+        return subCategoryId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,84 @@
+package com.shop.filter;
+
+import com.shop.cache.CatalogVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 目录读接口的条件GET
+ * 商品和分类接口的响应只取决于目录数据，用目录版本号作为ETag：
+ * If-None-Match与当前版本一致时直接返回304，不调用控制器，也不查询数据库和序列化响应体。
+ * 版本号在进入控制器之前取得，写入提交后版本号才递增，因此响应内容不会比ETag旧
+ */
+@Component
+public class CatalogETagInterceptor implements HandlerInterceptor {
+
+    // 浏览器每次使用缓存前都带If-None-Match重新验证
+    private static final String CACHE_CONTROL = "no-cache";
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void registerMetrics() {
+        hitCounter = Counter.builder("catalog.etag.requests")
+                .description("目录读接口的条件GET次数，hit为返回304")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        missCounter = Counter.builder("catalog.etag.requests")
+                .description("目录读接口的条件GET次数，hit为返回304")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return true;
+        }
+        String etag = catalogVersion.etag();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            hitCounter.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        missCounter.increment();
+        return true;
+    }
+
+    // If-None-Match使用弱比较，忽略W/前缀；压缩过滤器等中间层可能把ETag改为弱ETag
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,39 @@
+package com.shop.filter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater复用池
+ * Deflater内部持有本地内存（zlib状态约数百KB），每个响应新建一个既有分配开销，也要等GC才能释放；
+ * 用完后reset放回池中复用，池满时直接end释放本地内存
+ */
+public class DeflaterPool {
+
+    private final int level;
+
+    private final BlockingQueue<Deflater> idle;
+
+    public DeflaterPool(int level, int capacity) {
+        this.level = level;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    // 取出一个原始deflate格式（无zlib头）的Deflater，池中没有空闲实例时新建
+    public Deflater borrow() {
+        Deflater deflater = idle.poll();
+        return deflater != null ? deflater : new Deflater(level, true);
+    }
+
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (!idle.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+}
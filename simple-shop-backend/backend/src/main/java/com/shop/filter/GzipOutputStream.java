@@ -0,0 +1,50 @@
+package com.shop.filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 使用外部Deflater的gzip输出流
+ * java.util.zip.GZIPOutputStream总是自己新建Deflater，无法复用；这里自行写出gzip头尾，
+ * 压缩部分交给池中取出的Deflater。flush时同步刷新已压缩的数据，流式响应可以边压缩边发送
+ */
+class GzipOutputStream extends DeflaterOutputStream {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final CRC32 crc = new CRC32();
+
+    GzipOutputStream(OutputStream out, Deflater deflater) throws IOException {
+        super(out, deflater, 8192, true);
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        crc.update(b, off, len);
+    }
+
+    // 写完剩余的压缩数据和gzip尾（CRC32和原始长度），不关闭底层流，也不释放Deflater
+    @Override
+    public void finish() throws IOException {
+        if (def.finished()) {
+            return;
+        }
+        super.finish();
+        byte[] trailer = new byte[8];
+        writeInt(trailer, 0, (int) crc.getValue());
+        writeInt(trailer, 4, (int) def.getBytesRead());
+        out.write(trailer);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+}
@@ -0,0 +1,480 @@
+package com.shop.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * 接口响应gzip压缩
+ * 响应体先缓冲到min-size字节：不足min-size就结束的响应原样返回（带Content-Length），
+ * 达到min-size且Content-Type在压缩类型列表中时改为gzip输出，压缩使用池中复用的Deflater。
+ * 请求未声明支持gzip、HEAD请求、已设置Content-Encoding或204/304等无响应体的情况不压缩
+ */
+public class GzipResponseFilter extends OncePerRequestFilter {
+
+    private static final String WRAPPER_ATTRIBUTE = GzipResponseFilter.class.getName() + ".WRAPPER";
+
+    private final int minSize;
+
+    private final List<MimeType> mimeTypes;
+
+    private final String pathPrefix;
+
+    private final List<String> excludedPaths;
+
+    private final DeflaterPool deflaterPool;
+
+    // 已压缩响应的原始字节数和压缩后字节数
+    private final LongAdder bytesIn = new LongAdder();
+
+    private final LongAdder bytesOut = new LongAdder();
+
+    // 只处理以pathPrefix开头的请求，其中excludedPaths开头的除外
+    public GzipResponseFilter(int minSize, List<MimeType> mimeTypes, String pathPrefix, List<String> excludedPaths,
+                              DeflaterPool deflaterPool) {
+        this.minSize = Math.max(1, minSize);
+        this.mimeTypes = mimeTypes;
+        this.pathPrefix = pathPrefix;
+        this.excludedPaths = excludedPaths;
+        this.deflaterPool = deflaterPool;
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    // 流式响应在异步线程中写出，需要在异步分派回来时才能写gzip尾
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(pathPrefix)) {
+            return true;
+        }
+        for (String excluded : excludedPaths) {
+            if (path.startsWith(excluded)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CompressingResponse wrapper = (CompressingResponse) request.getAttribute(WRAPPER_ATTRIBUTE);
+        if (wrapper == null) {
+            if (!acceptsGzip(request) || "HEAD".equals(request.getMethod())) {
+                chain.doFilter(request, response);
+                return;
+            }
+            wrapper = new CompressingResponse(response);
+            request.setAttribute(WRAPPER_ATTRIBUTE, wrapper);
+            response = wrapper;
+        }
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            request.removeAttribute(WRAPPER_ATTRIBUTE);
+            wrapper.abort();
+            throw e;
+        }
+        if (!isAsyncStarted(request)) {
+            request.removeAttribute(WRAPPER_ATTRIBUTE);
+            wrapper.finish();
+        }
+    }
+
+    // 按Accept-Encoding判断，显式声明gzip;q=0的视为不支持
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim().replace(" ", "");
+                    if (parameter.matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isCompressibleType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MimeType type = MimeTypeUtils.parseMimeType(contentType);
+            for (MimeType mimeType : mimeTypes) {
+                if (mimeType.includes(type)) {
+                    return true;
+                }
+            }
+        } catch (InvalidMimeTypeException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * 缓冲响应体直到可以决定是否压缩
+     */
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private byte[] buffer = new byte[Math.min(minSize, 8192)];
+
+        private int count;
+
+        // null表示尚未决定，之后指向原始输出流或gzip流
+        private OutputStream target;
+
+        private GzipOutputStream gzip;
+
+        private Deflater deflater;
+
+        // 尚未决定是否压缩时暂存的Content-Length
+        private long contentLength = -1;
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (outputStream == null) {
+                outputStream = new BufferingOutputStream(getResponse().getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                outputStream = new BufferingOutputStream(getResponse().getOutputStream());
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (target == null) {
+                contentLength = len;
+            } else if (gzip == null) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        // 错误页和重定向由容器处理，不再经过这里的缓冲
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            discard();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            discard();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            discard();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            // 未决定前忽略flush：消息转换器写完JSON后总会flush，此时提交会失去按总长度判断的机会
+            if (target != null) {
+                if (writer != null) {
+                    writer.flush();
+                }
+                target.flush();
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            count = 0;
+            // 已写出的gzip头被一并清掉，换一个新的gzip流重新开始
+            if (gzip != null) {
+                releaseDeflater();
+                deflater = deflaterPool.borrow();
+                try {
+                    gzip = new GzipOutputStream(getResponse().getOutputStream(), deflater);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                target = gzip;
+            }
+        }
+
+        // 响应头也被清空，回到尚未决定的状态
+        @Override
+        public void reset() {
+            super.reset();
+            releaseDeflater();
+            target = null;
+            count = 0;
+            contentLength = -1;
+            if (buffer == null) {
+                buffer = new byte[Math.min(minSize, 8192)];
+            }
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null) {
+                if (count < minSize) {
+                    passThrough();
+                } else {
+                    decide();
+                }
+            }
+            if (gzip != null) {
+                try {
+                    gzip.finish();
+                    bytesIn.add(deflater.getBytesRead());
+                    // gzip头10字节，尾8字节
+                    bytesOut.add(deflater.getBytesWritten() + 18);
+                } finally {
+                    releaseDeflater();
+                }
+            }
+        }
+
+        void abort() {
+            discard();
+        }
+
+        private void discard() {
+            count = 0;
+            releaseDeflater();
+            if (target == null) {
+                try {
+                    target = getResponse().getOutputStream();
+                } catch (IOException | IllegalStateException e) {
+                    target = OutputStream.nullOutputStream();
+                }
+            }
+        }
+
+        private void releaseDeflater() {
+            if (deflater != null) {
+                deflaterPool.release(deflater);
+                deflater = null;
+                gzip = null;
+            }
+        }
+
+        // 响应体不足min-size，原样输出；已知总长度时带上Content-Length
+        private void passThrough() throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (isCompressibleType(response.getContentType())) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (contentLength >= 0) {
+                response.setContentLengthLong(contentLength);
+            } else if (count > 0 && !response.isCommitted()) {
+                response.setContentLengthLong(count);
+            }
+            target = response.getOutputStream();
+            writeBuffered();
+        }
+
+        // 缓冲的内容达到min-size时决定：类型可压缩且状态码带响应体时压缩
+        private void decide() throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            int status = response.getStatus();
+            boolean compress = isCompressibleType(response.getContentType())
+                    && response.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && status >= 200 && status != HttpServletResponse.SC_NO_CONTENT
+                    && status != HttpServletResponse.SC_NOT_MODIFIED
+                    && !response.isCommitted();
+            if (!compress) {
+                if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                }
+                target = response.getOutputStream();
+                writeBuffered();
+                return;
+            }
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            // 压缩后的内容与原始内容逐字节不同，强ETag改为弱ETag
+            String etag = response.getHeader(HttpHeaders.ETAG);
+            if (etag != null && etag.startsWith("\"")) {
+                response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+            }
+            deflater = deflaterPool.borrow();
+            gzip = new GzipOutputStream(response.getOutputStream(), deflater);
+            target = gzip;
+            writeBuffered();
+        }
+
+        private void writeBuffered() throws IOException {
+            target.write(buffer, 0, count);
+            count = 0;
+            buffer = null;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            // 声明的长度不足min-size时不会压缩，不必缓冲
+            if (target == null && contentLength >= 0 && contentLength < minSize) {
+                passThrough();
+            }
+            if (target == null) {
+                if (count + len < minSize) {
+                    if (count + len > buffer.length) {
+                        byte[] grown = new byte[Math.min(minSize, Math.max(buffer.length * 2, count + len))];
+                        System.arraycopy(buffer, 0, grown, 0, count);
+                        buffer = grown;
+                    }
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                }
+                decide();
+            }
+            target.write(b, off, len);
+        }
+
+        private void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        /**
+         * 写入缓冲区，决定后转发到目标输出流
+         */
+        private class BufferingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream original;
+
+            BufferingOutputStream(ServletOutputStream original) {
+                this.original = original;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                CompressingResponse.this.flush();
+            }
+
+            // 由过滤器在请求结束时完成输出，这里不关闭底层流
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+
+            @Override
+            public boolean isReady() {
+                return original.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                original.setWriteListener(writeListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.shop.filter;
+
+import com.shop.jdbc.RequestSqlTrace;
+import com.shop.jdbc.SqlTracer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 在写出响应体之前写入Server-Timing头
+ * 响应体写出后头部已经发送，SqlTraceFilter在请求结束时无法再添加，控制器返回的响应在这里补上
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "sql.trace.enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlTracer tracer;
+
+    public ServerTimingAdvice(SqlTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestSqlTrace trace = tracer.current();
+        if (trace != null && trace.getCount() > 0) {
+            response.getHeaders().set(SqlTraceFilter.SERVER_TIMING, SqlTracer.serverTiming(trace));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,56 @@
+package com.shop.filter;
+
+import com.shop.session.SessionPrincipal;
+import com.shop.session.SessionTokenStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 校验Authorization: Bearer会话令牌
+ * 有效令牌对应的身份放入请求属性PRINCIPAL_ATTRIBUTE，控制器通过@RequestAttribute读取。
+ * 没有令牌或令牌无效、已过期时不设置身份，请求照常放行：登录、注册和商品浏览等公开接口不受影响，
+ * 需要身份的接口在取不到身份时自行返回401
+ */
+@Component
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    public static final String PRINCIPAL_ATTRIBUTE = "com.shop.session.principal";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Autowired
+    private SessionTokenStore sessionTokenStore;
+
+    // 取出请求中的令牌，没有时返回null
+    public static String bearerToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = bearerToken(request);
+        SessionPrincipal principal = token == null ? null : sessionTokenStore.resolve(token);
+        if (principal != null) {
+            request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        }
+        chain.doFilter(request, response);
+    }
+}
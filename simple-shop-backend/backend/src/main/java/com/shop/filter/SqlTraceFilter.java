@@ -0,0 +1,45 @@
+package com.shop.filter;
+
+import com.shop.jdbc.RequestSqlTrace;
+import com.shop.jdbc.SqlTracer;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 统计每个请求执行的SQL
+ * 请求结束时超过阈值的记慢请求日志；响应尚未提交时写入Server-Timing头。
+ * JSON接口在写响应体之前由ServerTimingAdvice写入该头，这里处理304、无响应体等其余情况
+ */
+public class SqlTraceFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private final SqlTracer tracer;
+
+    public SqlTraceFilter(SqlTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSqlTrace trace = tracer.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            tracer.end();
+            if (trace.getCount() > 0) {
+                if (!response.isCommitted()) {
+                    response.setHeader(SERVER_TIMING, SqlTracer.serverTiming(trace));
+                }
+                // 不记录查询字符串：登录、注册和修改密码的密码以查询参数传入
+                tracer.logIfSlow(request.getMethod() + " " + request.getRequestURI(), trace);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.shop.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一个HTTP请求执行的SQL统计
+ * 记录语句数、数据库总耗时和最慢的一条语句；语句明细最多保留maxStatements条，用于慢请求日志
+ */
+public class RequestSqlTrace {
+
+    private final int maxStatements;
+
+    private final List<TracedStatement> statements = new ArrayList<>();
+
+    private int count;
+
+    private long totalNanos;
+
+    private long slowestNanos = -1;
+
+    private String slowestSql;
+
+    public RequestSqlTrace(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    void record(String sql, long nanos) {
+        count++;
+        totalNanos += nanos;
+        if (nanos > slowestNanos) {
+            slowestNanos = nanos;
+            slowestSql = sql;
+        }
+        if (statements.size() < maxStatements) {
+            statements.add(new TracedStatement(sql, nanos));
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getSlowestNanos() {
+        return Math.max(0, slowestNanos);
+    }
+
+    public String getSlowestSql() {
+        return slowestSql;
+    }
+
+    // 按执行顺序排列，超过上限的语句只计入统计
+    public List<TracedStatement> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * 一条已执行的语句及其耗时
+     */
+    public static final class TracedStatement {
+
+        private final String sql;
+
+        private final long nanos;
+
+        private TracedStatement(String sql, long nanos) {
+            this.sql = sql;
+            this.nanos = nanos;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
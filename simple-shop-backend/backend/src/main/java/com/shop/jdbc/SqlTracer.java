@@ -0,0 +1,88 @@
+package com.shop.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * 把执行的SQL归到当前请求
+ * 请求开始时由过滤器调用begin()，之后同一线程上执行的语句都计入该请求的RequestSqlTrace；
+ * 不在请求中执行的语句（定时任务、异步线程）不做统计，只有超过慢语句阈值时单独记日志
+ */
+public class SqlTracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlTracer.class);
+
+    private final ThreadLocal<RequestSqlTrace> current = new ThreadLocal<>();
+
+    private final long slowStatementNanos;
+
+    private final long slowRequestNanos;
+
+    private final int statementCountThreshold;
+
+    private final int maxLoggedStatements;
+
+    public SqlTracer(Duration slowStatement, Duration slowRequest, int statementCountThreshold, int maxLoggedStatements) {
+        this.slowStatementNanos = slowStatement.toNanos();
+        this.slowRequestNanos = slowRequest.toNanos();
+        this.statementCountThreshold = statementCountThreshold;
+        this.maxLoggedStatements = maxLoggedStatements;
+    }
+
+    public RequestSqlTrace begin() {
+        RequestSqlTrace trace = new RequestSqlTrace(maxLoggedStatements);
+        current.set(trace);
+        return trace;
+    }
+
+    public void end() {
+        current.remove();
+    }
+
+    // 当前线程所属请求的统计，不在请求中时返回null
+    public RequestSqlTrace current() {
+        return current.get();
+    }
+
+    void record(String sql, long nanos) {
+        RequestSqlTrace trace = current.get();
+        if (trace != null) {
+            trace.record(sql, nanos);
+        } else if (nanos >= slowStatementNanos) {
+            logger.warn("慢SQL {}ms（不在请求中）：{}", millis(nanos), sql);
+        }
+    }
+
+    // 数据库总耗时、语句数或单条语句耗时超过阈值时记录请求及其SQL
+    public void logIfSlow(String request, RequestSqlTrace trace) {
+        if (trace.getTotalNanos() < slowRequestNanos && trace.getCount() < statementCountThreshold
+                && trace.getSlowestNanos() < slowStatementNanos) {
+            return;
+        }
+        StringBuilder message = new StringBuilder();
+        message.append("慢请求 ").append(request).append("：").append(trace.getCount()).append("条SQL，共")
+                .append(millis(trace.getTotalNanos())).append("ms，最慢")
+                .append(millis(trace.getSlowestNanos())).append("ms");
+        for (RequestSqlTrace.TracedStatement statement : trace.getStatements()) {
+            message.append("\n  ").append(millis(statement.getNanos())).append("ms  ").append(statement.getSql());
+        }
+        int omitted = trace.getCount() - trace.getStatements().size();
+        if (omitted > 0) {
+            message.append("\n  ……另有").append(omitted).append("条SQL未列出");
+        }
+        logger.warn(message.toString());
+    }
+
+    // Server-Timing响应头：db为数据库总耗时和语句数，db-slowest为最慢一条语句的耗时
+    public static String serverTiming(RequestSqlTrace trace) {
+        return "db;dur=" + millis(trace.getTotalNanos()) + ";desc=\"" + trace.getCount() + " statements\", "
+                + "db-slowest;dur=" + millis(trace.getSlowestNanos());
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,27 @@
+package com.shop.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 逐行读取大结果集的查询语句
+ * MySQL驱动默认一次取回整个结果集，只有只进只读且fetchSize为Integer.MIN_VALUE的语句才逐行流式读取，
+ * 读完之前该连接不能执行其他语句；其他数据库按fetchSize分批取回
+ */
+public final class StreamingStatements {
+
+    private StreamingStatements() {
+    }
+
+    public static PreparedStatement prepare(Connection connection, String sql, int fetchSize) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(isMySql(connection) ? Integer.MIN_VALUE : fetchSize);
+        return ps;
+    }
+
+    private static boolean isMySql(Connection connection) throws SQLException {
+        return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+}
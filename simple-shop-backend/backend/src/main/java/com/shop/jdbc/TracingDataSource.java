@@ -0,0 +1,123 @@
+package com.shop.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 记录每条SQL执行耗时的数据源
+ * 连接和语句用动态代理包装：prepareStatement时记下SQL，execute*执行时计时并交给SqlTracer；
+ * 批量执行按一条语句计。执行时间只包括数据库返回第一批结果之前的部分，流式读取结果集的时间不计入。
+ * 继承DelegatingDataSource，连接池指标等仍能通过unwrap取到原来的HikariDataSource
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    private final SqlTracer tracer;
+
+    public TracingDataSource(DataSource target, SqlTracer tracer) {
+        super(target);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    // 代理对象之间按引用比较，其余方法转给被包装的对象
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && args != null && args.length == 1) {
+            return args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                    ? target.equals(unwrapProxy(args[0])) : target.equals(args[0]);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static Object unwrapProxy(Object proxy) {
+        InvocationHandler handler = Proxy.getInvocationHandler(proxy);
+        if (handler instanceof ConnectionHandler) {
+            return ((ConnectionHandler) handler).target;
+        }
+        if (handler instanceof StatementHandler) {
+            return ((StatementHandler) handler).target;
+        }
+        return proxy;
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = TracingDataSource.invoke(target, method, args);
+            String name = method.getName();
+            if (result instanceof Statement && (name.equals("createStatement") || name.equals("prepareStatement")
+                    || name.equals("prepareCall"))) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+
+        private final String preparedSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return TracingDataSource.invoke(target, method, args);
+            }
+            // Statement.execute(sql)带SQL参数，PreparedStatement.execute()使用prepare时的SQL
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (sql == null) {
+                sql = "(batch)";
+            }
+            long start = System.nanoTime();
+            try {
+                return TracingDataSource.invoke(target, method, args);
+            } finally {
+                tracer.record(sql, System.nanoTime() - start);
+            }
+        }
+    }
+}
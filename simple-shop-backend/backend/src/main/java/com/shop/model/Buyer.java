@@ -5,6 +5,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "buyers")
+// 卖家后台的购买意向列表需要同时展示商品
+@NamedEntityGraph(name = "Buyer.withProduct", attributeNodes = @NamedAttributeNode("product"))
 public class Buyer {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -18,7 +20,7 @@ public class Buyer {
     
     private String notes; // 购买备注
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
     
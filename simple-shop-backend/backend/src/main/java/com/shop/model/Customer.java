@@ -1,5 +1,6 @@
 package com.shop.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
@@ -13,6 +14,8 @@ public class Customer {
     @Column(nullable = false, unique = true)
     private String username;
     
+    // 密码哈希，只接受写入，不序列化到响应中
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(nullable = false)
     private String password;
     
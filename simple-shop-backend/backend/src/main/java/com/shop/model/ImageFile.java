@@ -0,0 +1,76 @@
+package com.shop.model;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 按内容寻址存储的上传图片
+ * 文件名为内容的SHA-256加扩展名，refCount为引用该图片的商品数（商品图片或描述中的img）；
+ * 主键由应用指定，未持久化过的实例按新记录插入，不会合并覆盖已有的引用计数
+ */
+@Entity
+@Table(name = "image_files")
+public class ImageFile implements Persistable<String> {
+    @Id
+    @Column(name = "file_name", length = 80)
+    private String fileName;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Getters and Setters
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String getId() {
+        return fileName;
+    }
+
+    @Override
+    public boolean isNew() {
+        return createdAt == null;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
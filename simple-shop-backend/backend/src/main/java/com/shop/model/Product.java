@@ -1,10 +1,14 @@
 package com.shop.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "products")
+// 列表和详情需要二级分类时按此图一次取回，其余场景二级分类按需加载
+@NamedEntityGraph(name = "Product.withSubCategory", attributeNodes = @NamedAttributeNode("subCategory"))
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,10 +31,16 @@ public class Product {
     
     private LocalDateTime updatedAt;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sub_category_id")
     private SubCategory subCategory;
 
+    // 乐观锁版本号，每次更新递增；不对外序列化，也不接受请求体传入
+    @Version
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private long version;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -112,6 +122,14 @@ public class Product {
         this.subCategory = subCategory;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
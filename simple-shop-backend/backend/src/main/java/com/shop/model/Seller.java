@@ -1,5 +1,6 @@
 package com.shop.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
@@ -12,7 +13,9 @@ public class Seller {
     
     private String username;
     
-    private String password; // 实际应用中应存储加密后的密码
+    // 密码哈希，只接受写入，不序列化到响应中
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String password;
     
     private LocalDateTime updatedAt;
 
@@ -26,7 +26,7 @@ public class SubCategory {
     
     private LocalDateTime updatedAt;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
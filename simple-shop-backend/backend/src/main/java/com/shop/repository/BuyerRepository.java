@@ -2,7 +2,11 @@ package com.shop.repository;
 
 import com.shop.model.Buyer;
 import com.shop.model.Product;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,5 +14,11 @@ import java.util.List;
 @Repository
 public interface BuyerRepository extends JpaRepository<Buyer, Long> {
     List<Buyer> findByProductOrderByCreatedAtDesc(Product product);
+    @EntityGraph("Buyer.withProduct")
     List<Buyer> findAllByOrderByCreatedAtDesc();
+
+    // 结算：仅当意向尚未结算时标记为已结算，并发结算同一意向时只有一个请求返回1
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Buyer b SET b.isCompleted = true WHERE b.id = :id AND b.isCompleted = false")
+    int markCompleted(@Param("id") Long id);
 }
@@ -0,0 +1,17 @@
+package com.shop.repository;
+
+import com.shop.model.ImageFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImageFileRepository extends JpaRepository<ImageFile, String> {
+
+    // 在数据库中原子地增减引用计数，返回受影响行数（图片未登记时为0）
+    @Modifying
+    @Query("UPDATE ImageFile f SET f.refCount = f.refCount + :delta WHERE f.fileName = :fileName")
+    int adjustRefCount(@Param("fileName") String fileName, @Param("delta") int delta);
+}
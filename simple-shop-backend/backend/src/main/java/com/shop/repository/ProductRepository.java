@@ -1,19 +1,73 @@
 package com.shop.repository;
 
+import com.shop.dto.ProductListItemDTO;
 import com.shop.model.Product;
 import com.shop.model.SubCategory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    @EntityGraph("Product.withSubCategory")
     Optional<Product> findByIsActiveTrue();
+    @EntityGraph("Product.withSubCategory")
     List<Product> findAllByOrderByCreatedAtDesc();
     List<Product> findBySubCategoryAndIsActiveTrue(SubCategory subCategory);
+    @EntityGraph("Product.withSubCategory")
     List<Product> findBySubCategoryId(Long subCategoryId);
-    // 添加通过一级分类ID获取商品的方法
-    List<Product> findBySubCategoryCategoryId(Long categoryId);
-}
\ No newline at end of file
+    // 添加通过一级分类ID获取商品的方法（连同二级分类一次取回）
+    @Query("SELECT p FROM Product p JOIN FETCH p.subCategory sc WHERE sc.category.id = :categoryId")
+    List<Product> findBySubCategoryCategoryId(@Param("categoryId") Long categoryId);
+
+    // 商品详情：连同二级分类一次取回
+    @EntityGraph("Product.withSubCategory")
+    Optional<Product> findDetailById(Long id);
+
+    // 预订商品：仅当商品上架且未冻结时冻结，单条条件UPDATE保证并发下只有一个请求成功，返回影响行数
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Product p SET p.isFrozen = true, p.version = p.version + 1, p.updatedAt = :now " +
+           "WHERE p.id = :id AND p.isActive = true AND p.isFrozen = false")
+    int reserve(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 键集分页：第一页，按(createdAt, id)倒序，createdAt为NULL的历史数据排在最后
+    @Query("SELECT new com.shop.dto.ProductListItemDTO(p.id, p.name, p.imageUrl, p.price, p.isActive, p.isFrozen, " +
+           "p.createdAt, sc.id, sc.name) FROM Product p LEFT JOIN p.subCategory sc " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListItemDTO> findListItemsFirstPage(Pageable pageable);
+
+    // 键集分页：游标之后的一页
+    @Query("SELECT new com.shop.dto.ProductListItemDTO(p.id, p.name, p.imageUrl, p.price, p.isActive, p.isFrozen, " +
+           "p.createdAt, sc.id, sc.name) FROM Product p LEFT JOIN p.subCategory sc " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) OR p.createdAt IS NULL " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListItemDTO> findListItemsAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+
+    // 键集分页：游标已进入createdAt为NULL的区间，只按id继续
+    @Query("SELECT new com.shop.dto.ProductListItemDTO(p.id, p.name, p.imageUrl, p.price, p.isActive, p.isFrozen, " +
+           "p.createdAt, sc.id, sc.name) FROM Product p LEFT JOIN p.subCategory sc " +
+           "WHERE p.createdAt IS NULL AND p.id < :id " +
+           "ORDER BY p.id DESC")
+    List<ProductListItemDTO> findListItemsWithoutCreatedAtAfter(@Param("id") Long id, Pageable pageable);
+
+    // 按ID批量获取列表项（搜索结果回表），返回顺序不保证
+    @Query("SELECT new com.shop.dto.ProductListItemDTO(p.id, p.name, p.imageUrl, p.price, p.isActive, p.isFrozen, " +
+           "p.createdAt, sc.id, sc.name) FROM Product p LEFT JOIN p.subCategory sc WHERE p.id IN :ids")
+    List<ProductListItemDTO> findListItemsByIds(@Param("ids") Collection<Long> ids);
+
+    // 按二级分类统计上架商品数量，返回[subCategoryId, count]
+    @Query("SELECT p.subCategory.id, COUNT(p) FROM Product p " +
+           "WHERE p.isActive = true AND p.subCategory IS NOT NULL GROUP BY p.subCategory.id")
+    List<Object[]> countActiveGroupBySubCategory();
+}
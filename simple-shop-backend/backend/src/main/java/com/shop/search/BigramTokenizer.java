@@ -0,0 +1,89 @@
+package com.shop.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 商品搜索分词器
+ * 中日韩文字按相邻两字切分（二元分词），单独出现的一个字保留为单字；字母数字按连续片段切分并转为小写；
+ * 先去掉富文本描述中的HTML标签
+ */
+public final class BigramTokenizer {
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+
+    private static final Pattern HTML_ENTITY = Pattern.compile("&[a-zA-Z]+;|&#\\d+;");
+
+    private BigramTokenizer() {
+    }
+
+    // 切分文本，同一词项出现多次时保留多次，用于统计词频
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String plain = text.indexOf('<') >= 0 || text.indexOf('&') >= 0
+                ? HTML_ENTITY.matcher(HTML_TAG.matcher(text).replaceAll(" ")).replaceAll(" ")
+                : text;
+
+        StringBuilder word = new StringBuilder();
+        int cjkStart = -1;
+        int length = plain.length();
+        for (int i = 0; i < length; i++) {
+            char c = plain.charAt(i);
+            if (isCjk(c)) {
+                flushWord(word, tokens);
+                if (cjkStart < 0) {
+                    cjkStart = i;
+                }
+            } else {
+                flushCjk(plain, cjkStart, i, tokens);
+                cjkStart = -1;
+                if (Character.isLetterOrDigit(c)) {
+                    word.append(Character.toLowerCase(c));
+                } else {
+                    flushWord(word, tokens);
+                }
+            }
+        }
+        flushCjk(plain, cjkStart, length, tokens);
+        flushWord(word, tokens);
+        return tokens;
+    }
+
+    // 切分查询文本并去重，保持出现顺序
+    public static List<String> distinctTerms(String text) {
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(text)));
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(String text, int start, int end, List<String> tokens) {
+        if (start < 0) {
+            return;
+        }
+        if (end - start == 1) {
+            tokens.add(text.substring(start, end));
+            return;
+        }
+        for (int i = start; i + 1 < end; i++) {
+            tokens.add(text.substring(i, i + 2));
+        }
+    }
+
+    static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,204 @@
+package com.shop.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 客户用户名和手机号的内存三元组（trigram）索引，语义与 username LIKE %kw% OR phone LIKE %kw% 相同（不区分大小写）
+ * 关键词不少于三个字符时只遍历其中最短的一条倒排表并逐条校验子串；一两个字符的关键词匹配面很广，按注册顺序扫描，
+ * 凑够一页即停止。结果按加入索引的顺序返回，通过多取一条判断是否还有下一页，不统计总数
+ */
+public class CustomerSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private final Map<Long, Integer> docByCustomerId = new HashMap<>();
+
+    private long[] customerIds = new long[1024];
+
+    // 小写后的用户名和手机号，用于校验候选文档
+    private String[] usernames = new String[1024];
+
+    private String[] phones = new String[1024];
+
+    private int docCount;
+
+    // 加入客户；同一客户重复加入时忽略（客户信息注册后不再修改）
+    public void add(Long customerId, String username, String phone) {
+        String name = normalize(username);
+        String phoneText = normalize(phone);
+        lock.writeLock().lock();
+        try {
+            if (docByCustomerId.containsKey(customerId)) {
+                return;
+            }
+            ensureCapacity(docCount + 1);
+            int doc = docCount++;
+            customerIds[doc] = customerId;
+            usernames[doc] = name;
+            phones[doc] = phoneText;
+            docByCustomerId.put(customerId, doc);
+            addGrams(name, doc);
+            addGrams(phoneText, doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 查询第offset条起的limit个匹配客户，keyword为空时返回全部客户
+    public SearchHits search(String keyword, int offset, int limit) {
+        String needle = normalize(keyword);
+        List<Long> ids = new ArrayList<>(Math.min(limit, 128));
+        boolean hasMore = false;
+        lock.readLock().lock();
+        try {
+            int skipped = 0;
+            Postings candidates = needle.length() >= GRAM ? rarestPostings(needle) : null;
+            if (needle.length() >= GRAM && candidates == null) {
+                return new SearchHits(Collections.emptyList(), false);
+            }
+            int candidateCount = candidates != null ? candidates.size : docCount;
+            for (int i = 0; i < candidateCount; i++) {
+                int doc = candidates != null ? candidates.docs[i] : i;
+                if (!matches(doc, needle)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else if (ids.size() < limit) {
+                    ids.add(customerIds[doc]);
+                } else {
+                    hasMore = true;
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new SearchHits(ids, hasMore);
+    }
+
+    // 统计匹配客户数，只在调用方明确需要总数时使用
+    public int count(String keyword) {
+        String needle = normalize(keyword);
+        lock.readLock().lock();
+        try {
+            if (needle.isEmpty()) {
+                return docCount;
+            }
+            Postings candidates = needle.length() >= GRAM ? rarestPostings(needle) : null;
+            if (needle.length() >= GRAM && candidates == null) {
+                return 0;
+            }
+            int candidateCount = candidates != null ? candidates.size : docCount;
+            int total = 0;
+            for (int i = 0; i < candidateCount; i++) {
+                if (matches(candidates != null ? candidates.docs[i] : i, needle)) {
+                    total++;
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 关键词各个三元组中倒排表最短的一条；有三元组不存在时没有任何客户能匹配，返回null
+    private Postings rarestPostings(String needle) {
+        Postings rarest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Postings list = postings.get(needle.substring(i, i + GRAM));
+            if (list == null) {
+                return null;
+            }
+            if (rarest == null || list.size < rarest.size) {
+                rarest = list;
+            }
+        }
+        return rarest;
+    }
+
+    private boolean matches(int doc, String needle) {
+        return needle.isEmpty() || usernames[doc].contains(needle) || phones[doc].contains(needle);
+    }
+
+    private void addGrams(String text, int doc) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            postings.computeIfAbsent(text.substring(i, i + GRAM), key -> new Postings()).add(doc);
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= customerIds.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, customerIds.length * 2);
+        customerIds = Arrays.copyOf(customerIds, newLength);
+        usernames = Arrays.copyOf(usernames, newLength);
+        phones = Arrays.copyOf(phones, newLength);
+    }
+
+    /**
+     * 单个三元组的倒排表，文档编号递增且不重复
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[2];
+
+        private int size;
+
+        void add(int doc) {
+            // 同一文档的用户名和手机号含有相同三元组时只记录一次
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+
+    public static final class SearchHits {
+
+        private final List<Long> customerIds;
+
+        private final boolean hasMore;
+
+        public SearchHits(List<Long> customerIds, boolean hasMore) {
+            this.customerIds = customerIds;
+            this.hasMore = hasMore;
+        }
+
+        public List<Long> getCustomerIds() {
+            return customerIds;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+    }
+}
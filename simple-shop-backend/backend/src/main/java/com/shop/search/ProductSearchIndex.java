@@ -0,0 +1,478 @@
+package com.shop.search;
+
+import com.shop.event.ProductSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品名称和描述的内存倒排索引
+ * 每个商品占用一个文档编号；只改价格、分类或上下架/冻结状态时原地更新，
+ * 名称或描述变化时旧编号标记删除、分配新编号，倒排表中的编号始终递增；
+ * 删除的编号累积过多时按原顺序重新编号压缩。按BM25打分，名称中的词项按更高权重计入词频；
+ * 查询中单独的一个汉字会匹配包含该字的所有二元词项
+ */
+public class ProductSearchIndex {
+
+    // 名称中的词项相对描述的权重
+    private static final int NAME_WEIGHT = 3;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    // 已删除编号超过该数量且超过存活文档数一半时压缩
+    private static final int PURGE_THRESHOLD = 10000;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final long NO_SUB_CATEGORY = Long.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // 汉字 → 包含该字的二元词项，用于单字查询
+    private final Map<Character, Set<String>> bigramsByChar = new HashMap<>();
+
+    private final Map<Long, Integer> docByProductId = new HashMap<>();
+
+    private long[] productIds = new long[INITIAL_CAPACITY];
+
+    private long[] subCategoryIds = new long[INITIAL_CAPACITY];
+
+    private double[] prices = new double[INITIAL_CAPACITY];
+
+    private int[] docLengths = new int[INITIAL_CAPACITY];
+
+    private BitSet active = new BitSet();
+
+    private BitSet frozen = new BitSet();
+
+    private BitSet deleted = new BitSet();
+
+    private int docCount;
+
+    private int deletedCount;
+
+    private long totalLength;
+
+    // 加入或替换商品
+    public void put(ProductSnapshot product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : BigramTokenizer.tokenize(product.getName())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : BigramTokenizer.tokenize(product.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            // 预订、冻结、结算等只改状态的事件不换编号
+            Integer existing = docByProductId.get(product.getId());
+            if (existing != null && sameTerms(existing, frequencies)) {
+                setAttributes(existing, product);
+                return;
+            }
+            removeLocked(product.getId());
+            int doc = docCount++;
+            ensureCapacity(docCount);
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), this::newPostings).add(doc, entry.getValue());
+                length += entry.getValue();
+            }
+            productIds[doc] = product.getId();
+            setAttributes(doc, product);
+            docLengths[doc] = length;
+            totalLength += length;
+            docByProductId.put(product.getId(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 移除商品
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 当前索引中的商品数
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByProductId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 搜索并返回第offset条开始的limit条商品ID（按相关度倒序）以及匹配总数
+    public SearchHits search(ProductSearchQuery query, int offset, int limit) {
+        List<String> terms = BigramTokenizer.distinctTerms(query.getKeyword());
+        lock.readLock().lock();
+        try {
+            // 匹配数不会超过存活文档数，偏移量超出时只统计总数
+            int liveDocs = docByProductId.size();
+            int wanted = offset >= liveDocs ? 0 : (int) Math.min((long) offset + limit, liveDocs);
+            if (terms.isEmpty()) {
+                return filterOnly(query, offset, wanted);
+            }
+            Postings[] lists = new Postings[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = resolve(terms.get(i));
+                if (lists[i] == null) {
+                    return new SearchHits(0, Collections.emptyList());
+                }
+            }
+            // 从最短的倒排表开始求交集
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            double avgLength = liveDocs == 0 ? 1 : Math.max(1.0, (double) totalLength / liveDocs);
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                // 倒排表在压缩前还含有已删除的编号，文档频率最多按存活文档数计，避免idf为负
+                int df = Math.min(lists[i].size, liveDocs);
+                idf[i] = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+            }
+
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>();
+            int[] cursors = new int[lists.length];
+            int total = 0;
+            Postings lead = lists[0];
+            outer:
+            for (int i = 0; i < lead.size; i++) {
+                int doc = lead.docs[i];
+                if (deleted.get(doc) || !matches(query, doc)) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                int tf = lead.freqs[i];
+                double score = idf[0] * tf * (K1 + 1) / (tf + norm);
+                for (int t = 1; t < lists.length; t++) {
+                    Postings other = lists[t];
+                    int position = other.advance(cursors[t], doc);
+                    cursors[t] = position;
+                    if (position >= other.size || other.docs[position] != doc) {
+                        continue outer;
+                    }
+                    tf = other.freqs[position];
+                    score += idf[t] * tf * (K1 + 1) / (tf + norm);
+                }
+                total++;
+                offer(top, wanted, doc, score);
+            }
+            return toHits(top, offset, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 查询词项对应的倒排表；单个汉字合并单字词项和所有包含该字的二元词项
+    private Postings resolve(String term) {
+        Postings list = postings.get(term);
+        if (term.length() != 1 || !BigramTokenizer.isCjk(term.charAt(0))) {
+            return list;
+        }
+        List<Postings> parts = new ArrayList<>();
+        if (list != null) {
+            parts.add(list);
+        }
+        for (String bigram : bigramsByChar.getOrDefault(term.charAt(0), Collections.emptySet())) {
+            Postings part = postings.get(bigram);
+            if (part != null) {
+                parts.add(part);
+            }
+        }
+        return parts.isEmpty() ? null : Postings.union(parts);
+    }
+
+    private Postings newPostings(String term) {
+        if (term.length() == 2 && BigramTokenizer.isCjk(term.charAt(0))) {
+            bigramsByChar.computeIfAbsent(term.charAt(0), c -> new HashSet<>()).add(term);
+            if (term.charAt(1) != term.charAt(0)) {
+                bigramsByChar.computeIfAbsent(term.charAt(1), c -> new HashSet<>()).add(term);
+            }
+        }
+        return new Postings();
+    }
+
+    // 没有关键词时按文档编号倒序（越新越靠前）筛选
+    private SearchHits filterOnly(ProductSearchQuery query, int offset, int wanted) {
+        List<Long> ids = new ArrayList<>();
+        int total = 0;
+        for (int doc = docCount - 1; doc >= 0; doc--) {
+            if (deleted.get(doc) || !matches(query, doc)) {
+                continue;
+            }
+            if (total >= offset && total < wanted) {
+                ids.add(productIds[doc]);
+            }
+            total++;
+        }
+        return new SearchHits(total, ids);
+    }
+
+    // 文档的词项和词频是否与给定的完全相同：词频之和相等且每个词项的词频都一致
+    private boolean sameTerms(int doc, Map<String, Integer> frequencies) {
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings list = postings.get(entry.getKey());
+            int position = list == null ? -1 : Arrays.binarySearch(list.docs, 0, list.size, doc);
+            if (position < 0 || list.freqs[position] != entry.getValue()) {
+                return false;
+            }
+            length += entry.getValue();
+        }
+        return length == docLengths[doc];
+    }
+
+    private void setAttributes(int doc, ProductSnapshot product) {
+        subCategoryIds[doc] = product.getSubCategoryId() == null ? NO_SUB_CATEGORY : product.getSubCategoryId();
+        prices[doc] = product.getPrice();
+        active.set(doc, product.isActive());
+        frozen.set(doc, product.isFrozen());
+    }
+
+    private boolean matches(ProductSearchQuery query, int doc) {
+        if (query.getSubCategoryId() != null && subCategoryIds[doc] != query.getSubCategoryId()) {
+            return false;
+        }
+        if (query.getMinPrice() != null && prices[doc] < query.getMinPrice()) {
+            return false;
+        }
+        if (query.getMaxPrice() != null && prices[doc] > query.getMaxPrice()) {
+            return false;
+        }
+        if (query.getActive() != null && active.get(doc) != query.getActive()) {
+            return false;
+        }
+        return query.getFrozen() == null || frozen.get(doc) == query.getFrozen();
+    }
+
+    private static void offer(PriorityQueue<ScoredDoc> top, int wanted, int doc, double score) {
+        if (wanted <= 0) {
+            return;
+        }
+        if (top.size() < wanted) {
+            top.add(new ScoredDoc(doc, score));
+        } else if (score > top.peek().score) {
+            top.poll();
+            top.add(new ScoredDoc(doc, score));
+        }
+    }
+
+    private SearchHits toHits(PriorityQueue<ScoredDoc> top, int offset, int total) {
+        List<ScoredDoc> ranked = new ArrayList<>(top);
+        ranked.sort(Collections.reverseOrder());
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(productIds[ranked.get(i).doc]);
+        }
+        return new SearchHits(total, ids);
+    }
+
+    private void removeLocked(Long productId) {
+        Integer doc = docByProductId.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        totalLength -= docLengths[doc];
+        if (deletedCount > PURGE_THRESHOLD && deletedCount > docByProductId.size() / 2) {
+            compact();
+        }
+    }
+
+    // 去掉已删除的文档编号，存活文档按原顺序重新编号，倒排表保持递增
+    private void compact() {
+        int[] remap = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            remap[doc] = deleted.get(doc) ? -1 : live++;
+        }
+        postings.values().removeIf(list -> list.remap(remap) == 0);
+
+        int newLength = Math.max(INITIAL_CAPACITY, live * 2);
+        long[] newProductIds = new long[newLength];
+        long[] newSubCategoryIds = new long[newLength];
+        double[] newPrices = new double[newLength];
+        int[] newDocLengths = new int[newLength];
+        BitSet newActive = new BitSet(live);
+        BitSet newFrozen = new BitSet(live);
+        for (int doc = 0; doc < docCount; doc++) {
+            int target = remap[doc];
+            if (target < 0) {
+                continue;
+            }
+            newProductIds[target] = productIds[doc];
+            newSubCategoryIds[target] = subCategoryIds[doc];
+            newPrices[target] = prices[doc];
+            newDocLengths[target] = docLengths[doc];
+            newActive.set(target, active.get(doc));
+            newFrozen.set(target, frozen.get(doc));
+        }
+        docByProductId.replaceAll((productId, doc) -> remap[doc]);
+        productIds = newProductIds;
+        subCategoryIds = newSubCategoryIds;
+        prices = newPrices;
+        docLengths = newDocLengths;
+        active = newActive;
+        frozen = newFrozen;
+        deleted = new BitSet();
+        docCount = live;
+        deletedCount = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= productIds.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, productIds.length * 2);
+        productIds = Arrays.copyOf(productIds, newLength);
+        subCategoryIds = Arrays.copyOf(subCategoryIds, newLength);
+        prices = Arrays.copyOf(prices, newLength);
+        docLengths = Arrays.copyOf(docLengths, newLength);
+    }
+
+    /**
+     * 单个词项的倒排表，文档编号递增
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+
+        private int[] freqs = new int[4];
+
+        private int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        // 从from开始找到第一个不小于doc的位置（倍增后二分）
+        int advance(int from, int doc) {
+            if (from >= size || docs[from] >= doc) {
+                return from;
+            }
+            int step = 1;
+            int low = from;
+            int high = from + step;
+            while (high < size && docs[high] < doc) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            int index = Arrays.binarySearch(docs, low + 1, Math.min(high, size - 1) + 1, doc);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        // 合并多个倒排表，同一文档的词频相加
+        static Postings union(List<Postings> parts) {
+            if (parts.size() == 1) {
+                return parts.get(0);
+            }
+            int total = 0;
+            for (Postings part : parts) {
+                total += part.size;
+            }
+            long[] entries = new long[total];
+            int n = 0;
+            for (Postings part : parts) {
+                for (int i = 0; i < part.size; i++) {
+                    entries[n++] = ((long) part.docs[i] << 32) | part.freqs[i];
+                }
+            }
+            Arrays.sort(entries);
+            Postings merged = new Postings();
+            for (long entry : entries) {
+                int doc = (int) (entry >>> 32);
+                int freq = (int) entry;
+                if (merged.size > 0 && merged.docs[merged.size - 1] == doc) {
+                    merged.freqs[merged.size - 1] += freq;
+                } else {
+                    merged.add(doc, freq);
+                }
+            }
+            return merged;
+        }
+
+        // 按新编号改写，去掉映射为-1的已删除文档，返回剩余数量
+        int remap(int[] mapping) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = mapping[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+
+    private static final class ScoredDoc implements Comparable<ScoredDoc> {
+
+        private final int doc;
+
+        private final double score;
+
+        private ScoredDoc(int doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+
+        // 分数相同时较新的文档排在前面
+        @Override
+        public int compareTo(ScoredDoc other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(doc, other.doc);
+        }
+    }
+
+    /**
+     * 搜索结果：当前页的商品ID和匹配总数
+     */
+    public static final class SearchHits {
+
+        private final int total;
+
+        private final List<Long> productIds;
+
+        public SearchHits(int total, List<Long> productIds) {
+            this.total = total;
+            this.productIds = productIds;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.shop.search;
+
+/**
+ * 商品搜索条件
+ * 关键词为空时只按筛选条件查询，按商品加入索引的先后倒序返回；筛选字段为空表示不限
+ */
+public class ProductSearchQuery {
+
+    private String keyword;
+
+    private Long subCategoryId;
+
+    private Double minPrice;
+
+    private Double maxPrice;
+
+    private Boolean active;
+
+    private Boolean frozen;
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public Long getSubCategoryId() {
+        return subCategoryId;
+    }
+
+    public void setSubCategoryId(Long subCategoryId) {
+        this.subCategoryId = subCategoryId;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public Boolean getFrozen() {
+        return frozen;
+    }
+
+    public void setFrozen(Boolean frozen) {
+        this.frozen = frozen;
+    }
+}
@@ -0,0 +1,93 @@
+package com.shop.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 密码哈希（PBKDF2-HMAC-SHA256，每个密码独立随机盐）
+ * 存储格式为 pbkdf2-sha256$迭代次数$盐$哈希，迭代次数随哈希一起保存，调高配置后旧哈希仍可校验，
+ * 并在下次登录成功时按新的迭代次数重新生成。不带前缀的值视为旧版本保存的明文密码
+ */
+@Component
+public class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final int SALT_BYTES = 16;
+
+    private static final int HASH_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${security.password.iterations:310000}")
+    private int iterations;
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(derive(password, salt, iterations));
+    }
+
+    // stored为null（用户不存在）时仍按当前迭代次数计算一次，响应时间不暴露用户名是否存在
+    public boolean matches(String password, String stored) {
+        if (password == null) {
+            return false;
+        }
+        if (stored == null) {
+            derive(password, new byte[SALT_BYTES], iterations);
+            return false;
+        }
+        if (!stored.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] expected = decoder.decode(parts[2]);
+            byte[] actual = derive(password, decoder.decode(parts[1]), Integer.parseInt(parts[0]));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // 明文或迭代次数低于当前配置时需要重新生成
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return true;
+        }
+        int end = stored.indexOf('$', PREFIX.length());
+        try {
+            return end < 0 || Integer.parseInt(stored.substring(PREFIX.length(), end)) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
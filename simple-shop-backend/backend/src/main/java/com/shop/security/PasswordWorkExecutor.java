@@ -0,0 +1,116 @@
+package com.shop.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 密码哈希专用线程池
+ * 哈希计算是有意放慢的CPU密集操作，只在固定数量的线程中执行；排队数达到上限时立即拒绝，
+ * 登录高峰时最多threads + queue-capacity个请求线程在等待，其余请求线程仍可处理商品浏览等接口
+ */
+@Component
+public class PasswordWorkExecutor {
+
+    @Value("${security.password.threads:2}")
+    private int threads;
+
+    @Value("${security.password.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${security.password.timeout:PT10S}")
+    private Duration timeout;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer waitTimer;
+
+    private Timer workTimer;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        waitTimer = Timer.builder("password.hash.wait")
+                .description("密码哈希任务的排队时间")
+                .register(meterRegistry);
+        workTimer = Timer.builder("password.hash.duration")
+                .description("密码哈希任务的执行时间")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("password.hash.rejected")
+                .description("排队已满或等待超时被拒绝的密码哈希任务数")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue", executor, e -> e.getQueue().size())
+                .description("排队中的密码哈希任务数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 在线程池中执行并等待结果；排队已满或超时时抛出PasswordWorkRejectedException
+    public <T> T execute(Callable<T> work) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                waitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return work.call();
+                } finally {
+                    workTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordWorkRejectedException("登录请求过多，请稍后再试");
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new PasswordWorkRejectedException("登录请求过多，请稍后再试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordWorkRejectedException("登录请求被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
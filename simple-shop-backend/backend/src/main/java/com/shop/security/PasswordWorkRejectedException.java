@@ -0,0 +1,14 @@
+package com.shop.security;
+
+/**
+ * 密码校验线程池排队已满或等待超时，调用方应返回429
+ */
+public class PasswordWorkRejectedException extends RuntimeException {
+
+    // 429响应的Retry-After（秒），单次哈希通常在百毫秒内完成，排队很快就会空出
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    public PasswordWorkRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,15 +1,26 @@
 package com.shop.service;
 
+import com.shop.dto.BuyerDTO;
+import com.shop.dto.SettlementRequestDTO;
+import com.shop.dto.SettlementResultDTO;
 import com.shop.model.Buyer;
-import com.shop.model.Customer;
 import com.shop.model.Product;
 import com.shop.repository.BuyerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 // 自定义异常类，用于区分不同类型的错误
 class BuyerServiceException extends RuntimeException {
@@ -21,6 +32,12 @@ class BuyerServiceException extends RuntimeException {
 @Service
 public class BuyerService {
 
+    // 单次批量结算允许的最大条数
+    public static final int MAX_SETTLEMENT_SIZE = 1000;
+
+    // JDBC批量更新和IN查询的分批大小
+    private static final int BATCH_SIZE = 500;
+
     @Autowired
     private BuyerRepository buyerRepository;
 
@@ -28,10 +45,11 @@ public class BuyerService {
     private ProductService productService;
     
     @Autowired
-    private CustomerService customerService;
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    // 为已登录客户创建购买意向，customerId来自会话令牌，不再查询customers表
     @Transactional
-    public Buyer createBuyer(Buyer buyer, Long productId, String username) {
+    public Buyer createBuyer(Buyer buyer, Long productId, Long customerId) {
         // 验证参数
         if (buyer == null) {
             throw new BuyerServiceException("购买意向信息不能为空");
@@ -46,37 +64,20 @@ public class BuyerService {
             throw new BuyerServiceException("该商品已下架，无法购买");
         }
         
-        // 设置商品信息
-        buyer.setProduct(product);
-        
-        // 1. 根据用户名获取客户信息，找到对应的customers表中的用户记录
-        Optional<Customer> customerOpt = customerService.findByUsername(username);
-        if (!customerOpt.isPresent()) {
-            // 如果找不到对应的用户，抛出异常
-            throw new BuyerServiceException("用户信息不存在，请重新登录");
-        }
-        
-        // 2. 获取登录用户的客户ID（来自customers表的id字段）
-        Long customerId = customerOpt.get().getId();
+        // 将customers表中的用户ID设置为buyers表的customer_id字段
+        buyer.setCustomerId(customerId);
         
-        // 3. 验证客户ID的有效性（额外的安全检查）
-        if (!customerService.findById(customerId).isPresent()) {
-            throw new BuyerServiceException("客户信息验证失败");
+        // 预订商品：条件更新只会让一个并发请求成功，其余请求直接返回已被预订
+        if (!productService.reserveProduct(productId)) {
+            throw new BuyerServiceException("该商品已被预订，请选择其他商品");
         }
-        
-        // 4. 将customers表中的用户ID设置为buyers表的customer_id字段
-        buyer.setCustomerId(customerId);
+        // 预订后重新读取，返回的商品状态为已冻结
+        buyer.setProduct(productService.getProductById(productId).orElse(product));
         
         try {
-            // 同时冻结商品
-            productService.freezeProduct(productId, true);
-            // 保存购买意向
+            // 保存购买意向，失败时事务回滚会同时撤销预订
             return buyerRepository.save(buyer);
         } catch (Exception e) {
-            // 保存失败时，解冻商品
-            try {
-                productService.freezeProduct(productId, false);
-            } catch (Exception ignore) {}
             throw new BuyerServiceException("创建购买意向失败：" + e.getMessage());
         }
     }
@@ -90,11 +91,22 @@ public class BuyerService {
         return buyerRepository.findAllByOrderByCreatedAtDesc();
     }
 
+    // 在事务内转换为DTO，控制器不再接触商品关联
+    @Transactional
+    public List<BuyerDTO> getAllBuyerDTOs() {
+        return buyerRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(BuyerDTO::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    // 与批量结算使用同样的条件更新，只有本次把意向改为已结算时才修改商品状态；已结算的意向直接返回true
     @Transactional
     public boolean completeTransaction(Long buyerId, boolean success) {
         return buyerRepository.findById(buyerId).map(buyer -> {
-            buyer.setCompleted(true);
             Product product = buyer.getProduct();
+            if (buyerRepository.markCompleted(buyerId) == 0) {
+                return true;
+            }
             
             if (success) {
                 // 交易成功，商品下架
@@ -103,9 +115,102 @@ public class BuyerService {
                 // 交易失败，商品解冻
                 productService.freezeProduct(product.getId(), false);
             }
-            
-            buyerRepository.save(buyer);
             return true;
         }).orElse(false);
     }
+
+    // 批量结算购买意向：一次读取全部意向，按JDBC批量更新意向和商品状态，整体在同一事务内完成
+    @Transactional
+    public List<SettlementResultDTO> settleTransactions(List<SettlementRequestDTO> requests) {
+        List<SettlementResultDTO> results = new ArrayList<>(requests.size());
+        Set<Long> buyerIds = new LinkedHashSet<>();
+        for (SettlementRequestDTO request : requests) {
+            if (request.getBuyerId() != null) {
+                buyerIds.add(request.getBuyerId());
+            }
+        }
+        Map<Long, SettlementRow> rows = loadSettlementRows(buyerIds);
+
+        // 逐条判断结果，只有未结算的意向进入批量更新
+        Set<Long> seen = new HashSet<>();
+        List<SettlementResultDTO> pending = new ArrayList<>();
+        for (SettlementRequestDTO request : requests) {
+            Long buyerId = request.getBuyerId();
+            SettlementResultDTO result = new SettlementResultDTO(buyerId, request.isSuccess(), null, null);
+            results.add(result);
+            SettlementRow row = buyerId == null ? null : rows.get(buyerId);
+            if (row == null) {
+                result.setStatus(SettlementResultDTO.NOT_FOUND);
+            } else if (!seen.add(buyerId)) {
+                result.setStatus(SettlementResultDTO.DUPLICATE);
+            } else {
+                result.setProductId(row.productId);
+                if (row.completed) {
+                    result.setStatus(SettlementResultDTO.ALREADY_COMPLETED);
+                } else {
+                    pending.add(result);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        // 条件更新：与并发的单条或批量结算不会重复处理同一意向
+        int[][] counts = namedParameterJdbcTemplate.getJdbcTemplate().batchUpdate(
+                "UPDATE buyers SET is_completed = true WHERE id = ? AND is_completed = false",
+                pending, BATCH_SIZE, (ps, result) -> ps.setLong(1, result.getBuyerId()));
+
+        List<Long> deactivateIds = new ArrayList<>();
+        List<Long> releaseIds = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                SettlementResultDTO result = pending.get(index++);
+                if (count == 0) {
+                    result.setStatus(SettlementResultDTO.ALREADY_COMPLETED);
+                    continue;
+                }
+                // 没有影响行数就无法确认是否被并发结算抢先，整批回滚，不按已结算处理
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    throw new IllegalStateException("数据库未返回结算更新的影响行数，无法确认结算结果");
+                }
+                result.setStatus(SettlementResultDTO.SETTLED);
+                if (result.getProductId() != null) {
+                    // 交易成功商品下架，交易失败商品解冻，与单条结算一致
+                    (result.isSuccess() ? deactivateIds : releaseIds).add(result.getProductId());
+                }
+            }
+        }
+        productService.settleProducts(deactivateIds, releaseIds);
+        return results;
+    }
+
+    // 分批读取意向的商品ID和结算状态
+    private Map<Long, SettlementRow> loadSettlementRows(Set<Long> buyerIds) {
+        Map<Long, SettlementRow> rows = new HashMap<>();
+        List<Long> ids = new ArrayList<>(buyerIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            namedParameterJdbcTemplate.query(
+                    "SELECT id, product_id, is_completed FROM buyers WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", chunk),
+                    rs -> {
+                        long productId = rs.getLong("product_id");
+                        rows.put(rs.getLong("id"),
+                                new SettlementRow(rs.wasNull() ? null : productId, rs.getBoolean("is_completed")));
+                    });
+        }
+        return rows;
+    }
+
+    private static final class SettlementRow {
+        private final Long productId;
+        private final boolean completed;
+
+        private SettlementRow(Long productId, boolean completed) {
+            this.productId = productId;
+            this.completed = completed;
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package com.shop.service;
+
+import com.shop.cache.ActiveProductCounts;
+import com.shop.cache.CategoryTreeCache;
+import com.shop.cache.CategoryTreeSnapshot;
+import com.shop.dto.CatalogNodeDTO;
+import com.shop.dto.CategoryDTO;
+import com.shop.dto.SubCategoryDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class CatalogService {
+
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
+    @Autowired
+    private ActiveProductCounts activeProductCounts;
+
+    // 组装完整的启用分类树及各节点上架商品数量，分类和计数都来自内存，不查询数据库
+    public List<CatalogNodeDTO> getCatalogTree() {
+        CategoryTreeSnapshot snapshot = categoryTreeCache.get();
+        List<CatalogNodeDTO> tree = new ArrayList<>(snapshot.getCategories().size());
+        for (CategoryDTO category : snapshot.getCategories()) {
+            List<SubCategoryDTO> subCategories = snapshot.getSubCategories(category.getId());
+            List<CatalogNodeDTO> children = new ArrayList<>(subCategories.size());
+            long categoryCount = 0;
+            for (SubCategoryDTO subCategory : subCategories) {
+                CatalogNodeDTO child = new CatalogNodeDTO();
+                child.setId(subCategory.getId());
+                child.setName(subCategory.getName());
+                child.setDescription(subCategory.getDescription());
+                child.setIcon(subCategory.getIcon());
+                child.setSortOrder(subCategory.getSortOrder());
+                child.setProductCount(activeProductCounts.getCount(subCategory.getId()));
+                child.setChildren(Collections.emptyList());
+                categoryCount += child.getProductCount();
+                children.add(child);
+            }
+
+            CatalogNodeDTO node = new CatalogNodeDTO();
+            node.setId(category.getId());
+            node.setName(category.getName());
+            node.setDescription(category.getDescription());
+            node.setIcon(category.getIcon());
+            node.setSortOrder(category.getSortOrder());
+            node.setProductCount(categoryCount);
+            node.setChildren(children);
+            tree.add(node);
+        }
+        return tree;
+    }
+}
@@ -28,4 +28,7 @@ public interface CategoryService {
     CategoryDTO getCategoryDTOById(Long id);
     
     List<CategoryDTO> getAllCategoryDTOs();
+
+    // 启用的一级分类（来自分类树缓存）
+    List<CategoryDTO> getActiveCategoryDTOs();
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.shop.service;
+
+import com.shop.dto.CustomerPageDTO;
+import com.shop.event.CustomerRegisteredEvent;
+import com.shop.jdbc.StreamingStatements;
+import com.shop.model.Customer;
+import com.shop.repository.CustomerRepository;
+import com.shop.search.CustomerSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 卖家客户列表搜索
+ * 启动时从数据库全量构建用户名/手机号的三元组索引，之后根据CustomerRegisteredEvent增量加入；
+ * 匹配和分页在索引中完成，再按ID取回当前页的客户
+ */
+@Service
+public class CustomerSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSearchService.class);
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // 全量构建时每次从数据库取回的行数
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private volatile CustomerSearchIndex index = new CustomerSearchIndex();
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            CustomerSearchIndex rebuilt = new CustomerSearchIndex();
+            jdbcTemplate.query(connection -> StreamingStatements.prepare(connection,
+                    "SELECT id, username, phone FROM customers ORDER BY id", LOAD_FETCH_SIZE), rs -> {
+                rebuilt.add(rs.getLong("id"), rs.getString("username"), rs.getString("phone"));
+            });
+            index = rebuilt;
+            loaded = true;
+            logger.info("Built customer search index with {} customers in {} ms",
+                    rebuilt.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    // 注册事务提交后加入索引；没有事务时立即执行
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerRegistered(CustomerRegisteredEvent event) {
+        synchronized (this) {
+            if (!loaded) {
+                // 尚未构建，启动时的全量构建会包含这个客户
+                return;
+            }
+            index.add(event.getCustomerId(), event.getUsername(), event.getPhone());
+        }
+    }
+
+    // 按用户名或手机号片段搜索客户，page从0开始；withTotal为true时额外统计匹配总数
+    public CustomerPageDTO search(String keyword, int page, int size, boolean withTotal) {
+        if (!loaded) {
+            load();
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        CustomerSearchIndex current = index;
+        int offset = (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+        CustomerSearchIndex.SearchHits hits = current.search(keyword, offset, pageSize);
+        Integer total = withTotal ? current.count(keyword) : null;
+        return new CustomerPageDTO(loadCustomers(hits.getCustomerIds()), pageNumber, pageSize,
+                hits.isHasMore(), total);
+    }
+
+    // 按索引给出的顺序取回客户
+    private List<Customer> loadCustomers(List<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Customer> byId = customerRepository.findAllById(customerIds).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        List<Customer> customers = new ArrayList<>(customerIds.size());
+        for (Long id : customerIds) {
+            Customer customer = byId.get(id);
+            if (customer != null) {
+                customers.add(customer);
+            }
+        }
+        return customers;
+    }
+}
@@ -1,28 +1,72 @@
 package com.shop.service;
 
+import com.shop.dto.CursorPageDTO;
+import com.shop.dto.CustomerOrderRow;
+import com.shop.dto.KeysetCursor;
+import com.shop.event.CustomerRegisteredEvent;
+import com.shop.jdbc.StreamingStatements;
 import com.shop.model.Customer;
 import com.shop.repository.CustomerRepository;
+import com.shop.security.PasswordHasher;
+import com.shop.security.PasswordWorkExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 public class CustomerService {
 
+    // 订单分页默认和最大每页条数
+    public static final int DEFAULT_ORDER_PAGE_SIZE = 20;
+    public static final int MAX_ORDER_PAGE_SIZE = 100;
+
+    private static final RowMapper<CustomerOrderRow> ORDER_ROW_MAPPER = (rs, rowNum) -> new CustomerOrderRow(
+            rs.getLong("id"),
+            rs.getString("address"),
+            rs.getTimestamp("created_at"),
+            rs.getBoolean("is_completed"),
+            rs.getString("buyer_name"),
+            rs.getString("notes"),
+            rs.getString("phone"),
+            rs.getString("product_name"),
+            rs.getBigDecimal("price"));
+
+    private static final RowMapper<Customer> CUSTOMER_ROW_MAPPER = new BeanPropertyRowMapper<>(Customer.class);
+
+    // 流式导出订单时每次从数据库取回的行数
+    @Value("${order.stream.fetch-size:500}")
+    private int orderStreamFetchSize;
+
     @Autowired
     private CustomerRepository customerRepository;
     
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    @Transactional
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private PasswordWorkExecutor passwordWorkExecutor;
+
+    // 先在密码线程池中计算哈希再访问数据库，等待哈希期间不占用数据库连接
     public boolean register(String username, String password, String phone, String defaultLocation) {
+        String passwordHash = passwordWorkExecutor.execute(() -> passwordHasher.hash(password));
+
         // 检查用户名是否已存在
         if (customerRepository.existsByUsername(username)) {
             return false;
@@ -31,17 +75,38 @@ public class CustomerService {
         // 创建新客户
         Customer customer = new Customer();
         customer.setUsername(username);
-        customer.setPassword(password); // 实际应用中应加密存储
+        customer.setPassword(passwordHash);
         customer.setPhone(phone);
         customer.setDefaultLocation(defaultLocation);
         
-        customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        eventPublisher.publishEvent(new CustomerRegisteredEvent(saved.getId(), saved.getUsername(), saved.getPhone()));
         return true;
     }
 
+    // 用JdbcTemplate查询，连接在查询后立即归还（JPA查询会在整个请求期间占用连接），再到密码线程池中校验；
+    // 旧的明文密码或迭代次数不足的哈希在校验成功后重新生成
     public Optional<Customer> login(String username, String password) {
-        return customerRepository.findByUsername(username)
-                .filter(customer -> customer.getPassword().equals(password));
+        List<Customer> rows = jdbcTemplate.query("SELECT * FROM customers WHERE username = ?",
+                CUSTOMER_ROW_MAPPER, username);
+        Customer customer = rows.isEmpty() ? null : rows.get(0);
+        String stored = customer == null ? null : customer.getPassword();
+        String upgraded = passwordWorkExecutor.execute(() -> {
+            if (!passwordHasher.matches(password, stored)) {
+                return null;
+            }
+            return passwordHasher.needsRehash(stored) ? passwordHasher.hash(password) : stored;
+        });
+        if (upgraded == null) {
+            return Optional.empty();
+        }
+        if (!upgraded.equals(stored)) {
+            // 只在密码未被并发修改时替换
+            jdbcTemplate.update("UPDATE customers SET password = ?, updated_at = ? WHERE id = ? AND password = ?",
+                    upgraded, Timestamp.valueOf(LocalDateTime.now()), customer.getId(), stored);
+            customer.setPassword(upgraded);
+        }
+        return Optional.of(customer);
     }
     
     // 根据用户名查找客户
@@ -69,15 +134,51 @@ public class CustomerService {
         return customerRepository.findAll();
     }
     
-    // 获取客户列表（支持分页和搜索）
-    public Page<Customer> getCustomers(String keyword, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return customerRepository.findByKeyword(keyword, pageable);
+    // 获取指定客户的全部订单记录（从buyers表中）
+    public List<CustomerOrderRow> getCustomerOrders(Long customerId, String status, String sort) {
+        List<Object> params = new ArrayList<>();
+        String sql = buildOrderQuery(customerId, status, sort, null, params);
+        return jdbcTemplate.query(sql, ORDER_ROW_MAPPER, params.toArray());
     }
-    
-    // 获取指定客户的订单记录（从buyers表中）
-    public List<Map<String, Object>> getCustomerOrders(Long customerId, String status, String sort) {
-        // 构建SQL查询，支持状态筛选和排序
+
+    // 键集分页获取订单记录，cursor为空时返回第一页；走(customer_id, created_at, id)索引，不做COUNT
+    public CursorPageDTO<CustomerOrderRow> getCustomerOrderPage(Long customerId, String status, String sort,
+                                                                String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_ORDER_PAGE_SIZE));
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+        List<Object> params = new ArrayList<>();
+        // 多取一条用于判断是否还有下一页
+        String sql = buildOrderQuery(customerId, status, sort, after, params) + " LIMIT ?";
+        params.add(pageSize + 1);
+        List<CustomerOrderRow> rows = jdbcTemplate.query(sql, ORDER_ROW_MAPPER, params.toArray());
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            CustomerOrderRow last = rows.get(pageSize - 1);
+            Timestamp createdAt = last.getCreatedAt();
+            nextCursor = new KeysetCursor(createdAt == null ? null : createdAt.toLocalDateTime(), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(rows, nextCursor, pageSize);
+    }
+
+    // 逐行读取订单记录交给consumer处理，结果集不在内存中整体物化
+    public void streamCustomerOrders(Long customerId, String status, String sort,
+                                     Consumer<CustomerOrderRow> consumer) {
+        List<Object> params = new ArrayList<>();
+        String sql = buildOrderQuery(customerId, status, sort, null, params);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = StreamingStatements.prepare(connection, sql, orderStreamFetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(ORDER_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    // 构建订单查询SQL，支持状态筛选、排序方向和键集游标
+    private String buildOrderQuery(Long customerId, String status, String sort, KeysetCursor after,
+                                   List<Object> params) {
         StringBuilder sqlBuilder = new StringBuilder();
         sqlBuilder.append("SELECT ")
                  .append("b.id as id, ")
@@ -88,16 +189,13 @@ public class CustomerService {
                  .append("b.notes as notes, ")
                  .append("b.phone as phone, ")
                  .append("p.name as product_name, ")
-                 .append("p.price as price, ")
-                 .append("CASE WHEN b.is_completed THEN 'completed' ELSE 'pending' END as status ")
+                 .append("p.price as price ")
                  .append("FROM buyers b ")
                  .append("LEFT JOIN products p ON b.product_id = p.id ")
                  .append("WHERE b.customer_id = ? ");
-        
+        params.add(customerId);
+
         // 添加状态筛选条件
-        List<Object> paramsList = new ArrayList<>();
-        paramsList.add(customerId);
-        
         if (status != null && !status.isEmpty()) {
             if ("completed".equals(status)) {
                 sqlBuilder.append("AND b.is_completed = true ");
@@ -105,26 +203,30 @@ public class CustomerService {
                 sqlBuilder.append("AND b.is_completed = false ");
             }
         }
-        
-        // 添加排序条件
-        String orderDirection = "desc".equalsIgnoreCase(sort) ? "DESC" : "ASC";
-        sqlBuilder.append("ORDER BY b.created_at ").append(orderDirection);
-        
-        Object[] params = paramsList.toArray();
-        
-        return jdbcTemplate.query(sqlBuilder.toString(), params, (rs, rowNum) -> {
-            Map<String, Object> order = new HashMap<>();
-            order.put("id", rs.getLong("id"));
-            order.put("address", rs.getString("address"));
-            order.put("created_at", rs.getTimestamp("created_at"));
-            order.put("is_completed", rs.getBoolean("is_completed"));
-            order.put("buyer_name", rs.getString("buyer_name"));
-            order.put("notes", rs.getString("notes"));
-            order.put("phone", rs.getString("phone"));
-            order.put("product_name", rs.getString("product_name"));
-            order.put("price", rs.getBigDecimal("price"));
-            order.put("status", rs.getString("status"));
-            return order;
-        });
+
+        // 添加排序条件，id作为同一时间的次序保证翻页稳定；
+        // created_at为NULL的历史记录在正序时排在最前，倒序时排在最后（MySQL和H2一致）
+        boolean desc = "desc".equalsIgnoreCase(sort);
+        if (after != null) {
+            String op = desc ? "<" : ">";
+            if (after.isNullCreatedAt()) {
+                // 正序时NULL区间之后是全部有时间的记录，倒序时NULL区间已是末尾
+                sqlBuilder.append(desc ? "AND b.created_at IS NULL AND b.id < ? "
+                        : "AND (b.created_at IS NOT NULL OR b.id > ?) ");
+                params.add(after.getId());
+            } else {
+                sqlBuilder.append("AND (b.created_at ").append(op).append(" ? ")
+                         .append("OR (b.created_at = ? AND b.id ").append(op).append(" ?)");
+                sqlBuilder.append(desc ? " OR b.created_at IS NULL) " : ") ");
+                Timestamp createdAt = Timestamp.valueOf(after.getCreatedAt());
+                params.add(createdAt);
+                params.add(createdAt);
+                params.add(after.getId());
+            }
+        }
+        String orderDirection = desc ? "DESC" : "ASC";
+        sqlBuilder.append("ORDER BY b.created_at ").append(orderDirection)
+                 .append(", b.id ").append(orderDirection);
+        return sqlBuilder.toString();
     }
-}
\ No newline at end of file
+}
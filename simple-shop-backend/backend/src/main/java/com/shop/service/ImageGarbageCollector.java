@@ -0,0 +1,311 @@
+package com.shop.service;
+
+import com.shop.cache.ImageBodyCache;
+import com.shop.jdbc.StreamingStatements;
+import com.shop.model.ImageFile;
+import com.shop.repository.ImageFileRepository;
+import com.shop.storage.ImageFormat;
+import com.shop.storage.ImageLayout;
+import com.shop.storage.ImageStorage;
+import com.shop.storage.StoredImage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 上传图片清理任务（标记-清除）
+ * 标记：流式读取products表，收集商品图片和描述中引用的图片；清除：遍历存储后端中的所有文件，
+ * 未被引用且超过宽限期的原图连同其缩略图被删除，本地暂存目录中中断上传残留的临时文件同样按宽限期删除。
+ * 删除前再按image_files的引用计数复核一次，避免删掉标记之后才被商品引用的图片；删除按速率限制进行
+ */
+@Service
+public class ImageGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageGarbageCollector.class);
+
+    // 缩略图文件名：{原图名}_w{宽度}.{扩展名}
+    private static final Pattern VARIANT_NAME = Pattern.compile("(.+)_w\\d+\\.[a-z]+");
+
+    // 标记阶段每次从数据库取回的行数
+    private static final int MARK_FETCH_SIZE = 500;
+
+    @Value("${image.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${image.gc.dry-run:false}")
+    private boolean dryRun;
+
+    // 上传后多久仍未被引用才视为孤立文件，留给卖家填写商品信息
+    @Value("${image.gc.grace-period:PT24H}")
+    private Duration gracePeriod;
+
+    @Value("${image.gc.max-deletes-per-second:20}")
+    private int maxDeletesPerSecond;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    @Autowired
+    private ImageFileRepository imageFileRepository;
+
+    @Autowired
+    private ImageBodyCache imageBodyCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Timer runTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        runTimer = Timer.builder("image.gc.duration")
+                .description("上传图片清理任务耗时")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${image.gc.cron:0 30 3 * * *}")
+    public void scheduledCollect() {
+        if (enabled) {
+            collect(dryRun);
+        }
+    }
+
+    // 执行一次清理，dryRun为true时只统计不删除；已有任务在运行时直接返回null
+    public GcReport collect(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Image garbage collection is already running, skipped");
+            return null;
+        }
+        try {
+            return runTimer.record(() -> sweep(mark(), dryRun));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // 收集所有商品引用的图片，按原图名（不含扩展名）记录
+    private Set<String> mark() {
+        Set<String> fileNames = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            return StreamingStatements.prepare(connection, "SELECT image_url, description FROM products",
+                    MARK_FETCH_SIZE);
+        }, rs -> {
+            ImageStoreService.collectReferences(rs.getString("image_url"), fileNames);
+            ImageStoreService.collectReferences(rs.getString("description"), fileNames);
+        });
+        Set<String> owners = new HashSet<>();
+        for (String fileName : fileNames) {
+            owners.add(ownerOf(fileName));
+        }
+        return owners;
+    }
+
+    private GcReport sweep(Set<String> referenced, boolean dryRun) {
+        Sweeper sweeper = new Sweeper(referenced, dryRun);
+        try {
+            imageStorage.forEach(sweeper::visit);
+            sweeper.sweepTemps(imageLayout.root());
+        } catch (IOException e) {
+            logger.warn("Image garbage collection stopped early", e);
+        }
+        GcReport report = sweeper.report;
+
+        String mode = dryRun ? "dry-run" : "delete";
+        Counter.builder("image.gc.reclaimed.files").description("清理任务回收的文件数")
+                .tag("mode", mode).register(meterRegistry).increment(report.reclaimedFiles);
+        Counter.builder("image.gc.reclaimed.bytes").description("清理任务回收的字节数")
+                .tag("mode", mode).register(meterRegistry).increment(report.reclaimedBytes);
+        logger.info("Image garbage collection ({}): scanned {} files, reclaimed {} files / {} bytes",
+                mode, report.scannedFiles, report.reclaimedFiles, report.reclaimedBytes);
+        return report;
+    }
+
+    // 复核引用计数：原图或其任一扩展名的登记记录仍有引用时保留
+    private boolean stillReferenced(String fileName) {
+        String owner = ownerOf(fileName);
+        List<String> candidates = new ArrayList<>();
+        for (ImageFormat format : ImageFormat.values()) {
+            candidates.add(owner + "." + format.getExtension());
+        }
+        for (ImageFile imageFile : imageFileRepository.findAllById(candidates)) {
+            if (imageFile.getRefCount() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 文件所属的原图名（不含扩展名），缩略图归属于生成它的原图
+    static String ownerOf(String fileName) {
+        Matcher variant = VARIANT_NAME.matcher(fileName);
+        if (variant.matches()) {
+            return variant.group(1);
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    /**
+     * 清除阶段，逐个判断存储后端中的文件和本地暂存目录中的临时文件是否可以回收
+     */
+    private final class Sweeper {
+
+        private final Set<String> referenced;
+
+        private final boolean dryRun;
+
+        private final long cutoff = System.currentTimeMillis() - gracePeriod.toMillis();
+
+        private final long deleteIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxDeletesPerSecond);
+
+        private long nextDeleteAt = System.nanoTime();
+
+        private final GcReport report;
+
+        Sweeper(Set<String> referenced, boolean dryRun) {
+            this.referenced = referenced;
+            this.dryRun = dryRun;
+            this.report = new GcReport(dryRun);
+        }
+
+        // 已保存的图片和缩略图，返回false时停止遍历
+        boolean visit(StoredImage image) throws IOException {
+            report.scannedFiles++;
+            String fileName = image.getFileName();
+            if (image.getLastModified() > cutoff
+                    || referenced.contains(ownerOf(fileName)) || stillReferenced(fileName)) {
+                return true;
+            }
+            if (!dryRun) {
+                if (!throttle()) {
+                    return false;
+                }
+                if (!imageStorage.delete(fileName)) {
+                    return true;
+                }
+                imageBodyCache.evict(fileName);
+                if (imageFileRepository.existsById(fileName)) {
+                    imageFileRepository.deleteById(fileName);
+                }
+            }
+            report.reclaimedFiles++;
+            report.reclaimedBytes += image.getSize();
+            return true;
+        }
+
+        // 中断的上传和缩略图生成残留在暂存目录中的临时文件（以.开头）
+        void sweepTemps(Path directory) throws IOException {
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, ".*")) {
+                for (Path temp : temps) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(temp, BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                    if (!attributes.isRegularFile()) {
+                        continue;
+                    }
+                    report.scannedFiles++;
+                    if (attributes.lastModifiedTime().toMillis() > cutoff) {
+                        continue;
+                    }
+                    if (!dryRun) {
+                        if (!throttle()) {
+                            return;
+                        }
+                        if (!Files.deleteIfExists(temp)) {
+                            continue;
+                        }
+                    }
+                    report.reclaimedFiles++;
+                    report.reclaimedBytes += attributes.size();
+                }
+            }
+        }
+
+        // 按速率限制等待下一次删除，线程被中断时返回false
+        private boolean throttle() {
+            try {
+                long wait = nextDeleteAt - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            nextDeleteAt = System.nanoTime() + deleteIntervalNanos;
+            return true;
+        }
+    }
+
+    /**
+     * 一次清理的结果
+     */
+    public static final class GcReport {
+
+        private final boolean dryRun;
+
+        private int scannedFiles;
+
+        private int reclaimedFiles;
+
+        private long reclaimedBytes;
+
+        GcReport(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        public int getScannedFiles() {
+            return scannedFiles;
+        }
+
+        public int getReclaimedFiles() {
+            return reclaimedFiles;
+        }
+
+        public long getReclaimedBytes() {
+            return reclaimedBytes;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.shop.service;
+
+import com.shop.storage.ImageLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 把分片之前平铺在上传目录下的图片迁移到分片目录
+ * 迁移期间图片接口先查分片位置再查平铺位置，移动是原子的，迁移可以在服务运行时进行，中断后再次执行会从剩余文件继续。
+ * 只在使用本地存储时启用
+ */
+@Service
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "local", matchIfMissing = true)
+public class ImageShardMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageShardMigrator.class);
+
+    @Value("${image.shard.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    // 启动后在后台线程迁移，不影响服务就绪
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!migrateOnStartup) {
+            return;
+        }
+        Thread thread = new Thread(this::migrate, "image-shard-migrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 迁移上传目录根下的所有图片和缩略图，临时文件（以.开头）留给清理任务处理
+    public synchronized MigrationReport migrate() {
+        MigrationReport report = new MigrationReport();
+        Path root = imageLayout.root();
+        if (!Files.isDirectory(root)) {
+            return report;
+        }
+        long start = System.currentTimeMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (!ImageLayout.isValidFileName(fileName)) {
+                    continue;
+                }
+                try {
+                    moveToShard(file, imageLayout.resolve(fileName), report);
+                } catch (IOException e) {
+                    report.failedFiles++;
+                    logger.warn("Failed to migrate image {} to its shard", fileName, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Image shard migration stopped early", e);
+        }
+        logger.info("Image shard migration: moved {} files, removed {} duplicates, {} failed in {} ms",
+                report.movedFiles, report.duplicateFiles, report.failedFiles, System.currentTimeMillis() - start);
+        return report;
+    }
+
+    private void moveToShard(Path file, Path target, MigrationReport report) throws IOException {
+        if (Files.exists(target)) {
+            if (Files.size(target) == Files.size(file)) {
+                // 内容寻址的文件名相同即内容相同，平铺的副本可以删除
+                Files.delete(file);
+                report.duplicateFiles++;
+            } else {
+                report.failedFiles++;
+                logger.warn("Image {} exists in both layouts with different sizes, left in place", file.getFileName());
+            }
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // 上传目录挂载了多个文件系统时退化为普通移动，目标已存在时失败而不是覆盖
+            Files.move(file, target);
+        }
+        report.movedFiles++;
+    }
+
+    /**
+     * 一次迁移的结果
+     */
+    public static final class MigrationReport {
+
+        private int movedFiles;
+
+        private int duplicateFiles;
+
+        private int failedFiles;
+
+        public int getMovedFiles() {
+            return movedFiles;
+        }
+
+        public int getDuplicateFiles() {
+            return duplicateFiles;
+        }
+
+        public int getFailedFiles() {
+            return failedFiles;
+        }
+    }
+}
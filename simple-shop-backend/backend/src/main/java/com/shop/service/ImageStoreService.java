@@ -0,0 +1,254 @@
+package com.shop.service;
+
+import com.shop.event.ProductChangedEvent;
+import com.shop.event.ProductSnapshot;
+import com.shop.model.ImageFile;
+import com.shop.repository.ImageFileRepository;
+import com.shop.storage.ImageFormat;
+import com.shop.storage.ImageLayout;
+import com.shop.storage.ImageStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按内容寻址的图片存储
+ * 上传内容边写入本地暂存目录的临时文件边计算SHA-256，以摘要作为文件名保存到存储后端；相同内容再次上传时直接复用已有文件。
+ * 读取请求体必须按顺序进行，接收完一个文件后，移动、登记和安排缩略图交给有界线程池，与读取下一个文件并行。
+ * 商品图片和描述中引用的图片按商品计数，引用数随商品修改在同一事务内增减，为0的图片可被清理
+ */
+@Service
+public class ImageStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStoreService.class);
+
+    public static final String IMAGE_URL_PREFIX = "/api/files/images/";
+
+    // 商品图片地址和描述HTML中引用的上传图片，文件名后的?w=等参数不计入
+    private static final Pattern IMAGE_REFERENCE = Pattern.compile(Pattern.quote(IMAGE_URL_PREFIX) + "([A-Za-z0-9._-]+)");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private ImageFileRepository imageFileRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter uploadBytes;
+
+    @Value("${image.upload.threads:4}")
+    private int uploadThreads;
+
+    @Value("${image.upload.queue-capacity:32}")
+    private int uploadQueueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 队列满时由上传请求线程自己执行，起到限流作用
+        executor = new ThreadPoolExecutor(uploadThreads, uploadThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(uploadQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        uploadBytes = Counter.builder("image.upload.bytes")
+                .description("接收的上传图片字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // 把上传内容写入临时文件并计算SHA-256，超过maxBytes时删除临时文件并抛出IllegalArgumentException
+    public PendingImage receive(InputStream input, ImageFormat format, long maxBytes) throws IOException {
+        Path directory = imageLayout.root();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("文件大小超过限制（最大" + maxBytes / 1024 / 1024 + "MB）");
+                    }
+                    digest.update(buffer, 0, read);
+                    output.write(buffer, 0, read);
+                }
+            }
+            uploadBytes.increment(size);
+            return new PendingImage(temp, toHex(digest.digest()) + "." + format.getExtension(), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    // 在上传线程池中提交已接收的图片，完成后返回最终文件名
+    public CompletableFuture<String> commitAsync(PendingImage pending) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return commit(pending);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    // 把临时文件以摘要为文件名保存到存储后端并登记；内容已存在时直接复用已有文件
+    public String commit(PendingImage pending) throws IOException {
+        try {
+            boolean created = imageStorage.storeIfAbsent(pending.fileName, pending.temp);
+            register(pending.fileName, pending.size);
+            if (created) {
+                imageVariantService.submit(pending.fileName);
+            }
+            return pending.fileName;
+        } finally {
+            Files.deleteIfExists(pending.temp);
+        }
+    }
+
+    // 商品修改后按前后引用的差异调整引用计数，与商品修改在同一事务中提交
+    @EventListener
+    @Transactional
+    public void onProductChanged(ProductChangedEvent event) {
+        Set<String> before = referencedImages(event.getBefore());
+        Set<String> after = referencedImages(event.getAfter());
+        for (String fileName : after) {
+            if (!before.contains(fileName)) {
+                imageFileRepository.adjustRefCount(fileName, 1);
+            }
+        }
+        for (String fileName : before) {
+            if (!after.contains(fileName)) {
+                imageFileRepository.adjustRefCount(fileName, -1);
+            }
+        }
+    }
+
+    // 商品图片和描述中引用的上传图片文件名
+    public static Set<String> referencedImages(ProductSnapshot product) {
+        if (product == null) {
+            return Collections.emptySet();
+        }
+        Set<String> fileNames = new HashSet<>();
+        collectReferences(product.getImageUrl(), fileNames);
+        collectReferences(product.getDescription(), fileNames);
+        return fileNames;
+    }
+
+    // 把文本（图片地址或描述HTML）中引用的上传图片文件名加入fileNames
+    public static void collectReferences(String text, Set<String> fileNames) {
+        if (text == null || text.indexOf('/') < 0) {
+            return;
+        }
+        Matcher matcher = IMAGE_REFERENCE.matcher(text);
+        while (matcher.find()) {
+            fileNames.add(matcher.group(1));
+        }
+    }
+
+    // 登记新图片，引用计数从0开始；已登记时不做修改
+    private void register(String fileName, long size) {
+        if (imageFileRepository.existsById(fileName)) {
+            return;
+        }
+        ImageFile imageFile = new ImageFile();
+        imageFile.setFileName(fileName);
+        imageFile.setSizeBytes(size);
+        try {
+            imageFileRepository.saveAndFlush(imageFile);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Image {} was registered concurrently", fileName);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 已写入临时文件、尚未提交的上传图片
+     */
+    public static final class PendingImage {
+
+        private final Path temp;
+
+        private final String fileName;
+
+        private final long size;
+
+        private PendingImage(Path temp, String fileName, long size) {
+            this.temp = temp;
+            this.fileName = fileName;
+            this.size = size;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.shop.service;
+
+import com.shop.storage.ImageLayout;
+import com.shop.storage.ImageStorage;
+import com.shop.storage.StoredImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 上传图片的缩略图生成
+ * 上传成功后把原图交给有界线程池，按配置的宽度生成缩略图，保存到与原图相同的存储后端，命名为{原文件名}_w{宽度}.{jpg|png}；
+ * 不透明的图片统一重新编码为JPEG，带透明通道的保留PNG。队列满时直接放弃，请求缩略图时退回原图，上传从不等待缩放
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    // 缩略图JPEG压缩质量
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private static final String[] VARIANT_EXTENSIONS = {"jpg", "png"};
+
+    @Value("${image.variant.widths:160,320,640,1280}")
+    private int[] widths;
+
+    @Value("${image.variant.threads:2}")
+    private int threads;
+
+    @Value("${image.variant.queue-capacity:200}")
+    private int queueCapacity;
+
+    // 原图像素数上限，超过时不生成缩略图；PNG等格式压缩率很高，文件大小限制挡不住超大尺寸的图片
+    @Value("${image.variant.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        widths = Arrays.stream(widths).filter(width -> width > 0).sorted().distinct().toArray();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 异步生成缩略图，队列已满时放弃并返回false
+    public boolean submit(String original) {
+        try {
+            executor.execute(() -> {
+                try {
+                    generateVariants(original);
+                } catch (Exception e) {
+                    logger.warn("Failed to generate variants for {}", original, e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Image variant queue is full, skipped {}", original);
+            return false;
+        }
+    }
+
+    // 同步生成缩略图，只生成比原图窄的宽度；ImageIO无法解码的格式（如webp）不生成
+    public void generateVariants(String original) throws IOException {
+        try (InputStream content = imageStorage.open(original);
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                int largest = largestWidthBelow(sourceWidth);
+                if (largest <= 0) {
+                    return;
+                }
+                // 只读取了文件头，尺寸过大时在解码前放弃，避免占满堆内存
+                if ((long) sourceWidth * sourceHeight > maxPixels) {
+                    logger.warn("Skipped variants for {}: {}x{} exceeds {} pixels",
+                            original, sourceWidth, sourceHeight, maxPixels);
+                    return;
+                }
+                // 原图远大于最大缩略图时解码阶段先隔行采样，降低内存占用
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, sourceWidth / (largest * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage source = reader.read(0, param);
+
+                boolean alpha = source.getColorModel().hasAlpha();
+                String extension = alpha ? "png" : "jpg";
+                String baseName = baseName(original);
+                // 从大到小生成，每次在上一级结果上继续缩小
+                BufferedImage current = source;
+                for (int i = widths.length - 1; i >= 0; i--) {
+                    int width = widths[i];
+                    if (width >= sourceWidth) {
+                        continue;
+                    }
+                    current = resize(current, width, alpha);
+                    write(current, extension, baseName + "_w" + width + "." + extension);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 找到宽度不小于requestedWidth的最小缩略图，不存在时返回null
+    public StoredImage resolveVariant(String original, int requestedWidth) throws IOException {
+        String baseName = baseName(original);
+        for (int width : widths) {
+            if (width < requestedWidth) {
+                continue;
+            }
+            for (String extension : VARIANT_EXTENSIONS) {
+                StoredImage variant = imageStorage.stat(baseName + "_w" + width + "." + extension);
+                if (variant != null) {
+                    return variant;
+                }
+            }
+        }
+        return null;
+    }
+
+    private int largestWidthBelow(int sourceWidth) {
+        int largest = 0;
+        for (int width : widths) {
+            if (width < sourceWidth) {
+                largest = width;
+            }
+        }
+        return largest;
+    }
+
+    // 逐级减半缩小后再缩放到目标宽度，避免一次大比例缩放产生锯齿
+    private static BufferedImage resize(BufferedImage source, int targetWidth, boolean alpha) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width > targetWidth);
+        return current;
+    }
+
+    // 先在暂存目录写临时文件，写完后整体保存，避免读到写了一半的缩略图
+    private void write(BufferedImage image, String extension, String fileName) throws IOException {
+        Files.createDirectories(imageLayout.root());
+        Path temp = Files.createTempFile(imageLayout.root(), ".variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(extension).next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if ("jpg".equals(extension)) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(JPEG_QUALITY);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            imageStorage.put(fileName, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
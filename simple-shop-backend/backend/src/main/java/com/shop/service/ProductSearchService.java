@@ -0,0 +1,127 @@
+package com.shop.service;
+
+import com.shop.dto.ProductListItemDTO;
+import com.shop.dto.ProductSearchResultDTO;
+import com.shop.event.ProductChangedEvent;
+import com.shop.event.ProductSnapshot;
+import com.shop.jdbc.StreamingStatements;
+import com.shop.repository.ProductRepository;
+import com.shop.search.ProductSearchIndex;
+import com.shop.search.ProductSearchQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 商品搜索
+ * 启动时从数据库全量构建内存倒排索引，之后根据ProductChangedEvent增量更新；
+ * 搜索只在索引中完成匹配和排序，再按ID取回当前页的商品列表项
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // 全量构建时每次从数据库取回的行数
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private volatile ProductSearchIndex index = new ProductSearchIndex();
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            ProductSearchIndex rebuilt = new ProductSearchIndex();
+            jdbcTemplate.query(connection -> {
+                return StreamingStatements.prepare(connection,
+                        "SELECT id, name, description, image_url, price, is_active, is_frozen, sub_category_id, "
+                                + "created_at FROM products ORDER BY id", LOAD_FETCH_SIZE);
+            }, rs -> {
+                long subCategoryId = rs.getLong("sub_category_id");
+                Long subCategory = rs.wasNull() ? null : subCategoryId;
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                rebuilt.put(new ProductSnapshot(rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                        rs.getString("image_url"), rs.getDouble("price"), rs.getBoolean("is_active"),
+                        rs.getBoolean("is_frozen"), subCategory,
+                        createdAt == null ? null : createdAt.toLocalDateTime()));
+            });
+            index = rebuilt;
+            loaded = true;
+            logger.info("Built product search index with {} products in {} ms",
+                    rebuilt.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    // 事务提交后更新索引；没有事务时立即执行
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (this) {
+            if (!loaded) {
+                // 尚未构建，启动时的全量构建会包含这次修改
+                return;
+            }
+            if (event.getAfter() == null) {
+                index.remove(event.getProductId());
+            } else {
+                index.put(event.getAfter());
+            }
+        }
+    }
+
+    // 按关键词和筛选条件搜索，page从0开始
+    public ProductSearchResultDTO search(ProductSearchQuery query, int page, int size) {
+        if (!loaded) {
+            load();
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        // 页码很大时按long计算偏移量，超出int范围的页必然为空
+        int offset = (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+        ProductSearchIndex.SearchHits hits = index.search(query, offset, pageSize);
+        return new ProductSearchResultDTO(loadItems(hits.getProductIds()), hits.getTotal(), pageNumber, pageSize);
+    }
+
+    // 按索引给出的顺序取回列表项，期间被删除的商品直接跳过
+    private List<ProductListItemDTO> loadItems(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, ProductListItemDTO> byId = productRepository.findListItemsByIds(productIds).stream()
+                .collect(Collectors.toMap(ProductListItemDTO::getId, Function.identity()));
+        List<ProductListItemDTO> items = new ArrayList<>(productIds.size());
+        for (Long id : productIds) {
+            ProductListItemDTO item = byId.get(id);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+}
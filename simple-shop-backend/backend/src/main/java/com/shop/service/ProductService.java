@@ -1,20 +1,57 @@
 package com.shop.service;
 
+import com.shop.dto.CursorPageDTO;
+import com.shop.dto.KeysetCursor;
+import com.shop.dto.ProductDTO;
+import com.shop.dto.ProductListItemDTO;
+import com.shop.event.ProductChangedEvent;
+import com.shop.event.ProductSnapshot;
 import com.shop.model.Product;
 import com.shop.model.SubCategory;
 import com.shop.repository.ProductRepository;
+import com.shop.repository.SubCategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
 
+    // 分页列表默认和最大每页条数
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // 批量结算时JDBC批量更新的分批大小
+    private static final int BATCH_SIZE = 500;
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private SubCategoryRepository subCategoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 商品写入后发布ProductChangedEvent，由分类计数等监听器在事务提交后增量更新
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Optional<Product> getActiveProduct() {
         return productRepository.findByIsActiveTrue();
     }
@@ -23,6 +60,30 @@ public class ProductService {
         return productRepository.findAllByOrderByCreatedAtDesc();
     }
 
+    // 键集分页获取商品列表，cursor为空时返回第一页
+    public CursorPageDTO<ProductListItemDTO> getProductPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // 多取一条用于判断是否还有下一页，避免额外的COUNT查询
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<ProductListItemDTO> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = productRepository.findListItemsFirstPage(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = after.isNullCreatedAt()
+                    ? productRepository.findListItemsWithoutCreatedAtAfter(after.getId(), limit)
+                    : productRepository.findListItemsAfter(after.getCreatedAt(), after.getId(), limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            ProductListItemDTO last = rows.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(rows, nextCursor, pageSize);
+    }
+
     public List<Product> getProductsBySubCategory(SubCategory subCategory) {
         return productRepository.findBySubCategoryAndIsActiveTrue(subCategory);
     }
@@ -36,52 +97,168 @@ public class ProductService {
         return productRepository.findBySubCategoryCategoryId(categoryId);
     }
 
+    // 以下DTO查询在只读事务内完成实体到DTO的转换，控制器不再接触实体关联
+    @Transactional(readOnly = true)
+    public Optional<ProductDTO> getActiveProductDTO() {
+        return productRepository.findByIsActiveTrue().map(ProductDTO::fromEntity);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> getAllProductDTOs() {
+        return toDTOs(productRepository.findAllByOrderByCreatedAtDesc());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> getProductDTOsBySubCategoryId(Long subCategoryId) {
+        return toDTOs(productRepository.findBySubCategoryId(subCategoryId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> getProductDTOsByCategoryId(Long categoryId) {
+        return toDTOs(productRepository.findBySubCategoryCategoryId(categoryId));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductDTO> getProductDTOById(Long id) {
+        return productRepository.findDetailById(id).map(ProductDTO::fromEntity);
+    }
+
+    private List<ProductDTO> toDTOs(List<Product> products) {
+        return products.stream().map(ProductDTO::fromEntity).collect(Collectors.toList());
+    }
+
+    // 与图片引用计数等ProductChangedEvent监听器的修改在同一事务中提交
+    @Transactional
     public Product createProduct(Product product) {
         // 允许多个商品同时激活，移除限制逻辑
         product.setActive(true);
         product.setFrozen(false);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(null, ProductSnapshot.of(saved)));
+        return saved;
     }
 
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
 
+    // 编辑商品内容；上下架和冻结状态只通过专门的接口修改，避免覆盖并发的预订
+    @Transactional
     public Product updateProduct(Product product) {
-        return productRepository.save(product);
+        Optional<Product> existing = product.getId() == null ? Optional.empty()
+                : productRepository.findById(product.getId());
+        if (!existing.isPresent()) {
+            Product saved = productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(null, ProductSnapshot.of(saved)));
+            return saved;
+        }
+        Product managed = existing.get();
+        ProductSnapshot before = ProductSnapshot.of(managed);
+        managed.setName(product.getName());
+        managed.setDescription(product.getDescription());
+        managed.setImageUrl(product.getImageUrl());
+        managed.setPrice(product.getPrice());
+        // 请求体中的二级分类只带ID，换成托管的引用
+        SubCategory subCategory = product.getSubCategory();
+        managed.setSubCategory(subCategory == null || subCategory.getId() == null ? null
+                : subCategoryRepository.getReferenceById(subCategory.getId()));
+        Product saved = productRepository.save(managed);
+        eventPublisher.publishEvent(new ProductChangedEvent(before, ProductSnapshot.of(saved)));
+        return saved;
+    }
+
+    // 预订商品（上架且未冻结 → 冻结），返回false表示商品不可预订或已被其他买家预订
+    @Transactional
+    public boolean reserveProduct(Long id) {
+        if (productRepository.reserve(id, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        productRepository.findById(id).ifPresent(product -> {
+            ProductSnapshot after = ProductSnapshot.of(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(after.withState(true, false), after));
+        });
+        return true;
     }
 
+    @Transactional
     public boolean freezeProduct(Long id, boolean freeze) {
         Optional<Product> productOpt = productRepository.findById(id);
         if (productOpt.isPresent()) {
             Product product = productOpt.get();
+            ProductSnapshot before = ProductSnapshot.of(product);
             product.setFrozen(freeze);
             productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(before, ProductSnapshot.of(product)));
             return true;
         }
         return false;
     }
 
+    @Transactional
     public boolean deactivateProduct(Long id) {
         Optional<Product> productOpt = productRepository.findById(id);
         if (productOpt.isPresent()) {
             Product product = productOpt.get();
+            ProductSnapshot before = ProductSnapshot.of(product);
             product.setActive(false);
             productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(before, ProductSnapshot.of(product)));
             return true;
         }
         return false;
     }
 
+    @Transactional
     public Product activateProduct(Long id) {
         // 只激活指定商品，不移除其他商品的激活状态
         Optional<Product> productOpt = productRepository.findById(id);
         if (productOpt.isPresent()) {
             Product product = productOpt.get();
+            ProductSnapshot before = ProductSnapshot.of(product);
             product.setActive(true);
             product.setFrozen(false); // 可选，确保未被冻结
-            return productRepository.save(product);
+            Product saved = productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(before, ProductSnapshot.of(saved)));
+            return saved;
         }
         return null;
     }
-}
\ No newline at end of file
+
+    // 批量结算后更新商品状态：交易成功的下架，交易失败的解冻；JDBC批量执行后逐个发布变更事件
+    @Transactional
+    public void settleProducts(Collection<Long> deactivateIds, Collection<Long> releaseIds) {
+        Set<Long> deactivate = new HashSet<>(deactivateIds);
+        Set<Long> release = new HashSet<>(releaseIds);
+        Set<Long> ids = new HashSet<>(deactivate);
+        ids.addAll(release);
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductSnapshot> before = productRepository.findAllById(ids).stream()
+                .map(ProductSnapshot::of)
+                .collect(Collectors.toMap(ProductSnapshot::getId, Function.identity()));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        batchUpdate("UPDATE products SET is_active = false, version = version + 1, updated_at = ? WHERE id = ?",
+                deactivate, before.keySet(), now);
+        batchUpdate("UPDATE products SET is_frozen = false, version = version + 1, updated_at = ? WHERE id = ?",
+                release, before.keySet(), now);
+
+        for (ProductSnapshot snapshot : before.values()) {
+            Long id = snapshot.getId();
+            ProductSnapshot after = snapshot.withState(snapshot.isActive() && !deactivate.contains(id),
+                    snapshot.isFrozen() && !release.contains(id));
+            eventPublisher.publishEvent(new ProductChangedEvent(snapshot, after));
+        }
+    }
+
+    private void batchUpdate(String sql, Set<Long> ids, Set<Long> existing, Timestamp now) {
+        List<Long> targets = ids.stream().filter(existing::contains).collect(Collectors.toList());
+        if (!targets.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, targets, BATCH_SIZE, (ps, id) -> {
+                ps.setTimestamp(1, now);
+                ps.setLong(2, id);
+            });
+        }
+    }
+}
@@ -2,43 +2,85 @@ package com.shop.service;
 
 import com.shop.model.Seller;
 import com.shop.repository.SellerRepository;
+import com.shop.security.PasswordHasher;
+import com.shop.security.PasswordWorkExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Service
 public class SellerService {
 
+    private static final RowMapper<Seller> SELLER_ROW_MAPPER = new BeanPropertyRowMapper<>(Seller.class);
+
     @Autowired
     private SellerRepository sellerRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private PasswordWorkExecutor passwordWorkExecutor;
+
     // 初始化卖家账号，实际应用中应该在系统部署后手动创建
     @Transactional
     public void initializeSeller() {
         if (sellerRepository.count() == 0) {
             Seller seller = new Seller();
             seller.setUsername("seller");
-            seller.setPassword("password"); // 实际应用中应加密存储
+            seller.setPassword(passwordHasher.hash("password"));
             sellerRepository.save(seller);
         }
     }
 
+    // 与客户登录相同：JdbcTemplate查询后立即归还连接，在密码线程池中校验，旧的明文密码校验成功后替换为哈希
     public Optional<Seller> login(String username, String password) {
-        return sellerRepository.findByUsername(username)
-                .filter(seller -> seller.getPassword().equals(password));
+        Seller seller = findByUsername(username);
+        String stored = seller == null ? null : seller.getPassword();
+        String upgraded = passwordWorkExecutor.execute(() -> {
+            if (!passwordHasher.matches(password, stored)) {
+                return null;
+            }
+            return passwordHasher.needsRehash(stored) ? passwordHasher.hash(password) : stored;
+        });
+        if (upgraded == null) {
+            return Optional.empty();
+        }
+        if (!upgraded.equals(stored)) {
+            updatePassword(seller.getId(), stored, upgraded);
+            seller.setPassword(upgraded);
+        }
+        return Optional.of(seller);
     }
 
-    @Transactional
+    // 校验旧密码和计算新密码哈希放在同一个任务中
     public boolean changePassword(String username, String oldPassword, String newPassword) {
-        return sellerRepository.findByUsername(username)
-                .filter(seller -> seller.getPassword().equals(oldPassword))
-                .map(seller -> {
-                    seller.setPassword(newPassword);
-                    sellerRepository.save(seller);
-                    return true;
-                })
-                .orElse(false);
+        Seller seller = findByUsername(username);
+        String stored = seller == null ? null : seller.getPassword();
+        String newHash = passwordWorkExecutor.execute(() ->
+                passwordHasher.matches(oldPassword, stored) ? passwordHasher.hash(newPassword) : null);
+        return newHash != null && updatePassword(seller.getId(), stored, newHash);
+    }
+
+    private Seller findByUsername(String username) {
+        List<Seller> rows = jdbcTemplate.query("SELECT * FROM seller WHERE username = ?", SELLER_ROW_MAPPER, username);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // 只在密码未被并发修改时替换
+    private boolean updatePassword(Long id, String expected, String password) {
+        return jdbcTemplate.update("UPDATE seller SET password = ?, updated_at = ? WHERE id = ? AND password = ?",
+                password, Timestamp.valueOf(LocalDateTime.now()), id, expected) == 1;
     }
 }
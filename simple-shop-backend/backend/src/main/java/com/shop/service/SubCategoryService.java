@@ -30,4 +30,7 @@ public interface SubCategoryService {
     List<SubCategoryDTO> getAllSubCategoryDTOs();
     
     List<SubCategoryDTO> getSubCategoryDTOsByCategoryId(Long categoryId);
+
+    // 指定一级分类下启用的二级分类（启用的一级分类走分类树缓存）
+    List<SubCategoryDTO> getActiveSubCategoryDTOsByCategoryId(Long categoryId);
 }
\ No newline at end of file
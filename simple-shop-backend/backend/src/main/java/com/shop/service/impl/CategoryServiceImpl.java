@@ -1,11 +1,14 @@
 package com.shop.service.impl;
 
+import com.shop.cache.CatalogVersion;
+import com.shop.cache.CategoryTreeCache;
 import com.shop.dto.CategoryDTO;
 import com.shop.model.Category;
 import com.shop.repository.CategoryRepository;
 import com.shop.service.CategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -18,6 +21,12 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     @Override
     public List<Category> getAllActiveCategories() {
         return categoryRepository.findByActiveTrueOrderBySortOrderAsc();
@@ -35,17 +44,25 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
+        return saved;
     }
 
     @Override
     public Category updateCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
+        return saved;
     }
 
     @Override
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
     }
 
     @Override
@@ -53,6 +70,8 @@ public class CategoryServiceImpl implements CategoryService {
         Category category = new Category();
         updateCategoryFromDTO(category, categoryDTO);
         Category savedCategory = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
         return convertToDTO(savedCategory);
     }
 
@@ -62,6 +81,8 @@ public class CategoryServiceImpl implements CategoryService {
                 .orElseThrow(() -> new RuntimeException("分类不存在: " + id));
         updateCategoryFromDTO(category, categoryDTO);
         Category updatedCategory = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
         return convertToDTO(updatedCategory);
     }
 
@@ -80,15 +101,15 @@ public class CategoryServiceImpl implements CategoryService {
                 .collect(java.util.stream.Collectors.toList());
     }
 
+    // 命中缓存时不开启事务，避免为每次读取占用数据库连接
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<CategoryDTO> getActiveCategoryDTOs() {
+        return categoryTreeCache.get().getCategories();
+    }
+
     private CategoryDTO convertToDTO(Category category) {
-        CategoryDTO dto = new CategoryDTO();
-        dto.setId(category.getId());
-        dto.setName(category.getName());
-        dto.setDescription(category.getDescription());
-        dto.setActive(category.isActive());
-        dto.setSortOrder(category.getSortOrder());
-        dto.setIcon(category.getIcon());
-        return dto;
+        return CategoryDTO.fromEntity(category);
     }
 
     private void updateCategoryFromDTO(Category entity, CategoryDTO dto) {
@@ -1,5 +1,8 @@
 package com.shop.service.impl;
 
+import com.shop.cache.CatalogVersion;
+import com.shop.cache.CategoryTreeCache;
+import com.shop.cache.CategoryTreeSnapshot;
 import com.shop.dto.SubCategoryDTO;
 import com.shop.model.Category;
 import com.shop.model.SubCategory;
@@ -8,6 +11,7 @@ import com.shop.repository.SubCategoryRepository;
 import com.shop.service.SubCategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -23,6 +27,12 @@ public class SubCategoryServiceImpl implements SubCategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     @Override
     public List<SubCategory> getActiveSubCategoriesByCategoryId(Long categoryId) {
         return subCategoryRepository.findByCategoryIdAndActiveTrueOrderBySortOrderAsc(categoryId);
@@ -45,7 +55,10 @@ public class SubCategoryServiceImpl implements SubCategoryService {
                 subCategory.getCategory().getId(), subCategory.getName())) {
             throw new IllegalArgumentException("该分类下已存在同名二级分类");
         }
-        return subCategoryRepository.save(subCategory);
+        SubCategory saved = subCategoryRepository.save(subCategory);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
+        return saved;
     }
 
     @Override
@@ -59,12 +72,17 @@ public class SubCategoryServiceImpl implements SubCategoryService {
                         subCategory.getCategory().getId(), subCategory.getName())) {
             throw new IllegalArgumentException("该分类下已存在同名二级分类");
         }
-        return subCategoryRepository.save(subCategory);
+        SubCategory saved = subCategoryRepository.save(subCategory);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
+        return saved;
     }
 
     @Override
     public void deleteSubCategory(Long id) {
         subCategoryRepository.deleteById(id);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
     }
 
     @Override
@@ -81,6 +99,8 @@ public class SubCategoryServiceImpl implements SubCategoryService {
         SubCategory subCategory = new SubCategory();
         updateSubCategoryFromDTO(subCategory, subCategoryDTO, category);
         SubCategory savedSubCategory = subCategoryRepository.save(subCategory);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
         return convertToDTO(savedSubCategory);
     }
 
@@ -105,6 +125,8 @@ public class SubCategoryServiceImpl implements SubCategoryService {
         
         updateSubCategoryFromDTO(subCategory, subCategoryDTO, category);
         SubCategory updatedSubCategory = subCategoryRepository.save(subCategory);
+        categoryTreeCache.invalidate();
+        catalogVersion.increment();
         return convertToDTO(updatedSubCategory);
     }
 
@@ -130,16 +152,22 @@ public class SubCategoryServiceImpl implements SubCategoryService {
                 .collect(java.util.stream.Collectors.toList());
     }
 
+    // 命中缓存时不开启事务，避免为每次读取占用数据库连接
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<SubCategoryDTO> getActiveSubCategoryDTOsByCategoryId(Long categoryId) {
+        CategoryTreeSnapshot snapshot = categoryTreeCache.get();
+        if (snapshot.containsCategory(categoryId)) {
+            return snapshot.getSubCategories(categoryId);
+        }
+        // 快照只包含启用的一级分类，其余情况直接查询
+        return subCategoryRepository.findByCategoryIdAndActiveTrueOrderBySortOrderAsc(categoryId).stream()
+                .map(this::convertToDTO)
+                .collect(java.util.stream.Collectors.toList());
+    }
+
     private SubCategoryDTO convertToDTO(SubCategory subCategory) {
-        SubCategoryDTO dto = new SubCategoryDTO();
-        dto.setId(subCategory.getId());
-        dto.setName(subCategory.getName());
-        dto.setDescription(subCategory.getDescription());
-        dto.setActive(subCategory.isActive());
-        dto.setSortOrder(subCategory.getSortOrder());
-        dto.setIcon(subCategory.getIcon());
-        dto.setCategoryId(subCategory.getCategory().getId());
-        return dto;
+        return SubCategoryDTO.fromEntity(subCategory);
     }
 
     private void updateSubCategoryFromDTO(SubCategory entity, SubCategoryDTO dto, Category category) {
@@ -0,0 +1,48 @@
+package com.shop.session;
+
+/**
+ * 会话令牌对应的登录身份
+ */
+public class SessionPrincipal {
+
+    public enum Role {
+        CUSTOMER, SELLER
+    }
+
+    private final Role role;
+
+    private final Long id;
+
+    private final String username;
+
+    private final long expiresAt;
+
+    public SessionPrincipal(Role role, Long id, String username, long expiresAt) {
+        this.role = role;
+        this.id = id;
+        this.username = username;
+        this.expiresAt = expiresAt;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    // 客户令牌为customers表的id，卖家令牌为sellers表的id
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    // 过期时间（毫秒时间戳）
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isCustomer() {
+        return role == Role.CUSTOMER;
+    }
+}
@@ -0,0 +1,133 @@
+package com.shop.session;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录会话令牌
+ * 令牌格式为 载荷.签名，载荷包含角色、用户ID、过期时间和随机数，签名为HMAC-SHA256；
+ * 签名不对或已过期的令牌不查表直接拒绝，有效令牌在内存表中查到对应身份，整个过程不访问数据库。
+ * 签名密钥在启动时随机生成，会话只保存在内存中，重启后需要重新登录；过期的令牌定期从表中清除
+ */
+@Component
+public class SessionTokenStore {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final byte[] signingKey = new byte[32];
+
+    // Mac实例不是线程安全的，每个线程复用一个
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    private final Map<String, SessionPrincipal> sessions = new ConcurrentHashMap<>();
+
+    @Value("${session.token.ttl:PT12H}")
+    private Duration ttl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public SessionTokenStore() {
+        random.nextBytes(signingKey);
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("session.tokens.active", sessions, Map::size)
+                .description("内存中的登录会话数")
+                .register(meterRegistry);
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    // 登录成功后签发令牌
+    public String issue(SessionPrincipal.Role role, Long id, String username) {
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        String payload = ENCODER.encodeToString((role.name() + ":" + id + ":" + expiresAt + ":"
+                + ENCODER.encodeToString(nonce)).getBytes(StandardCharsets.UTF_8));
+        String token = payload + "." + ENCODER.encodeToString(sign(payload));
+        sessions.put(token, new SessionPrincipal(role, id, username, expiresAt));
+        return token;
+    }
+
+    // 校验令牌并返回对应身份；签名错误、已过期或已注销时返回null
+    public SessionPrincipal resolve(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String payload = token.substring(0, dot);
+        byte[] signature;
+        try {
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+        SessionPrincipal principal = sessions.get(token);
+        if (principal == null) {
+            return null;
+        }
+        if (principal.getExpiresAt() <= System.currentTimeMillis()) {
+            sessions.remove(token);
+            return null;
+        }
+        return principal;
+    }
+
+    public void revoke(String token) {
+        sessions.remove(token);
+    }
+
+    @Scheduled(fixedDelayString = "${session.token.purge-interval:PT5M}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(principal -> principal.getExpiresAt() <= now);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(signingKey, HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.shop.storage;
+
+/**
+ * 允许上传的图片格式
+ * 按文件开头的魔数识别，不信任文件名中的扩展名
+ */
+public enum ImageFormat {
+
+    JPEG("jpg", "image/jpeg"),
+    PNG("png", "image/png"),
+    GIF("gif", "image/gif"),
+    WEBP("webp", "image/webp");
+
+    // 识别所有格式需要读取的文件头字节数
+    public static final int MAGIC_LENGTH = 12;
+
+    private final String extension;
+
+    private final String contentType;
+
+    ImageFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // 按文件扩展名确定Content-Type（兼容早期上传的.jpeg文件），未知扩展名返回application/octet-stream
+    public static String contentTypeOf(String fileName) {
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+        if ("jpeg".equals(extension)) {
+            return JPEG.contentType;
+        }
+        for (ImageFormat format : values()) {
+            if (format.extension.equals(extension)) {
+                return format.contentType;
+            }
+        }
+        return "application/octet-stream";
+    }
+
+    // 根据文件头识别格式，无法识别时返回null
+    public static ImageFormat sniff(byte[] head, int length) {
+        if (length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return JPEG;
+        }
+        if (length >= 8 && (head[0] & 0xFF) == 0x89 && startsWith(head, length, 1, "PNG\r\n\u001A\n")) {
+            return PNG;
+        }
+        if (startsWith(head, length, 0, "GIF87a") || startsWith(head, length, 0, "GIF89a")) {
+            return GIF;
+        }
+        if (startsWith(head, length, 0, "RIFF") && startsWith(head, length, 8, "WEBP")) {
+            return WEBP;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, String magic) {
+        if (length < offset + magic.length()) {
+            return false;
+        }
+        for (int i = 0; i < magic.length(); i++) {
+            if (head[offset + i] != (byte) magic.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
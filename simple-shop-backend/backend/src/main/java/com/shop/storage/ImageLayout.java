@@ -0,0 +1,69 @@
+package com.shop.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Pattern;
+
+/**
+ * 上传目录的分片布局
+ * 图片存放在{上传目录}/{前两位}/{三四位}/{文件名}，分片取自原图名（不含扩展名和_w宽度后缀）开头的四个十六进制字符，
+ * 原图名不是十六进制开头时取其哈希值；缩略图与原图位于同一分片。分片之前平铺在上传目录下的旧文件仍可按原文件名访问
+ */
+@Component
+public class ImageLayout {
+
+    // 对外暴露的图片文件名，不允许路径分隔符，也不允许以.开头（临时文件）
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("[0-9a-f]{4}.*");
+
+    private static final Pattern VARIANT_SUFFIX = Pattern.compile("_w\\d+$");
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    public Path root() {
+        return Paths.get(uploadDir);
+    }
+
+    // 文件在分片布局中的位置（不检查是否存在）
+    public Path resolve(String fileName) {
+        String shard = shardOf(fileName);
+        return root().resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4)).resolve(fileName);
+    }
+
+    // 查找已存在的文件：先找分片位置，再找旧的平铺位置；迁移可能恰好在两次检查之间移动文件，最后再查一次分片位置
+    public Path locate(String fileName) {
+        if (!isValidFileName(fileName)) {
+            return null;
+        }
+        Path sharded = resolve(fileName);
+        if (Files.isRegularFile(sharded)) {
+            return sharded;
+        }
+        Path legacy = root().resolve(fileName);
+        if (Files.isRegularFile(legacy)) {
+            return legacy;
+        }
+        return Files.isRegularFile(sharded) ? sharded : null;
+    }
+
+    public static boolean isValidFileName(String fileName) {
+        return fileName != null && FILE_NAME.matcher(fileName).matches();
+    }
+
+    // 四个十六进制字符的分片键
+    static String shardOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String owner = VARIANT_SUFFIX.matcher(dot > 0 ? fileName.substring(0, dot) : fileName).replaceFirst("");
+        String lower = owner.toLowerCase();
+        if (HEX_PREFIX.matcher(lower).matches()) {
+            return lower.substring(0, 4);
+        }
+        return String.format("%04x", owner.hashCode() & 0xFFFF);
+    }
+}
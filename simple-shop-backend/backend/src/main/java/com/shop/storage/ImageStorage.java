@@ -0,0 +1,50 @@
+package com.shop.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 上传图片的存储后端
+ * 文件名即内容摘要（缩略图为{原图名}_w{宽度}.{扩展名}），同名对象内容不变，后端只需按文件名整体读写。
+ * 上传先写入本地暂存目录，再由后端保存；读取和写入都按流进行，不把整个文件读入内存。
+ * 通过image.storage.type选择：local（默认，本地分片目录）或s3（S3兼容对象存储）
+ */
+public interface ImageStorage {
+
+    // 保存source为fileName，同名文件已存在时不覆盖并刷新其修改时间（重新获得清理任务的宽限期），返回false；
+    // 保存后source可能已被移走，调用方负责清理残留
+    boolean storeIfAbsent(String fileName, Path source) throws IOException;
+
+    // 保存source为fileName，同名文件已存在时覆盖（用于重新生成的缩略图）
+    void put(String fileName, Path source) throws IOException;
+
+    // 文件信息，不存在或文件名不合法时返回null
+    StoredImage stat(String fileName) throws IOException;
+
+    // 按流读取文件内容，不存在时抛出NoSuchFileException
+    InputStream open(String fileName) throws IOException;
+
+    // 删除文件，不存在时返回false（对象存储无法区分时总是返回true）
+    boolean delete(String fileName) throws IOException;
+
+    // 遍历所有已保存的文件，visitor返回false时停止
+    void forEach(Visitor visitor) throws IOException;
+
+    // 浏览器可直接访问的地址，由存储后端直接提供内容；返回null时由本服务读取并返回文件内容
+    URI directUrl(String fileName);
+
+    // directUrl返回的地址签发后至少在这段时间内有效，可用于设置重定向响应的缓存时间
+    Duration directUrlLifetime();
+
+    /**
+     * 遍历已保存文件的回调
+     */
+    @FunctionalInterface
+    interface Visitor {
+
+        boolean visit(StoredImage image) throws IOException;
+    }
+}
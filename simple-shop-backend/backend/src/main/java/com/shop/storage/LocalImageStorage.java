@@ -0,0 +1,118 @@
+package com.shop.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+/**
+ * 本地磁盘存储，按ImageLayout的分片布局存放，兼容分片之前平铺存放的旧文件
+ */
+@Component
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalImageStorage implements ImageStorage {
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    @Override
+    public boolean storeIfAbsent(String fileName, Path source) throws IOException {
+        Path existing = imageLayout.locate(fileName);
+        if (existing != null) {
+            Files.setLastModifiedTime(existing, FileTime.fromMillis(System.currentTimeMillis()));
+            return false;
+        }
+        // 并发保存相同内容时后到的一方覆盖为同样的字节，结果一致
+        moveInto(source, imageLayout.resolve(fileName));
+        return true;
+    }
+
+    @Override
+    public void put(String fileName, Path source) throws IOException {
+        moveInto(source, imageLayout.resolve(fileName));
+    }
+
+    @Override
+    public StoredImage stat(String fileName) throws IOException {
+        Path path = imageLayout.locate(fileName);
+        if (path == null) {
+            return null;
+        }
+        try {
+            return toStoredImage(path, Files.readAttributes(path, BasicFileAttributes.class));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream open(String fileName) throws IOException {
+        Path path = imageLayout.locate(fileName);
+        if (path == null) {
+            throw new NoSuchFileException(fileName);
+        }
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public boolean delete(String fileName) throws IOException {
+        Path path = imageLayout.locate(fileName);
+        return path != null && Files.deleteIfExists(path);
+    }
+
+    // 遍历分片目录和平铺在根目录的旧文件，跳过暂存的临时文件
+    @Override
+    public void forEach(Visitor visitor) throws IOException {
+        Path root = imageLayout.root();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (!attributes.isRegularFile() || !ImageLayout.isValidFileName(file.getFileName().toString())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                return visitor.visit(toStoredImage(file, attributes)) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+            }
+
+            // 遍历期间被删除或移动的文件直接跳过
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public URI directUrl(String fileName) {
+        return null;
+    }
+
+    @Override
+    public Duration directUrlLifetime() {
+        return Duration.ZERO;
+    }
+
+    private static void moveInto(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static StoredImage toStoredImage(Path path, BasicFileAttributes attributes) {
+        return new StoredImage(path.getFileName().toString(), attributes.size(),
+                attributes.lastModifiedTime().toMillis(), path);
+    }
+}
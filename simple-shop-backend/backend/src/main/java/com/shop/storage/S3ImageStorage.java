@@ -0,0 +1,385 @@
+package com.shop.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * S3兼容对象存储（AWS S3、MinIO等），使用路径风格地址{endpoint}/{bucket}/{keyPrefix}{文件名}
+ * 上传直接从暂存文件流式发送，读取时返回响应体流；浏览器通过预签名地址直接从对象存储获取图片，
+ * 图片内容不经过本服务。预签名时间按有效期的一半对齐，同一时间窗口内同一图片得到相同地址，可被浏览器缓存。
+ * 对象写入后内容不再变化，HEAD结果缓存在内存中，?w=查找缩略图时不必每次请求都访问对象存储
+ */
+@Component
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "s3")
+public class S3ImageStorage implements ImageStorage {
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Value("${image.storage.s3.endpoint}")
+    private String endpoint;
+
+    @Value("${image.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${image.storage.s3.bucket}")
+    private String bucket;
+
+    @Value("${image.storage.s3.access-key}")
+    private String accessKey;
+
+    @Value("${image.storage.s3.secret-key}")
+    private String secretKey;
+
+    @Value("${image.storage.s3.key-prefix:images/}")
+    private String keyPrefix;
+
+    @Value("${image.storage.s3.presign-ttl:PT1H}")
+    private Duration presignTtl;
+
+    @Value("${image.storage.s3.timeout:PT10S}")
+    private Duration timeout;
+
+    @Value("${image.storage.s3.stat-cache-size:10000}")
+    private int statCacheSize;
+
+    @Value("${image.storage.s3.missing-ttl:PT1M}")
+    private Duration missingTtl;
+
+    // 按访问顺序排列，超过statCacheSize时淘汰最久未访问的条目
+    private final LinkedHashMap<String, CachedStat> statCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedStat> eldest) {
+            return size() > statCacheSize;
+        }
+    };
+
+    private URI endpointUri;
+
+    private String host;
+
+    private SigV4Signer signer;
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        endpointUri = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        host = endpointUri.getPort() == -1 ? endpointUri.getHost() : endpointUri.getHost() + ":" + endpointUri.getPort();
+        signer = new SigV4Signer(accessKey, secretKey, region, "s3");
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    public boolean storeIfAbsent(String fileName, Path source) throws IOException {
+        // 对象可能已被其他实例清理，这里不使用缓存
+        if (head(fileName) != null) {
+            touch(fileName);
+            evict(fileName);
+            return false;
+        }
+        put(fileName, source);
+        return true;
+    }
+
+    @Override
+    public void put(String fileName, Path source) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", ImageFormat.contentTypeOf(fileName));
+        headers.put("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+        HttpResponse<String> response = send("PUT", objectPath(fileName), Collections.emptyMap(), headers,
+                HttpRequest.BodyPublishers.ofFile(source), HttpResponse.BodyHandlers.ofString());
+        check(response, "PUT", fileName);
+        evict(fileName);
+    }
+
+    // 对象存储不能直接修改时间，复制到自身并替换元数据以刷新Last-Modified
+    private void touch(String fileName) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("x-amz-copy-source", "/" + bucket + "/" + SigV4Signer.encode(keyPrefix + fileName, true));
+        headers.put("x-amz-metadata-directive", "REPLACE");
+        headers.put("Content-Type", ImageFormat.contentTypeOf(fileName));
+        headers.put("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+        HttpResponse<String> response = send("PUT", objectPath(fileName), Collections.emptyMap(), headers,
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        check(response, "COPY", fileName);
+    }
+
+    // 存在的对象一直缓存到被删除；不存在的结果只缓存missingTtl，其他实例写入的对象过期后可见
+    @Override
+    public StoredImage stat(String fileName) throws IOException {
+        if (!ImageLayout.isValidFileName(fileName)) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (statCache) {
+            CachedStat cached = statCache.get(fileName);
+            if (cached != null && (cached.image != null || now < cached.expiresAt)) {
+                return cached.image;
+            }
+        }
+        StoredImage image = head(fileName);
+        synchronized (statCache) {
+            statCache.put(fileName, new CachedStat(image, now + missingTtl.toMillis()));
+        }
+        return image;
+    }
+
+    private StoredImage head(String fileName) throws IOException {
+        if (!ImageLayout.isValidFileName(fileName)) {
+            return null;
+        }
+        HttpResponse<Void> response = send("HEAD", objectPath(fileName), Collections.emptyMap(),
+                Collections.emptyMap(), HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        check(response, "HEAD", fileName);
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return new StoredImage(fileName, size, lastModified, null);
+    }
+
+    @Override
+    public InputStream open(String fileName) throws IOException {
+        HttpResponse<InputStream> response = send("GET", objectPath(fileName), Collections.emptyMap(),
+                Collections.emptyMap(), HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() / 100 == 2) {
+            return response.body();
+        }
+        response.body().close();
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(fileName);
+        }
+        throw new IOException("S3 GET " + fileName + " failed with status " + response.statusCode());
+    }
+
+    @Override
+    public boolean delete(String fileName) throws IOException {
+        HttpResponse<String> response = send("DELETE", objectPath(fileName), Collections.emptyMap(),
+                Collections.emptyMap(), HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        evict(fileName);
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        check(response, "DELETE", fileName);
+        return true;
+    }
+
+    private void evict(String fileName) {
+        synchronized (statCache) {
+            statCache.remove(fileName);
+        }
+    }
+
+    // 分页列出keyPrefix下的对象（ListObjectsV2），逐页流式解析响应
+    @Override
+    public void forEach(Visitor visitor) throws IOException {
+        String continuationToken = null;
+        do {
+            Map<String, String> query = new HashMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", keyPrefix);
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            HttpResponse<InputStream> response = send("GET", "/" + bucket, query, Collections.emptyMap(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    throw new IOException("S3 list " + bucket + " failed with status " + response.statusCode());
+                }
+                ListPage page = parseListPage(body, visitor);
+                continuationToken = page.stopped ? null : page.nextContinuationToken;
+            }
+        } while (continuationToken != null);
+    }
+
+    // 以有效期的一半为时间窗口对齐签名时间，返回的地址在窗口结束后仍至少有效半个有效期
+    @Override
+    public URI directUrl(String fileName) {
+        long windowSeconds = Math.max(1, presignTtl.getSeconds() / 2);
+        long now = Instant.now().getEpochSecond();
+        Instant signedAt = Instant.ofEpochSecond(now - now % windowSeconds);
+        String path = objectPath(fileName);
+        String query = signer.presign("GET", path, host, signedAt, presignTtl);
+        return URI.create(endpointUri + path + "?" + query);
+    }
+
+    @Override
+    public Duration directUrlLifetime() {
+        return presignTtl.minusSeconds(Math.max(1, presignTtl.getSeconds() / 2));
+    }
+
+    private String objectPath(String fileName) {
+        return "/" + bucket + "/" + SigV4Signer.encode(keyPrefix + fileName, true);
+    }
+
+    // 签名并发送请求；path为已编码的路径，query为未编码的查询参数
+    private <T> HttpResponse<T> send(String method, String path, Map<String, String> query, Map<String, String> headers,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        Instant now = Instant.now();
+        String canonicalQuery = SigV4Signer.canonicalQuery(query);
+        Map<String, String> signedHeaders = new HashMap<>();
+        signedHeaders.put("host", host);
+        signedHeaders.put("x-amz-date", SigV4Signer.amzDate(now));
+        signedHeaders.put("x-amz-content-sha256", SigV4Signer.UNSIGNED_PAYLOAD);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().startsWith("x-amz-")) {
+                signedHeaders.put(header.getKey(), header.getValue());
+            }
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                        URI.create(endpointUri + path + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery)))
+                .timeout(timeout)
+                .method(method, body)
+                .header("Authorization", signer.authorization(method, path, canonicalQuery, signedHeaders,
+                        SigV4Signer.UNSIGNED_PAYLOAD, now));
+        for (Map.Entry<String, String> header : signedHeaders.entrySet()) {
+            if (!"host".equals(header.getKey())) {
+                request.header(header.getKey(), header.getValue());
+            }
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (!header.getKey().startsWith("x-amz-")) {
+                request.header(header.getKey(), header.getValue());
+            }
+        }
+        HttpRequest built = request.build();
+        try {
+            try {
+                return httpClient.send(built, handler);
+            } catch (HttpTimeoutException | InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                // 连接池中的空闲连接可能已被对象存储关闭，这里的请求都是幂等的，换一个连接重试一次
+                return httpClient.send(built, handler);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S3 " + method + " " + path + " interrupted");
+        }
+    }
+
+    private static void check(HttpResponse<?> response, String operation, String fileName) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            Object body = response.body();
+            throw new IOException("S3 " + operation + " " + fileName + " failed with status " + response.statusCode()
+                    + (body instanceof String ? ": " + body : ""));
+        }
+    }
+
+    // 解析一页列表结果，把keyPrefix下的每个对象交给visitor
+    private ListPage parseListPage(InputStream body, Visitor visitor) throws IOException {
+        ListPage page = new ListPage();
+        try {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(body, StandardCharsets.UTF_8.name());
+            try {
+                String key = null;
+                long size = 0;
+                long lastModified = 0;
+                boolean truncated = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "Key":
+                                key = reader.getElementText();
+                                break;
+                            case "Size":
+                                size = Long.parseLong(reader.getElementText().trim());
+                                break;
+                            case "LastModified":
+                                lastModified = Instant.parse(reader.getElementText().trim()).toEpochMilli();
+                                break;
+                            case "IsTruncated":
+                                truncated = Boolean.parseBoolean(reader.getElementText().trim());
+                                break;
+                            case "NextContinuationToken":
+                                page.nextContinuationToken = reader.getElementText();
+                                break;
+                            default:
+                                break;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && "Contents".equals(reader.getLocalName())) {
+                        if (key != null && key.startsWith(keyPrefix)) {
+                            String fileName = key.substring(keyPrefix.length());
+                            if (ImageLayout.isValidFileName(fileName)
+                                    && !visitor.visit(new StoredImage(fileName, size, lastModified, null))) {
+                                page.stopped = true;
+                                return page;
+                            }
+                        }
+                        key = null;
+                    }
+                }
+                if (!truncated) {
+                    page.nextContinuationToken = null;
+                }
+                return page;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed S3 list response", e);
+        }
+    }
+
+    private static final class ListPage {
+
+        private String nextContinuationToken;
+
+        private boolean stopped;
+    }
+
+    // image为null表示对象不存在，此时expiresAt之后需要重新查询
+    private static final class CachedStat {
+
+        private final StoredImage image;
+
+        private final long expiresAt;
+
+        private CachedStat(StoredImage image, long expiresAt) {
+            this.image = image;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.shop.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * AWS Signature Version 4签名
+ * 对象存储请求按规范化请求计算签名，支持Authorization请求头和预签名地址（查询参数）两种方式；
+ * 请求体不参与签名（UNSIGNED-PAYLOAD），上传时无需先完整读取文件计算摘要
+ */
+public final class SigV4Signer {
+
+    public static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final String region;
+
+    private final String service;
+
+    // 签名密钥只与日期有关，同一天内复用
+    private volatile SigningKey cachedKey;
+
+    public SigV4Signer(String accessKey, String secretKey, String region, String service) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+        this.service = service;
+    }
+
+    public static String amzDate(Instant time) {
+        return AMZ_DATE.format(time);
+    }
+
+    // Authorization请求头；headers为参与签名的请求头（名称小写），必须包含host和x-amz-date
+    public String authorization(String method, String canonicalUri, String canonicalQuery,
+                                Map<String, String> headers, String payloadHash, Instant time) {
+        Map<String, String> sorted = new TreeMap<>(headers);
+        StringBuilder canonicalHeaders = new StringBuilder();
+        StringJoiner signedHeaders = new StringJoiner(";");
+        for (Map.Entry<String, String> header : sorted.entrySet()) {
+            canonicalHeaders.append(header.getKey()).append(':').append(header.getValue().trim()).append('\n');
+            signedHeaders.add(header.getKey());
+        }
+        String canonicalRequest = method + '\n' + canonicalUri + '\n' + canonicalQuery + '\n'
+                + canonicalHeaders + '\n' + signedHeaders + '\n' + payloadHash;
+        return ALGORITHM + " Credential=" + accessKey + "/" + scope(time)
+                + ", SignedHeaders=" + signedHeaders
+                + ", Signature=" + signature(canonicalRequest, time);
+    }
+
+    // 预签名地址的查询参数（已编码，包含X-Amz-Signature），只对host请求头签名
+    public String presign(String method, String canonicalUri, String host, Instant time, Duration expires) {
+        Map<String, String> params = new TreeMap<>();
+        params.put("X-Amz-Algorithm", ALGORITHM);
+        params.put("X-Amz-Credential", accessKey + "/" + scope(time));
+        params.put("X-Amz-Date", amzDate(time));
+        params.put("X-Amz-Expires", String.valueOf(expires.getSeconds()));
+        params.put("X-Amz-SignedHeaders", "host");
+        String query = canonicalQuery(params);
+        String canonicalRequest = method + '\n' + canonicalUri + '\n' + query + '\n'
+                + "host:" + host + '\n' + '\n' + "host" + '\n' + UNSIGNED_PAYLOAD;
+        return query + "&X-Amz-Signature=" + signature(canonicalRequest, time);
+    }
+
+    // 规范化查询串：参数名和值分别编码后按名称排序
+    public static String canonicalQuery(Map<String, String> params) {
+        Map<String, String> encoded = new TreeMap<>();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            encoded.put(encode(param.getKey(), false), encode(param.getValue(), false));
+        }
+        StringJoiner query = new StringJoiner("&");
+        for (Map.Entry<String, String> param : encoded.entrySet()) {
+            query.add(param.getKey() + "=" + param.getValue());
+        }
+        return query.toString();
+    }
+
+    // 按SigV4规则编码：只保留A-Z a-z 0-9 - _ . ~，路径中的/可保留
+    public static String encode(String value, boolean keepSlash) {
+        StringBuilder encoded = new StringBuilder(value.length() + 16);
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (keepSlash && c == '/')) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(HEX[c >> 4])).append(Character.toUpperCase(HEX[c & 0xF]));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private String scope(Instant time) {
+        return amzDate(time).substring(0, 8) + "/" + region + "/" + service + "/aws4_request";
+    }
+
+    private String signature(String canonicalRequest, Instant time) {
+        String stringToSign = ALGORITHM + '\n' + amzDate(time) + '\n' + scope(time) + '\n'
+                + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        return hex(hmac(signingKey(amzDate(time).substring(0, 8)), stringToSign));
+    }
+
+    private byte[] signingKey(String date) {
+        SigningKey key = cachedKey;
+        if (key == null || !key.date.equals(date)) {
+            byte[] dateKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+            byte[] regionKey = hmac(dateKey, region);
+            byte[] serviceKey = hmac(regionKey, service);
+            key = new SigningKey(date, hmac(serviceKey, "aws4_request"));
+            cachedKey = key;
+        }
+        return key.key;
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static final class SigningKey {
+
+        private final String date;
+
+        private final byte[] key;
+
+        private SigningKey(String date, byte[] key) {
+            this.date = date;
+            this.key = key;
+        }
+    }
+}
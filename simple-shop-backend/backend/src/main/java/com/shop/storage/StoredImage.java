@@ -0,0 +1,41 @@
+package com.shop.storage;
+
+import java.nio.file.Path;
+
+/**
+ * 已保存的图片文件信息
+ */
+public final class StoredImage {
+
+    private final String fileName;
+
+    private final long size;
+
+    private final long lastModified;
+
+    // 本地存储时为文件路径，可直接用sendfile写出；对象存储时为null
+    private final Path path;
+
+    public StoredImage(String fileName, long size, long lastModified, Path path) {
+        this.fileName = fileName;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.path = path;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
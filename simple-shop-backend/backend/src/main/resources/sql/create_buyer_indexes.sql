@@ -0,0 +1,15 @@
+-- 购买意向表索引脚本
+
+-- 1. 客户订单历史：按customer_id过滤，(created_at, id)键集翻页
+SET @index_exists = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE()
+                   AND TABLE_NAME = 'buyers'
+                   AND INDEX_NAME = 'idx_buyers_customer_created_at_id');
+
+SET @sql = IF(@index_exists = 0,
+             'CREATE INDEX idx_buyers_customer_created_at_id ON buyers(customer_id, created_at, id)',
+             'SELECT ''Index already exists''');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,15 @@
+-- 商品表索引脚本
+
+-- 1. 键集分页索引：商品列表按(created_at, id)倒序翻页
+SET @index_exists = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE()
+                   AND TABLE_NAME = 'products'
+                   AND INDEX_NAME = 'idx_products_created_at_id');
+
+SET @sql = IF(@index_exists = 0,
+             'CREATE INDEX idx_products_created_at_id ON products(created_at, id)',
+             'SELECT ''Index already exists''');
+
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
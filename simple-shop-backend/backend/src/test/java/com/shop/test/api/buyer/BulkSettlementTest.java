@@ -0,0 +1,141 @@
+package com.shop.test.api.buyer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.dto.SettlementRequestDTO;
+import com.shop.model.Buyer;
+import com.shop.model.Product;
+import com.shop.repository.BuyerRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class BulkSettlementTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    // 测试用例 B-011：批量结算返回逐条结果并更新商品状态
+    @Test
+    public void testSettleBatch() throws Exception {
+        // 输入/前置条件：两个已预订商品的意向，以及一个已完成的意向
+        Buyer sold = createIntent("成交商品", false);
+        Buyer failed = createIntent("未成交商品", false);
+        Buyer completed = createIntent("已结算商品", true);
+
+        SettlementRequestDTO[] requests = {
+                new SettlementRequestDTO(sold.getId(), true),
+                new SettlementRequestDTO(failed.getId(), false),
+                new SettlementRequestDTO(completed.getId(), true),
+                new SettlementRequestDTO(sold.getId(), false),
+                new SettlementRequestDTO(-1L, true)
+        };
+
+        // 执行批量结算
+        mockMvc.perform(put("/api/buyers/complete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(requests))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.settled").value(2))
+                .andExpect(jsonPath("$.data[0].status").value("settled"))
+                .andExpect(jsonPath("$.data[1].status").value("settled"))
+                .andExpect(jsonPath("$.data[2].status").value("already_completed"))
+                .andExpect(jsonPath("$.data[3].status").value("duplicate"))
+                .andExpect(jsonPath("$.data[4].status").value("not_found"));
+
+        // 预期结果：成交商品下架，未成交商品解冻，已结算的意向不再改动商品
+        assertTrue(buyerRepository.findById(sold.getId()).get().isCompleted());
+        assertTrue(buyerRepository.findById(failed.getId()).get().isCompleted());
+        Product soldProduct = productRepository.findById(sold.getProduct().getId()).get();
+        assertFalse(soldProduct.isActive(), "成交商品应下架");
+        Product failedProduct = productRepository.findById(failed.getProduct().getId()).get();
+        assertTrue(failedProduct.isActive());
+        assertFalse(failedProduct.isFrozen(), "未成交商品应解冻");
+        assertTrue(productRepository.findById(completed.getProduct().getId()).get().isFrozen());
+    }
+
+    // 测试用例 B-012：空列表返回400
+    @Test
+    public void testSettleEmptyBatch() throws Exception {
+        mockMvc.perform(put("/api/buyers/complete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    // 测试用例 B-013：单条结算与批量结算使用同一条件更新，同一意向只有先到的一次修改商品状态
+    @Test
+    public void testSingleAndBatchSettleOnce() throws Exception {
+        // 批量成交后再单条标记失败：商品保持下架和冻结，不会被解冻
+        Buyer batchFirst = createIntent("先批量结算商品", false);
+        mockMvc.perform(put("/api/buyers/complete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(
+                                new SettlementRequestDTO(batchFirst.getId(), true)))))
+                .andExpect(jsonPath("$.data[0].status").value("settled"));
+        mockMvc.perform(put("/api/buyers/" + batchFirst.getId() + "/complete").param("success", "false"))
+                .andExpect(status().isOk());
+        Product product = productRepository.findById(batchFirst.getProduct().getId()).get();
+        assertFalse(product.isActive());
+        assertTrue(product.isFrozen(), "已结算的意向不应再解冻商品");
+
+        // 单条标记失败后再批量成交：返回已结算，商品保持上架
+        Buyer singleFirst = createIntent("先单条结算商品", false);
+        mockMvc.perform(put("/api/buyers/" + singleFirst.getId() + "/complete").param("success", "false"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/buyers/complete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(
+                                new SettlementRequestDTO(singleFirst.getId(), true)))))
+                .andExpect(jsonPath("$.settled").value(0))
+                .andExpect(jsonPath("$.data[0].status").value("already_completed"));
+        product = productRepository.findById(singleFirst.getProduct().getId()).get();
+        assertTrue(product.isActive(), "已结算的意向不应再下架商品");
+        assertFalse(product.isFrozen());
+        assertTrue(buyerRepository.findById(singleFirst.getId()).get().isCompleted());
+    }
+
+    private Buyer createIntent(String productName, boolean completed) {
+        Product product = new Product();
+        product.setName(productName);
+        product.setPrice(10.0);
+        product = productService.createProduct(product);
+        productService.reserveProduct(product.getId());
+        Buyer buyer = new Buyer();
+        buyer.setName("买家");
+        buyer.setProduct(product);
+        buyer = buyerRepository.save(buyer);
+        // 新建时总是未完成，已完成的意向需要再更新一次
+        if (completed) {
+            buyer.setCompleted(true);
+            buyer = buyerRepository.save(buyer);
+        }
+        return buyer;
+    }
+}
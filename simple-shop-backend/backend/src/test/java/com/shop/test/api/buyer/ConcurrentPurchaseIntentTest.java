@@ -0,0 +1,132 @@
+package com.shop.test.api.buyer;
+
+import com.shop.model.Buyer;
+import com.shop.model.Product;
+import com.shop.repository.BuyerRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.service.BuyerService;
+import com.shop.service.CustomerService;
+import com.shop.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 同一商品的并发购买意向：条件UPDATE保证只有一个买家预订成功
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class ConcurrentPurchaseIntentTest {
+
+    private static final int INTENT_COUNT = 2000;
+
+    private static final int THREAD_COUNT = 64;
+
+    @Autowired
+    private BuyerService buyerService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 测试用例 B-010：并发提交购买意向，只有一个成功，其余返回已被预订
+    @Test
+    public void testOnlyOneIntentWins() throws Exception {
+        // 输入/前置条件：一个上架商品和一个已注册的买家
+        customerService.register("concurrent_buyer", "123456", "13800000000", "测试地址");
+        Long customerId = customerService.findByUsername("concurrent_buyer").get().getId();
+        Product product = new Product();
+        product.setName("并发测试商品");
+        product.setPrice(88.0);
+        Long productId = productService.createProduct(product).getId();
+
+        // 执行：所有线程等待同一信号后同时提交
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger reserved = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < INTENT_COUNT; i++) {
+            final int index = i;
+            futures.add(executor.submit(() -> {
+                Buyer buyer = new Buyer();
+                buyer.setName("买家" + index);
+                buyer.setPhone("13900000000");
+                buyer.setAddress("测试地址");
+                start.await();
+                try {
+                    buyerService.createBuyer(buyer, productId, customerId);
+                    winners.incrementAndGet();
+                } catch (RuntimeException e) {
+                    assertTrue(e.getMessage().contains("已被预订"), "失败原因应为已被预订：" + e.getMessage());
+                    reserved.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // 预期结果：恰好一个买家成功，商品已冻结且只更新了一次
+        assertEquals(1, winners.get(), "只能有一个购买意向成功");
+        assertEquals(INTENT_COUNT - 1, reserved.get());
+        Product stored = productRepository.findById(productId).orElseThrow(IllegalStateException::new);
+        assertTrue(stored.isFrozen(), "商品应被冻结");
+        assertEquals(1L, stored.getVersion(), "商品只应被预订一次");
+        assertEquals(1, buyerRepository.findByProductOrderByCreatedAtDesc(stored).size());
+    }
+
+    // 测试用例 B-011：卖家下架读取商品后、提交前商品被买家预订，提交时因版本号变化失败，不覆盖预订
+    @Test
+    public void testSellerUpdateLosesToReservation() throws Exception {
+        // 输入/前置条件：一个上架商品
+        Product product = new Product();
+        product.setName("版本冲突测试商品");
+        product.setPrice(66.0);
+        Long productId = productService.createProduct(product).getId();
+
+        // 执行：下架在外层事务中读取并修改商品，提交前由另一个线程预订
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(productService.deactivateProduct(productId));
+            try {
+                assertTrue(executor.submit(() -> productService.reserveProduct(productId)).get(1, TimeUnit.MINUTES));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        executor.shutdown();
+
+        // 预期结果：预订生效，下架未写入
+        Product stored = productRepository.findById(productId).orElseThrow(IllegalStateException::new);
+        assertTrue(stored.isFrozen(), "商品应被预订冻结");
+        assertTrue(stored.isActive(), "下架不应覆盖预订");
+        assertEquals(1L, stored.getVersion());
+    }
+}
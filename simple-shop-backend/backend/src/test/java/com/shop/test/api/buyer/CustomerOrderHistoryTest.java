@@ -0,0 +1,167 @@
+package com.shop.test.api.buyer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.model.Buyer;
+import com.shop.model.Product;
+import com.shop.repository.BuyerRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.service.CustomerService;
+import com.shop.session.SessionPrincipal;
+import com.shop.session.SessionTokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class CustomerOrderHistoryTest {
+
+    private static final String USERNAME = "order_history_buyer";
+
+    private static final int ORDER_COUNT = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private SessionTokenStore sessionTokenStore;
+
+    private String authorization;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        buyerRepository.deleteAll();
+        customerService.register(USERNAME, "123456", "13800000000", "测试地址");
+        Long customerId = customerService.findByUsername(USERNAME).get().getId();
+        authorization = "Bearer " + sessionTokenStore.issue(SessionPrincipal.Role.CUSTOMER, customerId, USERNAME);
+        Product product = new Product();
+        product.setName("订单测试商品");
+        product.setPrice(12.5);
+        product = productRepository.save(product);
+        // 批量插入，多条订单的创建时间可能相同，翻页依赖id区分先后
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Buyer buyer = new Buyer();
+            buyer.setName("买家" + i);
+            buyer.setPhone("13900000000");
+            buyer.setAddress("地址" + i);
+            buyer.setProduct(product);
+            buyer.setCustomerId(customerId);
+            buyerRepository.save(buyer);
+        }
+    }
+
+    // 测试用例 O-001：键集分页遍历全部订单，不重复不遗漏
+    @Test
+    public void testKeysetPagination() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = "/api/orders?size=10" + (cursor == null ? "" : "&cursor=" + cursor);
+            String body = mockMvc.perform(get(url).header("Authorization", authorization))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            JsonNode page = objectMapper.readTree(body);
+            for (JsonNode row : page.get("items")) {
+                ids.add(row.get("id").asLong());
+                assertEquals("订单测试商品", row.get("product_name").asText());
+                assertEquals("pending", row.get("status").asText());
+                assertFalse(row.get("is_completed").asBoolean());
+            }
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        // 预期结果：3页共25条，按时间倒序、id倒序
+        assertEquals(3, pages);
+        assertEquals(ORDER_COUNT, ids.size());
+        assertEquals(ORDER_COUNT, ids.stream().distinct().count(), "翻页结果不应重复");
+        List<Long> all = new ArrayList<>();
+        customerService.getCustomerOrders(
+                customerService.findByUsername(USERNAME).get().getId(), null, "desc")
+                .forEach(row -> all.add(row.getId()));
+        assertEquals(all, ids, "分页结果应与全量查询顺序一致");
+    }
+
+    // 测试用例 O-002：流式接口输出完整的JSON数组
+    @Test
+    public void testStreamMode() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/orders/stream").header("Authorization", authorization))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        JsonNode rows = objectMapper.readTree(body);
+        assertTrue(rows.isArray());
+        assertEquals(ORDER_COUNT, rows.size());
+        assertTrue(rows.get(0).has("buyer_name"), "字段名应与原接口一致");
+        assertTrue(rows.get(0).has("created_at"));
+    }
+
+    // 测试用例 O-003：非法游标返回400
+    @Test
+    public void testInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/orders?cursor=bad").header("Authorization", authorization))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    // 测试用例 O-004：部分历史订单的创建时间为NULL，正序和倒序翻页都能完整遍历
+    @Test
+    public void testKeysetPaginationWithNullCreatedAt() throws Exception {
+        jdbcTemplate.update("UPDATE buyers SET created_at = NULL WHERE MOD(id, 3) = 0");
+        Long customerId = customerService.findByUsername(USERNAME).get().getId();
+
+        for (String sort : new String[]{"desc", "asc"}) {
+            List<Long> ids = new ArrayList<>();
+            String cursor = null;
+            do {
+                String url = "/api/orders?size=4&sort=" + sort + (cursor == null ? "" : "&cursor=" + cursor);
+                String body = mockMvc.perform(get(url).header("Authorization", authorization))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+                JsonNode page = objectMapper.readTree(body);
+                page.get("items").forEach(row -> ids.add(row.get("id").asLong()));
+                cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            } while (cursor != null);
+
+            // 预期结果：与全量查询的顺序一致，不重复不遗漏
+            List<Long> all = new ArrayList<>();
+            customerService.getCustomerOrders(customerId, null, sort).forEach(row -> all.add(row.getId()));
+            assertEquals(ORDER_COUNT, all.size());
+            assertEquals(all, ids, sort + " paging should match the full query");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.shop.test.api.buyer;
+
+import com.shop.security.PasswordWorkExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// 密码线程池只有1个线程、排队1个任务，便于构造排满的情况
+@SpringBootTest(properties = {"security.password.threads=1", "security.password.queue-capacity=1"})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class PasswordHashingTest {
+
+    private static final String USERNAME = "legacy_buyer";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordWorkExecutor passwordWorkExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM customers WHERE username = ?", USERNAME);
+    }
+
+    // 测试用例 PWD-002：旧版本保存的明文密码登录成功后替换为哈希，注册直接保存哈希，客户列表不返回密码哈希
+    @Test
+    public void testPlaintextUpgradedOnLogin() throws Exception {
+        jdbcTemplate.update("INSERT INTO customers (username, password, phone, created_at) VALUES (?, ?, ?, ?)",
+                USERNAME, "123456", "13800000000", Timestamp.valueOf(LocalDateTime.now()));
+
+        login("wrong1", false);
+        assertEquals("123456", storedPassword());
+        login("123456", true);
+        String upgraded = storedPassword();
+        assertTrue(upgraded.startsWith("pbkdf2-sha256$1000$"));
+        login("123456", true);
+        assertEquals(upgraded, storedPassword());
+        login("wrong1", false);
+
+        jdbcTemplate.update("DELETE FROM customers WHERE username = ?", USERNAME);
+        mockMvc.perform(post("/api/register").param("username", USERNAME).param("password", "abcdef")
+                        .param("phone", "13800000001").param("defaultLocation", "测试地址"))
+                .andExpect(jsonPath("$.success").value(true));
+        assertTrue(storedPassword().startsWith("pbkdf2-sha256$"));
+        login("abcdef", true);
+
+        mockMvc.perform(get("/api/customers").param("page", "-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").exists())
+                .andExpect(jsonPath("$[*].password").isEmpty());
+    }
+
+    // 测试用例 PWD-003：密码线程池排满时登录立即返回429和Retry-After，空出后恢复
+    @Test
+    public void testSaturatedPoolReturns429() throws Exception {
+        mockMvc.perform(post("/api/register").param("username", USERNAME).param("password", "abcdef")
+                        .param("phone", "13800000001").param("defaultLocation", "测试地址"))
+                .andExpect(jsonPath("$.success").value(true));
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> busy = CompletableFuture.supplyAsync(() -> passwordWorkExecutor.execute(() -> {
+            running.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> queued = CompletableFuture.supplyAsync(() -> passwordWorkExecutor.execute(() -> true));
+        try {
+            Thread.sleep(100);
+            mockMvc.perform(post("/api/login").param("username", USERNAME).param("password", "abcdef"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.success").value(false));
+            mockMvc.perform(post("/api/seller/login").param("username", "seller").param("password", "password"))
+                    .andExpect(status().isTooManyRequests());
+        } finally {
+            release.countDown();
+        }
+        busy.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        login("abcdef", true);
+    }
+
+    private void login(String password, boolean success) throws Exception {
+        mockMvc.perform(post("/api/login").param("username", USERNAME).param("password", password))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(success));
+    }
+
+    private String storedPassword() {
+        return jdbcTemplate.queryForObject("SELECT password FROM customers WHERE username = ?", String.class, USERNAME);
+    }
+}
@@ -0,0 +1,144 @@
+package com.shop.test.api.buyer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.model.Buyer;
+import com.shop.model.Product;
+import com.shop.repository.BuyerRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.service.CustomerService;
+import com.shop.session.SessionPrincipal;
+import com.shop.session.SessionTokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class ResponseCompressionTest {
+
+    private static final String USERNAME = "compression_buyer";
+
+    private static final int ORDER_COUNT = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private SessionTokenStore sessionTokenStore;
+
+    private String authorization;
+
+    @BeforeEach
+    public void setUp() {
+        buyerRepository.deleteAll();
+        if (!customerService.findByUsername(USERNAME).isPresent()) {
+            customerService.register(USERNAME, "123456", "13800000000", "测试地址");
+        }
+        Long customerId = customerService.findByUsername(USERNAME).get().getId();
+        authorization = "Bearer " + sessionTokenStore.issue(SessionPrincipal.Role.CUSTOMER, customerId, USERNAME);
+        Product product = new Product();
+        product.setName("压缩测试商品");
+        product.setPrice(12.5);
+        product = productRepository.save(product);
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Buyer buyer = new Buyer();
+            buyer.setName("买家" + i);
+            buyer.setPhone("13900000000");
+            buyer.setAddress("地址" + i);
+            buyer.setProduct(product);
+            buyer.setCustomerId(customerId);
+            buyerRepository.save(buyer);
+        }
+    }
+
+    // 测试用例 CMP-001：支持gzip的请求得到压缩后的响应，解压后与未压缩响应一致
+    @Test
+    public void testCompressedJson() throws Exception {
+        byte[] plain = mockMvc.perform(get("/api/orders").header("Authorization", authorization))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/orders").header("Authorization", authorization)
+                        .header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andExpect(header().doesNotExist("Content-Length"))
+                .andReturn().getResponse();
+        byte[] compressed = response.getContentAsByteArray();
+        assertArrayEquals(plain, gunzip(compressed));
+        assertTrue(compressed.length * 3 < plain.length, "订单列表的重复字段应有较高压缩率");
+
+        // 显式拒绝gzip时不压缩
+        mockMvc.perform(get("/api/orders").header("Authorization", authorization).header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    // 测试用例 CMP-002：不足min-size的响应原样返回并带Content-Length
+    @Test
+    public void testSmallResponseNotCompressed() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/orders?size=1").header("Authorization", authorization)
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andReturn().getResponse();
+        byte[] body = response.getContentAsByteArray();
+        assertTrue(body.length < 1024);
+        assertEquals(body.length, response.getContentLength());
+        assertEquals(1, objectMapper.readTree(body).get("items").size());
+    }
+
+    // 测试用例 CMP-003：流式接口边写边压缩，异步完成后写出完整的gzip尾
+    @Test
+    public void testStreamCompressed() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/orders/stream").header("Authorization", authorization)
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        JsonNode rows = objectMapper.readTree(new String(gunzip(response.getContentAsByteArray()),
+                StandardCharsets.UTF_8));
+        assertEquals(ORDER_COUNT, rows.size());
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
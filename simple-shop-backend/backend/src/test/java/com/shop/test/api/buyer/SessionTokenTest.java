@@ -0,0 +1,141 @@
+package com.shop.test.api.buyer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.model.Product;
+import com.shop.repository.BuyerRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class SessionTokenTest {
+
+    private static final String USERNAME = "token_buyer";
+
+    private static final String PURCHASE_JSON = "{\"name\":\"张三\",\"phone\":\"13900000000\",\"address\":\"测试地址\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @BeforeEach
+    public void setUp() {
+        buyerRepository.deleteAll();
+        if (!customerService.findByUsername(USERNAME).isPresent()) {
+            customerService.register(USERNAME, "123456", "13800000000", "测试地址");
+        }
+    }
+
+    // 测试用例 TOK-001：客户登录返回令牌，携带令牌下单和查询订单；只带X-Username的请求返回401
+    @Test
+    public void testCustomerTokenFlow() throws Exception {
+        MvcResult login = mockMvc.perform(post("/api/login").param("username", USERNAME).param("password", "123456"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andReturn();
+        JsonNode body = objectMapper.readTree(login.getResponse().getContentAsString());
+        String token = body.get("token").asText();
+        assertEquals("Bearer " + token, login.getResponse().getHeader("Authorization"));
+        assertEquals(customerService.findByUsername(USERNAME).get().getId().longValue(), body.get("customerId").asLong());
+
+        mockMvc.perform(post("/api/buyers/product/" + newProduct().getId()).header("X-Username", USERNAME)
+                        .contentType(MediaType.APPLICATION_JSON).content(PURCHASE_JSON))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/orders").header("X-Username", USERNAME))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/orders/stream").header("X-Username", USERNAME))
+                .andExpect(status().isUnauthorized());
+
+        purchase(post("/api/buyers/product/" + newProduct().getId()).header("Authorization", "Bearer " + token));
+        purchase(post("/api/buyers/product/" + newProduct().getId()).header("Authorization", "Bearer " + token));
+        mockMvc.perform(get("/api/orders").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    // 测试用例 TOK-002：篡改或注销后的令牌不带身份，需要登录的接口返回401，登录和商品浏览等公开接口不受影响
+    @Test
+    public void testInvalidAndRevokedToken() throws Exception {
+        String token = objectMapper.readTree(mockMvc.perform(post("/api/login")
+                        .param("username", USERNAME).param("password", "123456"))
+                .andReturn().getResponse().getContentAsString()).get("token").asText();
+        String tampered = token.substring(0, token.indexOf('.') - 1) + (token.charAt(token.indexOf('.') - 1) == 'A' ? 'B' : 'A')
+                + token.substring(token.indexOf('.'));
+
+        mockMvc.perform(get("/api/orders").header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.success").value(false));
+        mockMvc.perform(get("/api/orders").header("Authorization", "Bearer garbage"))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/api/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/orders").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/orders"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("请先登录再查看订单"));
+
+        // 浏览器里残留的旧令牌不影响重新登录和浏览商品
+        mockMvc.perform(get("/api/products/page").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/login").header("Authorization", "Bearer " + token)
+                        .param("username", USERNAME).param("password", "123456"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+    }
+
+    // 测试用例 TOK-003：卖家登录在响应头返回令牌，响应体不变；登录失败不返回令牌
+    @Test
+    public void testSellerToken() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/seller/login").param("username", "seller").param("password", "password"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"))
+                .andReturn();
+        assertTrue(result.getResponse().getHeader("Authorization").startsWith("Bearer "));
+        mockMvc.perform(post("/api/seller/login").param("username", "seller").param("password", "wrong"))
+                .andExpect(content().string("false"))
+                .andExpect(header().doesNotExist("Authorization"));
+    }
+
+    private void purchase(MockHttpServletRequestBuilder request) throws Exception {
+        mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON).content(PURCHASE_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+    }
+
+    private Product newProduct() {
+        Product product = new Product();
+        product.setName("令牌测试商品");
+        product.setPrice(30);
+        product.setActive(true);
+        return productRepository.save(product);
+    }
+}
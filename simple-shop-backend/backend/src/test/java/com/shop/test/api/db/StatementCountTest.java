@@ -0,0 +1,150 @@
+package com.shop.test.api.db;
+
+import com.shop.model.Buyer;
+import com.shop.model.Product;
+import com.shop.model.SubCategory;
+import com.shop.repository.BuyerRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.repository.SubCategoryRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 各查询接口执行的SQL语句数，防止关联加载退化为N+1
+ * 使用H2内存数据库和Hibernate统计，不依赖本地MySQL
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class StatementCountTest {
+
+    private static final int PRODUCTS_PER_SUB_CATEGORY = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SubCategoryRepository subCategoryRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    private Statistics statistics;
+
+    private SubCategory phone;
+
+    private Product firstProduct;
+
+    @BeforeEach
+    public void setUp() {
+        buyerRepository.deleteAll();
+        productRepository.deleteAll();
+
+        // 分类由DataInitializerService初始化，取同一一级分类下的两个二级分类
+        List<SubCategory> subCategories = subCategoryRepository.findAll();
+        phone = subCategories.get(0);
+        SubCategory computer = subCategories.get(1);
+        LocalDateTime now = LocalDateTime.now();
+        for (SubCategory subCategory : new SubCategory[]{phone, computer}) {
+            for (int i = 0; i < PRODUCTS_PER_SUB_CATEGORY; i++) {
+                Product product = new Product();
+                product.setName(subCategory.getName() + i);
+                product.setPrice(100 + i);
+                product.setActive(true);
+                product.setCreatedAt(now.minusMinutes(i));
+                product.setSubCategory(subCategory);
+                product = productRepository.save(product);
+                if (firstProduct == null) {
+                    firstProduct = product;
+                }
+                Buyer buyer = new Buyer();
+                buyer.setName("买家" + i);
+                buyer.setProduct(product);
+                buyer.setCreatedAt(now);
+                buyerRepository.save(buyer);
+            }
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    // 测试用例 SQL-001：全部商品列表只执行一条SQL
+    @Test
+    public void testProductListing() throws Exception {
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PRODUCTS_PER_SUB_CATEGORY * 2))
+                .andExpect(jsonPath("$[0].subCategory.categoryId").isNumber());
+        assertStatementCount(1);
+    }
+
+    // 测试用例 SQL-002：商品详情只执行一条SQL
+    @Test
+    public void testProductDetail() throws Exception {
+        mockMvc.perform(get("/api/products/" + firstProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subCategory.name").value(phone.getName()));
+        assertStatementCount(1);
+    }
+
+    // 测试用例 SQL-003：按一级分类查询商品只执行一条SQL
+    @Test
+    public void testProductsByCategory() throws Exception {
+        mockMvc.perform(get("/api/products/category/" + phone.getCategory().getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PRODUCTS_PER_SUB_CATEGORY * 2));
+        assertStatementCount(1);
+    }
+
+    // 测试用例 SQL-004：按二级分类查询商品（校验二级分类 + 查询商品）
+    @Test
+    public void testProductsBySubCategory() throws Exception {
+        mockMvc.perform(get("/api/products/sub-category/" + phone.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PRODUCTS_PER_SUB_CATEGORY));
+        assertStatementCount(2);
+    }
+
+    // 测试用例 SQL-005：卖家后台购买意向列表只执行一条SQL
+    @Test
+    public void testBuyerListing() throws Exception {
+        mockMvc.perform(get("/api/buyers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PRODUCTS_PER_SUB_CATEGORY * 2))
+                .andExpect(jsonPath("$[0].product.name").isString());
+        assertStatementCount(1);
+    }
+
+    // 测试用例 SQL-006：启用的二级分类列表不加载一级分类
+    @Test
+    public void testActiveSubCategories() throws Exception {
+        mockMvc.perform(get("/api/sub-categories/active"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].categoryId").isNumber());
+        assertStatementCount(1);
+    }
+
+    private void assertStatementCount(long expected) {
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL语句数不符合预期");
+    }
+}
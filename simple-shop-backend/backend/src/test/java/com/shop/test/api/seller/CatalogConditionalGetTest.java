@@ -0,0 +1,112 @@
+package com.shop.test.api.seller;
+
+import com.shop.dto.CategoryDTO;
+import com.shop.model.Product;
+import com.shop.model.SubCategory;
+import com.shop.repository.SubCategoryRepository;
+import com.shop.service.CategoryService;
+import com.shop.service.ProductService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import javax.persistence.EntityManagerFactory;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class CatalogConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private SubCategoryRepository subCategoryRepository;
+
+    // 测试用例 ETAG-001：目录接口返回弱ETag，带相同If-None-Match的请求返回304且不执行SQL
+    @Test
+    public void testNotModifiedWithoutQuery() throws Exception {
+        String etag = fetchEtag("/api/products");
+        assertTrue(etag.startsWith("W/\""));
+        assertEquals(etag, fetchEtag("/api/categories/active"), "同一版本下各目录接口的ETag相同");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (String url : new String[]{"/api/products", "/api/categories/active", "/api/sub-categories/active",
+                "/api/products/category/1", "/api/catalog/tree"}) {
+            mockMvc.perform(get(url).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(content().string(""));
+        }
+        assertEquals(0, statistics.getPrepareStatementCount(), "304响应不应查询数据库");
+
+        // 列表中任一ETag匹配即可，强弱形式都按弱比较
+        mockMvc.perform(get("/api/products").header("If-None-Match", "\"other\", " + etag.substring(2)))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/products").header("If-None-Match", "W/\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag));
+    }
+
+    // 测试用例 ETAG-002：商品写入后ETag变化，旧ETag得到完整响应
+    @Test
+    public void testProductWriteChangesEtag() throws Exception {
+        SubCategory subCategory = subCategoryRepository.findAll().get(0);
+        Product product = new Product();
+        product.setName("条件请求测试商品");
+        product.setPrice(20);
+        product.setSubCategory(subCategory);
+        product = productService.createProduct(product);
+
+        String before = fetchEtag("/api/products");
+        mockMvc.perform(put("/api/products/" + product.getId() + "/freeze").param("freeze", "true")).andExpect(status().isOk());
+        String after = fetchEtag("/api/products");
+        assertNotEquals(before, after);
+        mockMvc.perform(get("/api/products/" + product.getId()).header("If-None-Match", before))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", after))
+                .andExpect(jsonPath("$.frozen").value(true));
+    }
+
+    // 测试用例 ETAG-003：分类写入提交后ETag变化，写接口本身不返回ETag
+    @Test
+    public void testCategoryWriteChangesEtag() throws Exception {
+        String before = fetchEtag("/api/categories/active");
+        CategoryDTO category = categoryService.getActiveCategoryDTOs().get(0);
+        categoryService.updateCategory(category.getId(), category);
+        String after = fetchEtag("/api/categories/active");
+        assertNotEquals(before, after);
+
+        mockMvc.perform(get("/api/sub-categories/active").header("If-None-Match", after))
+                .andExpect(status().isNotModified());
+    }
+
+    private String fetchEtag(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn();
+        String etag = result.getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        return etag;
+    }
+}
@@ -0,0 +1,124 @@
+package com.shop.test.api.seller;
+
+import com.shop.model.ImageFile;
+import com.shop.model.Product;
+import com.shop.repository.ImageFileRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.service.ImageGarbageCollector;
+import com.shop.storage.ImageLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+// 使用单独的上传目录，避免清理到其他测试或仓库中的图片
+@SpringBootTest(properties = {"file.upload-dir=target/gc-test-images", "image.gc.enabled=false"})
+@ActiveProfiles("h2")
+public class ImageGarbageCollectorTest {
+
+    @Autowired
+    private ImageGarbageCollector imageGarbageCollector;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ImageFileRepository imageFileRepository;
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Files.createDirectories(imageLayout.root());
+        try (Stream<Path> files = Files.walk(imageLayout.root())) {
+            files.sorted(Comparator.reverseOrder())
+                    .filter(file -> !file.equals(imageLayout.root()))
+                    .forEach(file -> file.toFile().delete());
+        }
+    }
+
+    // 测试用例 GC-001：只回收超过宽限期且未被引用的原图、缩略图和临时文件，dry-run不删除；分片目录和旧的平铺文件都会被扫描
+    @Test
+    public void testCollectOrphans() throws Exception {
+        Path orphan = file("orphan.jpg", 100, true);
+        Path orphanVariant = file("orphan_w320.jpg", 40, true);
+        Path staleTemp = legacyFile(".upload-123.tmp", 7);
+        Path fresh = file("fresh.png", 10, false);
+        Path cover = file("cover.jpg", 10, true);
+        Path coverVariant = file("cover_w160.jpg", 10, true);
+        Path inline = legacyFile("inline.gif", 10);
+        register("orphan.jpg", 0);
+
+        Product product = new Product();
+        product.setName("清理测试商品");
+        product.setPrice(1.0);
+        product.setImageUrl("/api/files/images/cover.jpg");
+        product.setDescription("<p><img src=\"/api/files/images/inline.gif?w=320\"></p>");
+        productRepository.save(product);
+
+        ImageGarbageCollector.GcReport dryRun = imageGarbageCollector.collect(true);
+        assertEquals(7, dryRun.getScannedFiles());
+        assertEquals(3, dryRun.getReclaimedFiles());
+        assertEquals(147, dryRun.getReclaimedBytes());
+        assertTrue(Files.exists(orphan));
+
+        ImageGarbageCollector.GcReport report = imageGarbageCollector.collect(false);
+        assertEquals(3, report.getReclaimedFiles());
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(orphanVariant));
+        assertFalse(Files.exists(staleTemp));
+        assertFalse(imageFileRepository.existsById("orphan.jpg"));
+        assertTrue(Files.exists(fresh));
+        assertTrue(Files.exists(cover));
+        assertTrue(Files.exists(coverVariant));
+        assertTrue(Files.exists(inline));
+    }
+
+    // 测试用例 GC-002：标记之后才产生的引用通过引用计数复核保留
+    @Test
+    public void testReferenceCountProtectsFile() throws Exception {
+        Path counted = file("counted.png", 10, true);
+        register("counted.png", 1);
+
+        ImageGarbageCollector.GcReport report = imageGarbageCollector.collect(false);
+        assertEquals(0, report.getReclaimedFiles());
+        assertTrue(Files.exists(counted));
+    }
+
+    private Path file(String name, int size, boolean old) throws Exception {
+        Path file = imageLayout.resolve(name);
+        Files.createDirectories(file.getParent());
+        return write(file, size, old);
+    }
+
+    // 分片之前平铺在上传目录下的文件
+    private Path legacyFile(String name, int size) throws Exception {
+        return write(imageLayout.root().resolve(name), size, true);
+    }
+
+    private static Path write(Path file, int size, boolean old) throws Exception {
+        Files.write(file, new byte[size]);
+        if (old) {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        }
+        return file;
+    }
+
+    private void register(String fileName, int refCount) {
+        ImageFile imageFile = new ImageFile();
+        imageFile.setFileName(fileName);
+        imageFile.setSizeBytes(10);
+        imageFile.setRefCount(refCount);
+        imageFileRepository.save(imageFile);
+    }
+}
@@ -0,0 +1,204 @@
+package com.shop.test.api.seller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.service.ImageGarbageCollector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// 图片保存到进程内的S3替身，每页只列出2个对象以覆盖分页
+@SpringBootTest(properties = {"image.storage.type=s3", "image.gc.enabled=false",
+        "file.upload-dir=target/s3-staging-images"})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class ImageObjectStorageTest {
+
+    private static final S3StandIn STAND_IN = standIn();
+
+    private static final String KEY_PREFIX = "images/";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImageGarbageCollector imageGarbageCollector;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("image.storage.s3.endpoint", STAND_IN::endpoint);
+        registry.add("image.storage.s3.bucket", () -> S3StandIn.BUCKET);
+        registry.add("image.storage.s3.region", () -> S3StandIn.REGION);
+        registry.add("image.storage.s3.access-key", () -> S3StandIn.ACCESS_KEY);
+        registry.add("image.storage.s3.secret-key", () -> S3StandIn.SECRET_KEY);
+        registry.add("image.storage.s3.key-prefix", () -> KEY_PREFIX);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        STAND_IN.clear();
+    }
+
+    @AfterAll
+    public static void stopStandIn() {
+        STAND_IN.close();
+    }
+
+    // 测试用例 S3-004：上传写入对象存储，读取时重定向到预签名地址，由对象存储直接返回图片内容
+    @Test
+    public void testUploadAndRedirect() throws Exception {
+        byte[] content = ("GIF89a object storage " + UUID.randomUUID()).getBytes(StandardCharsets.US_ASCII);
+        String imageUrl = upload("a.gif", content);
+        String fileName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        assertArrayEquals(content, STAND_IN.getObject(KEY_PREFIX + fileName));
+        assertEquals("image/gif", STAND_IN.contentType(KEY_PREFIX + fileName));
+
+        MvcResult first = mockMvc.perform(get(imageUrl))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Cache-Control", "private, max-age=1800"))
+                .andReturn();
+        String location = first.getResponse().getHeader("Location");
+        assertTrue(location.startsWith(STAND_IN.endpoint() + "/" + S3StandIn.BUCKET + "/" + KEY_PREFIX + fileName + "?"));
+        HttpResponse<byte[]> direct = fetch(location);
+        assertEquals(200, direct.statusCode());
+        assertArrayEquals(content, direct.body());
+
+        // 同一时间窗口内签发的地址相同，浏览器可以复用缓存
+        mockMvc.perform(head(imageUrl))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", location));
+        // 篡改地址后签名失效
+        assertEquals(403, fetch(location.replace("X-Amz-Expires=3600", "X-Amz-Expires=7200")).statusCode());
+        mockMvc.perform(get("/api/files/images/missing.gif")).andExpect(status().isNotFound());
+
+        // 重复上传相同内容复用已有对象
+        Instant before = STAND_IN.lastModified(KEY_PREFIX + fileName);
+        Thread.sleep(5);
+        assertEquals(imageUrl, upload("b.gif", content));
+        assertTrue(STAND_IN.lastModified(KEY_PREFIX + fileName).isAfter(before));
+    }
+
+    // 测试用例 S3-005：缩略图从对象存储读取原图生成并写回对象存储，?w=重定向到对应缩略图
+    @Test
+    public void testVariantsInObjectStorage() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "png", png);
+        String imageUrl = upload("photo.png", png.toByteArray());
+        String baseName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1, imageUrl.lastIndexOf('.'));
+
+        String smallest = KEY_PREFIX + baseName + "_w160.jpg";
+        for (int i = 0; i < 100 && !STAND_IN.contains(smallest); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(STAND_IN.contains(smallest));
+        assertEquals("image/jpeg", STAND_IN.contentType(smallest));
+
+        MvcResult result = mockMvc.perform(get(imageUrl).param("w", "200"))
+                .andExpect(status().isFound())
+                .andReturn();
+        assertTrue(result.getResponse().getHeader("Location").contains("/" + baseName + "_w320.jpg?"));
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(
+                fetch(result.getResponse().getHeader("Location")).body()));
+        assertEquals(320, thumbnail.getWidth());
+
+        // 没有对应缩略图时重定向到原图，只短期缓存
+        mockMvc.perform(get(imageUrl).param("w", "1000"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Cache-Control", "private, max-age=60"));
+    }
+
+    // 测试用例 S3-007：原图和缩略图的HEAD结果被缓存，重复的?w=请求（包括没有缩略图的宽度）不再访问对象存储
+    @Test
+    public void testVariantLookupCached() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "png", png);
+        String imageUrl = upload("cached.png", png.toByteArray());
+        String baseName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1, imageUrl.lastIndexOf('.'));
+        String smallest = KEY_PREFIX + baseName + "_w160.jpg";
+        for (int i = 0; i < 100 && !STAND_IN.contains(smallest); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(STAND_IN.contains(smallest));
+
+        for (String width : new String[]{"200", "1000"}) {
+            mockMvc.perform(get(imageUrl).param("w", width)).andExpect(status().isFound());
+        }
+        int headRequests = STAND_IN.headRequests();
+        for (int i = 0; i < 5; i++) {
+            for (String width : new String[]{"200", "1000"}) {
+                mockMvc.perform(get(imageUrl).param("w", width)).andExpect(status().isFound());
+            }
+        }
+        assertEquals(headRequests, STAND_IN.headRequests());
+    }
+
+    // 测试用例 S3-006：清理任务分页列出对象存储中的文件，删除超过宽限期且未被引用的原图和缩略图
+    @Test
+    public void testGarbageCollection() {
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        STAND_IN.putObject(KEY_PREFIX + "aaaa0001.jpg", new byte[100], old);
+        STAND_IN.putObject(KEY_PREFIX + "aaaa0001_w160.jpg", new byte[10], old);
+        STAND_IN.putObject(KEY_PREFIX + "aaaa0002.png", new byte[20], Instant.now());
+        STAND_IN.putObject(KEY_PREFIX + "aaaa0003.gif", new byte[30], old);
+        STAND_IN.putObject("other/aaaa0004.jpg", new byte[40], old);
+
+        ImageGarbageCollector.GcReport report = imageGarbageCollector.collect(false);
+        assertEquals(4, report.getScannedFiles());
+        assertEquals(3, report.getReclaimedFiles());
+        assertEquals(140, report.getReclaimedBytes());
+        assertFalse(STAND_IN.contains(KEY_PREFIX + "aaaa0001.jpg"));
+        assertFalse(STAND_IN.contains(KEY_PREFIX + "aaaa0001_w160.jpg"));
+        assertFalse(STAND_IN.contains(KEY_PREFIX + "aaaa0003.gif"));
+        assertTrue(STAND_IN.contains(KEY_PREFIX + "aaaa0002.png"));
+        assertTrue(STAND_IN.contains("other/aaaa0004.jpg"));
+    }
+
+    private String upload(String originalName, byte[] content) throws Exception {
+        MvcResult result = mockMvc.perform(UploadRequests.upload(originalName, content))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("imageUrls").get(0).asText();
+    }
+
+    private HttpResponse<byte[]> fetch(String url) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static S3StandIn standIn() {
+        try {
+            return new S3StandIn(2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.shop.test.api.seller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.cache.ImageBodyCache;
+import com.shop.service.ImageVariantService;
+import com.shop.storage.ImageLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class ImageServingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    @Autowired
+    private ImageBodyCache imageBodyCache;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    private String baseName;
+
+    private Path imagePath;
+
+    private byte[] content;
+
+    private final List<Path> uploaded = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        baseName = UUID.randomUUID().toString();
+        content = new byte[4096];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        // 直接平铺在上传目录下，同时覆盖分片之前旧文件的访问
+        Files.createDirectories(imageLayout.root());
+        imagePath = imageLayout.root().resolve(baseName + ".png");
+        Files.write(imagePath, content);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(imagePath);
+        for (Path uploaded : uploaded) {
+            try (DirectoryStream<Path> related = Files.newDirectoryStream(uploaded.getParent(),
+                    stripExtension(uploaded.getFileName().toString()) + "*")) {
+                for (Path file : related) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // 测试用例 IMG-001：完整返回图片，带ETag、Last-Modified和长期缓存头
+    @Test
+    public void testFullResponseHeaders() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/images/" + baseName + ".png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + baseName + "\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().contentType("image/png"))
+                .andReturn();
+
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+        assertEquals(content.length, result.getResponse().getContentLength());
+    }
+
+    // 测试用例 IMG-002：If-None-Match命中时返回304且不带内容
+    @Test
+    public void testConditionalGet() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/images/" + baseName + ".png")
+                        .header("If-None-Match", "\"" + baseName + "\""))
+                .andExpect(status().isNotModified())
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+
+        mockMvc.perform(get("/api/files/images/" + baseName + ".png")
+                        .header("If-None-Match", "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    // 测试用例 IMG-003：单段Range返回206和对应字节，越界返回416
+    @Test
+    public void testRangeRequests() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/images/" + baseName + ".png")
+                        .header("Range", "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 100-199/4096"))
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), result.getResponse().getContentAsByteArray());
+
+        result = mockMvc.perform(get("/api/files/images/" + baseName + ".png")
+                        .header("Range", "bytes=-96"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 4000-4095/4096"))
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(content, 4000, 4096), result.getResponse().getContentAsByteArray());
+
+        mockMvc.perform(get("/api/files/images/" + baseName + ".png")
+                        .header("Range", "bytes=5000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */4096"));
+
+        // If-Range与当前ETag不一致时忽略Range
+        mockMvc.perform(get("/api/files/images/" + baseName + ".png")
+                        .header("Range", "bytes=0-9")
+                        .header("If-Range", "\"stale\""))
+                .andExpect(status().isOk());
+    }
+
+    // 测试用例 IMG-004：HEAD只返回头部；不存在或越出上传目录的文件返回404
+    @Test
+    public void testHeadAndNotFound() throws Exception {
+        MvcResult result = mockMvc.perform(head("/api/files/images/" + baseName + ".png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + baseName + "\""))
+                .andReturn();
+        assertEquals(content.length, result.getResponse().getContentLength());
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+
+        mockMvc.perform(get("/api/files/images/missing.png"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/files/images/..%2F..%2Fpom.xml"))
+                .andExpect(status().isNotFound());
+    }
+
+    // 测试用例 IMG-005：上传后异步生成缩略图（从大到小生成，最小的一张最后写入），w参数选择宽度不小于w的最小缩略图
+    @Test
+    public void testUploadGeneratesVariants() throws Exception {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        MvcResult upload = mockMvc.perform(UploadRequests.upload("photo.png", png.toByteArray()))
+                .andExpect(status().isOk())
+                .andReturn();
+        String imageUrl = objectMapper.readTree(upload.getResponse().getContentAsString())
+                .get("imageUrls").get(0).asText();
+        String fileName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        Path original = imageLayout.resolve(fileName);
+        assertTrue(Files.exists(original));
+        uploaded.add(original);
+
+        Path variant = original.resolveSibling(stripExtension(fileName) + "_w160.jpg");
+        for (int i = 0; i < 100 && !Files.exists(variant); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(Files.exists(variant));
+
+        MvcResult result = mockMvc.perform(get(imageUrl).param("w", "200"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string("ETag", "\"" + stripExtension(fileName) + "_w320\""))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andReturn();
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertEquals(320, thumbnail.getWidth());
+        assertEquals(240, thumbnail.getHeight());
+
+        // 原图比所有缩略图都窄时没有对应的缩略图，返回原图
+        mockMvc.perform(get(imageUrl).param("w", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string("Cache-Control", "public, max-age=60"));
+    }
+
+    // 测试用例 IMG-009：第二次访问后图片读入缓存，之后即使文件被删除仍从缓存返回，Range和304照常处理
+    @Test
+    public void testHotImageServedFromCache() throws Exception {
+        String url = "/api/files/images/" + baseName + ".png";
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        Files.delete(imagePath);
+
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + baseName + "\""))
+                .andExpect(content().contentType("image/png"))
+                .andReturn();
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+        result = mockMvc.perform(get(url).header("Range", "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20), result.getResponse().getContentAsByteArray());
+        mockMvc.perform(get(url).header("If-None-Match", "\"" + baseName + "\""))
+                .andExpect(status().isNotModified());
+
+        imageBodyCache.evict(baseName + ".png");
+        mockMvc.perform(get(url)).andExpect(status().isNotFound());
+    }
+
+    // 测试用例 IMG-010：像素数超过上限的原图在解码前放弃，不生成缩略图
+    @Test
+    public void testOversizedImageSkipsVariants() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "png", png);
+        Files.write(imagePath, png.toByteArray());
+
+        Object maxPixels = ReflectionTestUtils.getField(imageVariantService, "maxPixels");
+        ReflectionTestUtils.setField(imageVariantService, "maxPixels", 800L * 600 - 1);
+        try {
+            imageVariantService.generateVariants(baseName + ".png");
+        } finally {
+            ReflectionTestUtils.setField(imageVariantService, "maxPixels", maxPixels);
+        }
+        assertFalse(Files.exists(imageLayout.resolve(baseName + "_w160.jpg")));
+        assertNull(imageVariantService.resolveVariant(baseName + ".png", 160));
+
+        // 恢复上限后正常生成
+        uploaded.add(imageLayout.resolve(baseName + ".png"));
+        imageVariantService.generateVariants(baseName + ".png");
+        assertTrue(Files.exists(imageLayout.resolve(baseName + "_w160.jpg")));
+    }
+
+    private static String stripExtension(String fileName) {
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+}
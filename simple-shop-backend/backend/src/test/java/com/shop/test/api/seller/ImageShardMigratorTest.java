@@ -0,0 +1,94 @@
+package com.shop.test.api.seller;
+
+import com.shop.service.ImageShardMigrator;
+import com.shop.storage.ImageLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// 使用单独的上传目录，避免移动仓库中平铺存放的示例图片
+@SpringBootTest(properties = {"file.upload-dir=target/shard-test-images", "image.gc.enabled=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class ImageShardMigratorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageShardMigrator imageShardMigrator;
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Files.createDirectories(imageLayout.root());
+        try (Stream<Path> files = Files.walk(imageLayout.root())) {
+            files.sorted(Comparator.reverseOrder())
+                    .filter(file -> !file.equals(imageLayout.root()))
+                    .forEach(file -> file.toFile().delete());
+        }
+    }
+
+    // 测试用例 SHARD-001：原图和缩略图按原图名前缀分到同一个两级子目录，非十六进制文件名按哈希分片
+    @Test
+    public void testLayout() {
+        Path original = imageLayout.resolve("3fa9c0de.jpg");
+        assertEquals(imageLayout.root().resolve("3f").resolve("a9").resolve("3fa9c0de.jpg"), original);
+        assertEquals(original.getParent(), imageLayout.resolve("3FA9C0DE_w320.jpg").getParent());
+        Path legacy = imageLayout.resolve("photo.png");
+        assertEquals(legacy.getParent(), imageLayout.resolve("photo_w160.jpg").getParent());
+        assertEquals(imageLayout.root(), legacy.getParent().getParent().getParent());
+        assertNull(imageLayout.locate("../secret.jpg"));
+        assertNull(imageLayout.locate(".upload-1.tmp"));
+    }
+
+    // 测试用例 SHARD-002：迁移前后同一个URL都能访问，迁移移动平铺文件、删除已存在于分片中的副本并跳过临时文件
+    @Test
+    public void testMigrateKeepsUrls() throws Exception {
+        Path flat = write(imageLayout.root().resolve("abcdef01.png"), 32);
+        Path flatVariant = write(imageLayout.root().resolve("abcdef01_w160.jpg"), 16);
+        Path duplicate = write(imageLayout.root().resolve("0123abcd.gif"), 8);
+        Path sharded = imageLayout.resolve("0123abcd.gif");
+        Files.createDirectories(sharded.getParent());
+        write(sharded, 8);
+        Path temp = write(imageLayout.root().resolve(".upload-1.tmp"), 4);
+
+        mockMvc.perform(get("/api/files/images/abcdef01.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", 32));
+
+        ImageShardMigrator.MigrationReport report = imageShardMigrator.migrate();
+        assertEquals(2, report.getMovedFiles());
+        assertEquals(1, report.getDuplicateFiles());
+        assertEquals(0, report.getFailedFiles());
+        assertFalse(Files.exists(flat));
+        assertFalse(Files.exists(flatVariant));
+        assertFalse(Files.exists(duplicate));
+        assertTrue(Files.exists(imageLayout.resolve("abcdef01.png")));
+        assertTrue(Files.exists(imageLayout.resolve("abcdef01_w160.jpg")));
+        assertTrue(Files.exists(temp));
+
+        mockMvc.perform(get("/api/files/images/abcdef01.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", 32));
+        assertEquals(0, imageShardMigrator.migrate().getMovedFiles());
+    }
+
+    private static Path write(Path file, int size) throws Exception {
+        Files.write(file, new byte[size]);
+        return file;
+    }
+}
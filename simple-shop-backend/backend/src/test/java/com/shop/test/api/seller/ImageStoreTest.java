@@ -0,0 +1,232 @@
+package com.shop.test.api.seller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.controller.FileController;
+import com.shop.model.Product;
+import com.shop.repository.ImageFileRepository;
+import com.shop.service.ProductService;
+import com.shop.storage.ImageLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class ImageStoreTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ImageFileRepository imageFileRepository;
+
+    @Autowired
+    private ImageLayout imageLayout;
+
+    @Autowired
+    private FileController fileController;
+
+    private final List<String> storedNames = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        for (String storedName : storedNames) {
+            String baseName = storedName.substring(0, storedName.lastIndexOf('.'));
+            try (DirectoryStream<Path> related = Files.newDirectoryStream(imageLayout.resolve(storedName).getParent(),
+                    baseName + "*")) {
+                for (Path file : related) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // 测试用例 IMG-006：相同内容重复上传得到同一个以SHA-256命名的文件
+    @Test
+    public void testDuplicateUploadsShareOneFile() throws Exception {
+        byte[] content = gif("duplicate");
+        String first = upload("a.gif", content);
+        String second = upload("b.GIF", content);
+
+        assertEquals(first, second);
+        assertEquals(sha256Hex(content) + ".gif", first);
+        assertArrayEquals(content, Files.readAllBytes(imageLayout.resolve(first)));
+        assertEquals(0, imageFileRepository.findById(first).get().getRefCount());
+    }
+
+    // 测试用例 IMG-007：引用计数随商品图片和描述中的引用增减，同一商品多处引用只计一次
+    @Test
+    public void testReferenceCountsFollowProducts() throws Exception {
+        String cover = upload("cover.gif", gif("cover"));
+        String detail = upload("detail.gif", gif("detail"));
+        String coverUrl = "/api/files/images/" + cover;
+        String detailUrl = "/api/files/images/" + detail;
+
+        Product first = product(coverUrl, "<p><img src=\"" + coverUrl + "?w=320\"><img src=\"" + detailUrl + "\"></p>");
+        first = productService.createProduct(first);
+        productService.createProduct(product(coverUrl, null));
+        assertEquals(2, refCount(cover));
+        assertEquals(1, refCount(detail));
+
+        first.setImageUrl(detailUrl);
+        first.setDescription("<p>无图</p>");
+        productService.updateProduct(first);
+        assertEquals(1, refCount(cover));
+        assertEquals(1, refCount(detail));
+    }
+
+    // 测试用例 IMG-008：按文件头识别格式，逐个返回每个文件的结果，超出数量的文件被忽略
+    @Test
+    public void testPerFileResults() throws Exception {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("ok.jpg", gif("renamed"));
+        files.put("fake.png", "<html>not an image</html>".getBytes());
+        files.put("empty.gif", new byte[0]);
+        for (int i = 0; i < 9; i++) {
+            files.put("extra" + i + ".gif", gif("extra" + i));
+        }
+        MvcResult result = mockMvc.perform(UploadRequests.upload(files))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+        JsonNode response = objectMapper.readTree(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        JsonNode results = response.get("files");
+        for (JsonNode url : response.get("imageUrls")) {
+            storedNames.add(url.asText().substring(url.asText().lastIndexOf('/') + 1));
+        }
+
+        assertEquals(12, results.size());
+        // 扩展名以文件头为准
+        assertTrue(results.get(0).get("success").asBoolean());
+        assertTrue(results.get(0).get("url").asText().endsWith(".gif"));
+        assertFalse(results.get(1).get("success").asBoolean());
+        assertTrue(results.get(1).get("error").asText().contains("格式不支持"));
+        assertTrue(results.get(2).get("error").asText().contains("为空"));
+        assertTrue(results.get(9).get("success").asBoolean());
+        assertTrue(results.get(10).get("error").asText().contains("最多只能上传10张"));
+        assertEquals(8, response.get("imageUrls").size());
+        assertEquals(4, response.get("errors").size());
+    }
+
+    // 测试用例 IMG-011：没有Content-Length的分块请求，被跳过的字段同样计入请求体上限，超过时返回413；
+    // 单个文件超过5MB时只拒绝该文件，后面的文件照常接收
+    @Test
+    public void testUploadSizeLimits() throws Exception {
+        byte[] filler = new byte[5 * 1024 * 1024];
+        Map<String, byte[]> notes = new LinkedHashMap<>();
+        for (int i = 0; i < 11; i++) {
+            notes.put("note" + i, filler);
+        }
+        ResponseEntity<?> response = fileController.uploadImages(chunkedMultipart(notes, false));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+
+        byte[] large = new byte[6 * 1024 * 1024];
+        System.arraycopy(gif("large"), 0, large, 0, 6);
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("large.gif", large);
+        files.put("small.gif", gif("small"));
+        response = fileController.uploadImages(chunkedMultipart(files, true));
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        JsonNode results = objectMapper.valueToTree(response.getBody()).get("files");
+        assertTrue(results.get(0).get("error").asText().contains("5MB"));
+        assertTrue(results.get(1).get("success").asBoolean());
+        String url = results.get(1).get("url").asText();
+        storedNames.add(url.substring(url.lastIndexOf('/') + 1));
+    }
+
+    // 与浏览器一样不带整体和分段Content-Length的multipart请求；asFiles为true时作为files字段的文件写入
+    private static MockHttpServletRequest chunkedMultipart(Map<String, byte[]> parts, boolean asFiles)
+            throws Exception {
+        String boundary = "upload-limit-boundary";
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (Map.Entry<String, byte[]> part : parts.entrySet()) {
+            String disposition = asFiles
+                    ? "name=\"files\"; filename=\"" + part.getKey() + "\"\r\nContent-Type: application/octet-stream"
+                    : "name=\"" + part.getKey() + "\"";
+            body.write(("--" + boundary + "\r\nContent-Disposition: form-data; " + disposition + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            body.write(part.getValue());
+            body.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/files/upload/images") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("multipart/form-data; boundary=" + boundary);
+        request.setContent(body.toByteArray());
+        return request;
+    }
+
+    private static byte[] gif(String label) {
+        return ("GIF89a " + label + " " + UUID.randomUUID()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private String upload(String originalName, byte[] content) throws Exception {
+        MvcResult result = mockMvc.perform(UploadRequests.upload(originalName, content))
+                .andExpect(status().isOk())
+                .andReturn();
+        String imageUrl = objectMapper.readTree(result.getResponse().getContentAsString())
+                .get("imageUrls").get(0).asText();
+        String storedName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        storedNames.add(storedName);
+        return storedName;
+    }
+
+    private int refCount(String storedName) {
+        return imageFileRepository.findById(storedName).get().getRefCount();
+    }
+
+    private static Product product(String imageUrl, String description) {
+        Product product = new Product();
+        product.setName("图片引用测试商品");
+        product.setPrice(10.0);
+        product.setImageUrl(imageUrl);
+        product.setDescription(description);
+        return product;
+    }
+
+    private static String sha256Hex(byte[] content) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.shop.test.api.seller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// 测试环境默认不启用Prometheus注册表，@AutoConfigureMetrics按正式配置装配；上传的图片写到target下
+@SpringBootTest(properties = "file.upload-dir=target/metrics-test-images")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("h2")
+public class PrometheusMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 测试用例 MET-001：Prometheus端点输出接口耗时直方图、仓库方法耗时、连接池、缓存命中和图片字节数
+    @Test
+    public void testPrometheusScrape() throws Exception {
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+        String etag = mockMvc.perform(get("/api/products")).andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/products").header("If-None-Match", etag)).andExpect(status().isNotModified());
+
+        byte[] content = ("GIF89a metrics " + UUID.randomUUID()).getBytes(StandardCharsets.US_ASCII);
+        MvcResult upload = mockMvc.perform(UploadRequests.upload("m.gif", content))
+                .andExpect(status().isOk())
+                .andReturn();
+        String imageUrl = objectMapper.readTree(upload.getResponse().getContentAsString())
+                .get("imageUrls").get(0).asText();
+        mockMvc.perform(get(imageUrl)).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/plain"))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{application=\"simple-shop\",exception=\"None\","
+                + "method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/api/products\","), "接口耗时直方图");
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{application=\"simple-shop\","
+                + "exception=\"None\",method=\"findAllByOrderByCreatedAtDesc\",repository=\"ProductRepository\""), "仓库方法耗时直方图");
+        assertTrue(scrape.contains("hikaricp_connections_active{"), "连接池指标");
+        assertTrue(scrape.contains("catalog_etag_requests_total{application=\"simple-shop\",result=\"hit\",} "),
+                "条件GET命中数");
+        assertTrue(scrape.contains("image_upload_bytes_total{"), "上传字节数");
+        assertTrue(scrape.contains("image_download_bytes_total{application=\"simple-shop\",source=\"storage\",}"),
+                "下载字节数");
+        assertTrue(scrape.contains("image_cache_hit_ratio{"), "图片缓存命中率");
+    }
+}
@@ -0,0 +1,275 @@
+package com.shop.test.api.seller;
+
+import com.shop.storage.SigV4Signer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内的S3兼容对象存储替身
+ * 支持单个存储桶的PUT（含复制到自身）、GET、HEAD、DELETE和ListObjectsV2，按SigV4校验每个请求的签名和预签名地址，
+ * 签名不符时返回403，用于验证S3ImageStorage发出的请求与签名规范一致
+ */
+final class S3StandIn implements AutoCloseable {
+
+    static final String ACCESS_KEY = "standin-access";
+
+    static final String SECRET_KEY = "standin-secret";
+
+    static final String REGION = "us-east-1";
+
+    static final String BUCKET = "test-bucket";
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final SigV4Signer signer = new SigV4Signer(ACCESS_KEY, SECRET_KEY, REGION, "s3");
+
+    private final NavigableMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+
+    private final AtomicInteger headRequests = new AtomicInteger();
+
+    private final HttpServer server;
+
+    // 每页列出的对象数，设得很小以覆盖分页
+    private final int listPageSize;
+
+    S3StandIn(int listPageSize) throws IOException {
+        this.listPageSize = listPageSize;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void putObject(String key, byte[] content, Instant lastModified) {
+        objects.put(key, new StoredObject(content, "application/octet-stream", lastModified));
+    }
+
+    byte[] getObject(String key) {
+        StoredObject object = objects.get(key);
+        return object == null ? null : object.content;
+    }
+
+    String contentType(String key) {
+        return objects.get(key).contentType;
+    }
+
+    Instant lastModified(String key) {
+        return objects.get(key).lastModified;
+    }
+
+    boolean contains(String key) {
+        return objects.containsKey(key);
+    }
+
+    int headRequests() {
+        return headRequests.get();
+    }
+
+    void clear() {
+        objects.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String rawPath = exchange.getRequestURI().getRawPath();
+            Map<String, String> query = decodeQuery(exchange.getRequestURI().getRawQuery());
+            if (!authorized(exchange, rawPath, query)) {
+                send(exchange, 403, "SignatureDoesNotMatch");
+                return;
+            }
+            String bucketPrefix = "/" + BUCKET;
+            if (!rawPath.startsWith(bucketPrefix)) {
+                send(exchange, 404, "NoSuchBucket");
+                return;
+            }
+            String key = URLDecoder.decode(rawPath.substring(bucketPrefix.length()).replaceFirst("^/", ""),
+                    StandardCharsets.UTF_8);
+            String method = exchange.getRequestMethod();
+            if ("HEAD".equals(method)) {
+                headRequests.incrementAndGet();
+            }
+            if (key.isEmpty() && "GET".equals(method) && "2".equals(query.get("list-type"))) {
+                list(exchange, query);
+            } else if ("PUT".equals(method)) {
+                put(exchange, key);
+            } else if ("GET".equals(method) || "HEAD".equals(method)) {
+                get(exchange, key, "HEAD".equals(method));
+            } else if ("DELETE".equals(method)) {
+                objects.remove(key);
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                send(exchange, 405, "MethodNotAllowed");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void put(HttpExchange exchange, String key) throws IOException {
+        String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (copySource != null) {
+            String sourceKey = URLDecoder.decode(copySource.substring(("/" + BUCKET + "/").length()), StandardCharsets.UTF_8);
+            StoredObject source = objects.get(sourceKey);
+            if (source == null) {
+                send(exchange, 404, "NoSuchKey");
+                return;
+            }
+            objects.put(key, new StoredObject(source.content, contentType, Instant.now()));
+            send(exchange, 200, "<CopyObjectResult></CopyObjectResult>");
+            return;
+        }
+        byte[] content = exchange.getRequestBody().readAllBytes();
+        objects.put(key, new StoredObject(content, contentType, Instant.now()));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void get(HttpExchange exchange, String key, boolean head) throws IOException {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            if (head) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                send(exchange, 404, "NoSuchKey");
+            }
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", object.contentType);
+        exchange.getResponseHeaders().set("Last-Modified",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified.atZone(ZoneOffset.UTC)));
+        if (head) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.content.length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, object.content.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(object.content);
+        }
+    }
+
+    private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String prefix = query.getOrDefault("prefix", "");
+        String after = query.get("continuation-token");
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>").append(BUCKET).append("</Name><Prefix>").append(prefix).append("</Prefix>");
+        int count = 0;
+        String lastKey = null;
+        boolean truncated = false;
+        for (Map.Entry<String, StoredObject> entry
+                : (after == null ? objects : objects.tailMap(after, false)).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                continue;
+            }
+            if (count == listPageSize) {
+                truncated = true;
+                break;
+            }
+            xml.append("<Contents><Key>").append(entry.getKey()).append("</Key>")
+                    .append("<LastModified>").append(entry.getValue().lastModified).append("</LastModified>")
+                    .append("<Size>").append(entry.getValue().content.length).append("</Size></Contents>");
+            lastKey = entry.getKey();
+            count++;
+        }
+        xml.append("<KeyCount>").append(count).append("</KeyCount>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(lastKey).append("</NextContinuationToken>");
+        }
+        send(exchange, 200, xml.append("</ListBucketResult>").toString());
+    }
+
+    // 按请求头签名或预签名查询参数重新计算签名并比较
+    private boolean authorized(HttpExchange exchange, String rawPath, Map<String, String> query) {
+        String method = exchange.getRequestMethod();
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (query.containsKey("X-Amz-Signature")) {
+            Instant signedAt = AMZ_DATE.parse(query.get("X-Amz-Date"), Instant::from);
+            Duration expires = Duration.ofSeconds(Long.parseLong(query.get("X-Amz-Expires")));
+            if (Instant.now().isAfter(signedAt.plus(expires))) {
+                return false;
+            }
+            String expected = signer.presign(method, rawPath, host, signedAt, expires);
+            return expected.equals(exchange.getRequestURI().getRawQuery());
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null) {
+            return false;
+        }
+        String signedHeaderNames = authorization.replaceFirst(".*SignedHeaders=([^,]+),.*", "$1");
+        Map<String, String> headers = new HashMap<>();
+        for (String name : signedHeaderNames.split(";")) {
+            String value = exchange.getRequestHeaders().getFirst(name);
+            if (value == null) {
+                return false;
+            }
+            headers.put(name, value);
+        }
+        Instant time = AMZ_DATE.parse(headers.get("x-amz-date"), Instant::from);
+        String expected = signer.authorization(method, rawPath, SigV4Signer.canonicalQuery(query), headers,
+                exchange.getRequestHeaders().getFirst("x-amz-content-sha256"), time);
+        return expected.equals(authorization);
+    }
+
+    private static Map<String, String> decodeQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static final class StoredObject {
+
+        private final byte[] content;
+
+        private final String contentType;
+
+        private final Instant lastModified;
+
+        private StoredObject(byte[] content, String contentType, Instant lastModified) {
+            this.content = content;
+            this.contentType = contentType;
+            this.lastModified = lastModified;
+        }
+    }
+}
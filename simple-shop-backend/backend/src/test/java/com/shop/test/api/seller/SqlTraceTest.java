@@ -0,0 +1,93 @@
+package com.shop.test.api.seller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import javax.persistence.EntityManagerFactory;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// 语句数阈值设为1，执行了SQL的请求都会记慢请求日志
+@SpringBootTest(properties = "sql.trace.statement-count-threshold=1")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@ExtendWith(OutputCaptureExtension.class)
+public class SqlTraceTest {
+
+    private static final Pattern SERVER_TIMING = Pattern.compile(
+            "db;dur=(\\d+\\.\\d{3});desc=\"(\\d+) statements\", db-slowest;dur=(\\d+\\.\\d{3})");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // 测试用例 TRACE-001：Server-Timing中的语句数与实际执行的SQL一致，304响应不带该头
+    @Test
+    public void testServerTimingHeader() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        String header = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Server-Timing");
+        assertNotNull(header);
+        Matcher matcher = SERVER_TIMING.matcher(header);
+        assertTrue(matcher.matches(), header);
+        assertEquals(statistics.getPrepareStatementCount(), Long.parseLong(matcher.group(2)));
+        assertTrue(Double.parseDouble(matcher.group(3)) <= Double.parseDouble(matcher.group(1)));
+
+        String etag = mockMvc.perform(get("/api/products")).andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().doesNotExist("Server-Timing"));
+    }
+
+    // 测试用例 TRACE-002：超过语句数阈值的请求记录日志并列出执行的SQL，没有执行SQL的请求不记录
+    @Test
+    public void testSlowRequestLogged(CapturedOutput output) throws Exception {
+        String etag = mockMvc.perform(get("/api/products?page=0"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String log = output.getOut();
+        int start = log.indexOf(" GET /api/products");
+        assertTrue(start >= 0, "应记录慢请求日志");
+        assertTrue(log.indexOf("from products", start) > start, "日志应包含执行的SQL");
+        assertFalse(log.contains("page=0"), "日志不应包含查询字符串");
+
+        mockMvc.perform(get("/api/products?page=1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        assertEquals(occurrences(log, " GET /api/products"), occurrences(output.getOut(), " GET /api/products"),
+                "304响应没有执行SQL，不应记录");
+    }
+
+    // 测试用例 TRACE-003：登录请求的慢请求日志不包含以查询参数传入的密码
+    @Test
+    public void testSlowLoginLogOmitsPassword(CapturedOutput output) throws Exception {
+        mockMvc.perform(post("/api/login?username=trace_user&password=Trace-Secret-42"))
+                .andExpect(status().isOk());
+        String log = output.getOut();
+        assertTrue(log.contains(" POST /api/login"), "应记录慢请求日志");
+        assertFalse(log.contains("Trace-Secret-42"), "日志不应包含密码");
+    }
+
+    private static int occurrences(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
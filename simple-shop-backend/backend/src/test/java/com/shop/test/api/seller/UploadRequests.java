@@ -0,0 +1,46 @@
+package com.shop.test.api.seller;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 构造图片上传请求
+ * 上传接口直接流式读取请求体，这里生成真实的multipart请求体，而不是MockMvc的multipart()
+ */
+final class UploadRequests {
+
+    private UploadRequests() {
+    }
+
+    static MockHttpServletRequestBuilder upload(String fileName, byte[] content) throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put(fileName, content);
+        return upload(files);
+    }
+
+    // 按顺序把每个文件作为一个files字段写入请求体
+    static MockHttpServletRequestBuilder upload(Map<String, byte[]> files) throws IOException {
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            parts.add("files", new ByteArrayResource(file.getValue()) {
+                @Override
+                public String getFilename() {
+                    return file.getKey();
+                }
+            });
+        }
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        new FormHttpMessageConverter().write(parts, null, message);
+        return post("/api/files/upload/images")
+                .contentType(message.getHeaders().getContentType())
+                .content(message.getBodyAsBytes());
+    }
+}
@@ -0,0 +1,64 @@
+package com.shop.test.unit;
+
+import com.shop.cache.ActiveProductCounts;
+import com.shop.event.ProductChangedEvent;
+import com.shop.event.ProductSnapshot;
+import com.shop.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.Collections;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ActiveProductCountsTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ActiveProductCounts activeProductCounts;
+
+    @BeforeEach
+    public void setUp() {
+        // 启动时二级分类10下有2个上架商品
+        when(productRepository.countActiveGroupBySubCategory())
+                .thenReturn(Collections.singletonList(new Object[]{10L, 2L}));
+        activeProductCounts.load();
+    }
+
+    // 测试用例 CNT-001：新建、下架、换分类按增量更新计数
+    @Test
+    public void testIncrementalUpdates() {
+        // 新建商品：10号分类+1
+        activeProductCounts.onProductChanged(new ProductChangedEvent(null, snapshot(1L, true, 10L)));
+        assertEquals(3, activeProductCounts.getCount(10L));
+
+        // 下架商品：10号分类-1
+        activeProductCounts.onProductChanged(new ProductChangedEvent(
+                snapshot(1L, true, 10L), snapshot(1L, false, 10L)));
+        assertEquals(2, activeProductCounts.getCount(10L));
+
+        // 上架商品换到20号分类：10号-1，20号+1
+        activeProductCounts.onProductChanged(new ProductChangedEvent(
+                snapshot(2L, true, 10L), snapshot(2L, true, 20L)));
+        assertEquals(1, activeProductCounts.getCount(10L));
+        assertEquals(1, activeProductCounts.getCount(20L));
+
+        // 冻结不影响上架计数
+        activeProductCounts.onProductChanged(new ProductChangedEvent(snapshot(2L, true, 20L),
+                new ProductSnapshot(2L, "商品2", null, null, 10.0, true, true, 20L, null)));
+        assertEquals(1, activeProductCounts.getCount(20L));
+
+        // 读取不再查询数据库
+        verify(productRepository, times(1)).countActiveGroupBySubCategory();
+    }
+
+    private ProductSnapshot snapshot(Long id, boolean active, Long subCategoryId) {
+        return new ProductSnapshot(id, "商品" + id, null, null, 10.0, active, false, subCategoryId, null);
+    }
+}
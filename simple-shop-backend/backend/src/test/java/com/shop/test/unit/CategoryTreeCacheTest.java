@@ -0,0 +1,84 @@
+package com.shop.test.unit;
+
+import com.shop.cache.CategoryTreeCache;
+import com.shop.cache.CategoryTreeSnapshot;
+import com.shop.model.Category;
+import com.shop.model.SubCategory;
+import com.shop.repository.CategoryRepository;
+import com.shop.repository.SubCategoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.Collections;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CategoryTreeCacheTest {
+
+    private CategoryRepository categoryRepository;
+
+    private SubCategoryRepository subCategoryRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private CategoryTreeCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        categoryRepository = mock(CategoryRepository.class);
+        subCategoryRepository = mock(SubCategoryRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CategoryTreeCache();
+        ReflectionTestUtils.setField(cache, "categoryRepository", categoryRepository);
+        ReflectionTestUtils.setField(cache, "subCategoryRepository", subCategoryRepository);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        cache.registerMetrics();
+
+        Category digital = new Category();
+        digital.setId(1L);
+        digital.setName("数码产品");
+        digital.setActive(true);
+        SubCategory phone = new SubCategory();
+        phone.setId(10L);
+        phone.setName("手机");
+        phone.setActive(true);
+        phone.setCategory(digital);
+        when(categoryRepository.findByActiveTrueOrderBySortOrderAsc()).thenReturn(Collections.singletonList(digital));
+        when(subCategoryRepository.findByCategoryIdAndActiveTrueOrderBySortOrderAsc(1L))
+                .thenReturn(Collections.singletonList(phone));
+    }
+
+    // 测试用例 CACHE-001：首次读取构建快照，后续读取命中缓存
+    @Test
+    public void testReadThrough() {
+        CategoryTreeSnapshot first = cache.get();
+        CategoryTreeSnapshot second = cache.get();
+
+        // 预期结果：只查询一次数据库，两次读取返回同一个快照
+        assertSame(first, second, "命中缓存应返回同一个快照");
+        assertEquals(1, first.getCategories().size());
+        assertEquals(10L, first.getSubCategories(1L).get(0).getId());
+        assertEquals(1L, first.getSubCategories(1L).get(0).getCategoryId());
+        verify(categoryRepository, times(1)).findByActiveTrueOrderBySortOrderAsc();
+        assertEquals(1.0, meterRegistry.get("category.tree.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("category.tree.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    // 测试用例 CACHE-002：写入后重建并替换快照
+    @Test
+    public void testInvalidateSwapsSnapshot() {
+        CategoryTreeSnapshot before = cache.get();
+
+        // 执行失效（无事务时立即重建）
+        cache.invalidate();
+        CategoryTreeSnapshot after = cache.get();
+
+        // 预期结果：快照被替换，重建后的读取仍然命中
+        assertNotSame(before, after, "写入后应替换为新的快照");
+        verify(categoryRepository, times(2)).findByActiveTrueOrderBySortOrderAsc();
+        assertEquals(2L, meterRegistry.get("category.tree.cache.rebuild").timer().count());
+        assertEquals(2.0, meterRegistry.get("category.tree.cache.size").gauge().value());
+    }
+}
@@ -0,0 +1,71 @@
+package com.shop.test.unit;
+
+import com.shop.search.CustomerSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerSearchIndexTest {
+
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new CustomerSearchIndex();
+        index.add(1L, "ZhangSan", "13800138000");
+        index.add(2L, "lisi", "13912345678");
+        index.add(3L, "张三丰", "13700001380");
+        index.add(4L, "wangwu", "15800000000");
+    }
+
+    // 测试用例 CSRCH-001：用户名子串匹配不区分大小写
+    @Test
+    public void testUsernameSubstring() {
+        CustomerSearchIndex.SearchHits hits = index.search("ngsa", 0, 10);
+
+        assertEquals(Arrays.asList(1L), hits.getCustomerIds());
+        assertFalse(hits.isHasMore());
+        assertEquals(Arrays.asList(3L), index.search("张三丰", 0, 10).getCustomerIds());
+    }
+
+    // 测试用例 CSRCH-002：手机号中间片段匹配，三元组都存在但整体不连续时不匹配
+    @Test
+    public void testPhoneSubstring() {
+        assertEquals(Arrays.asList(1L, 3L), index.search("1380", 0, 10).getCustomerIds());
+        assertEquals(Collections.emptyList(), index.search("13801380", 0, 10).getCustomerIds());
+        assertEquals(Collections.emptyList(), index.search("xyz", 0, 10).getCustomerIds());
+    }
+
+    // 测试用例 CSRCH-003：一两个字符的关键词和空关键词
+    @Test
+    public void testShortKeyword() {
+        assertEquals(Arrays.asList(3L), index.search("张", 0, 10).getCustomerIds());
+        assertEquals(Arrays.asList(1L, 2L), index.search("S", 0, 10).getCustomerIds());
+        assertEquals(4, index.search(null, 0, 10).getCustomerIds().size());
+        assertEquals(4, index.count(""));
+    }
+
+    // 测试用例 CSRCH-004：多取一条判断hasMore，count只在需要时统计
+    @Test
+    public void testHasMorePaging() {
+        CustomerSearchIndex.SearchHits first = index.search("13", 0, 2);
+        assertEquals(Arrays.asList(1L, 2L), first.getCustomerIds());
+        assertTrue(first.isHasMore());
+
+        CustomerSearchIndex.SearchHits second = index.search("13", 2, 2);
+        assertEquals(Arrays.asList(3L), second.getCustomerIds());
+        assertFalse(second.isHasMore());
+        assertEquals(3, index.count("13"));
+    }
+
+    // 测试用例 CSRCH-005：同一客户重复加入只保留一份
+    @Test
+    public void testDuplicateAddIgnored() {
+        index.add(2L, "lisi", "13912345678");
+
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(2L), index.search("lisi", 0, 10).getCustomerIds());
+    }
+}
@@ -0,0 +1,122 @@
+package com.shop.test.unit;
+
+import com.shop.cache.ImageBodyCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageBodyCacheTest {
+
+    @TempDir
+    Path directory;
+
+    // 测试用例 CACHE-001：第二次访问才读入缓存，读入后命中并返回相同内容
+    @Test
+    public void testAdmitOnSecondAccess() throws Exception {
+        ImageBodyCache cache = new ImageBodyCache(1000, 500, 2, 1024);
+        Path file = file("a.jpg", 100);
+
+        assertNull(cache.get("a.jpg"));
+        assertNull(load(cache, "a.jpg", file), "只访问一次不应读入缓存");
+        assertNull(cache.get("a.jpg"));
+        ImageBodyCache.CachedImage loaded = load(cache, "a.jpg", file);
+        assertNotNull(loaded);
+
+        ImageBodyCache.CachedImage hit = cache.get("a.jpg");
+        assertSame(loaded, hit);
+        assertEquals("image/jpeg", hit.getContentType());
+        assertEquals("\"a\"", hit.getEtag());
+        ByteBuffer slice = hit.slice(10, 20);
+        assertEquals(10, slice.remaining());
+        assertEquals(10, slice.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(100, cache.getUsedBytes());
+    }
+
+    // 测试用例 CACHE-002：超过总字节数时淘汰最久未访问的条目，超过单条上限的文件不缓存
+    @Test
+    public void testLruEvictionWithinBudget() throws Exception {
+        ImageBodyCache cache = new ImageBodyCache(250, 200, 1, 1024);
+        Path a = file("a.jpg", 100);
+        Path b = file("b.jpg", 100);
+        Path c = file("c.jpg", 100);
+        Path large = file("large.jpg", 201);
+
+        assertNotNull(access(cache, "a.jpg", a));
+        assertNotNull(access(cache, "b.jpg", b));
+        assertNotNull(cache.get("a.jpg"));
+        assertNotNull(access(cache, "c.jpg", c));
+
+        assertNotNull(cache.get("a.jpg"));
+        assertNull(cache.get("b.jpg"), "b最久未访问，应被淘汰");
+        assertEquals(200, cache.getUsedBytes());
+        assertNull(access(cache, "large.jpg", large));
+        assertEquals(2, cache.getEntryCount());
+    }
+
+    // 测试用例 CACHE-003：空间不足时访问频率低于被淘汰条目的新图片不能挤掉热门图片
+    @Test
+    public void testFrequencyBasedAdmission() throws Exception {
+        ImageBodyCache cache = new ImageBodyCache(100, 100, 1, 1024);
+        Path hot = file("hot.jpg", 100);
+        Path cold = file("cold.jpg", 100);
+        for (int i = 0; i < 5; i++) {
+            if (cache.get("hot.jpg") == null) {
+                load(cache, "hot.jpg", hot);
+            }
+        }
+
+        assertNull(access(cache, "cold.jpg", cold));
+        assertNotNull(cache.get("hot.jpg"));
+        for (int i = 0; i < 10; i++) {
+            cache.get("cold.jpg");
+        }
+        assertNotNull(load(cache, "cold.jpg", cold), "访问次数超过热门图片后应被接纳");
+        assertNull(cache.get("hot.jpg"));
+    }
+
+    // 测试用例 CACHE-004：按文件名移除所有请求宽度下缓存的同一文件
+    @Test
+    public void testEvictByFileName() throws Exception {
+        ImageBodyCache cache = new ImageBodyCache(1000, 500, 1, 1024);
+        Path variant = file("a_w320.jpg", 50);
+        assertNotNull(access(cache, "a.jpg?w=200", variant, "a_w320.jpg"));
+        assertNotNull(access(cache, "a.jpg?w=300", variant, "a_w320.jpg"));
+        assertNotNull(access(cache, "b.jpg", file("b.jpg", 50)));
+
+        cache.evict("a_w320.jpg");
+        assertNull(cache.get("a.jpg?w=200"));
+        assertNull(cache.get("a.jpg?w=300"));
+        assertNotNull(cache.get("b.jpg"));
+        assertEquals(50, cache.getUsedBytes());
+    }
+
+    private Path file(String name, int size) throws Exception {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) i;
+        }
+        return Files.write(directory.resolve(name), bytes);
+    }
+
+    private static ImageBodyCache.CachedImage access(ImageBodyCache cache, String key, Path file) throws Exception {
+        return access(cache, key, file, key);
+    }
+
+    // 模拟一次未命中的请求：查找缓存后尝试读入
+    private static ImageBodyCache.CachedImage access(ImageBodyCache cache, String key, Path file, String fileName)
+            throws Exception {
+        assertNull(cache.get(key));
+        return cache.load(key, fileName, file, Files.size(file), 0, "image/jpeg",
+                "\"" + fileName.substring(0, fileName.lastIndexOf('.')) + "\"");
+    }
+
+    private static ImageBodyCache.CachedImage load(ImageBodyCache cache, String key, Path file) throws Exception {
+        return cache.load(key, key, file, Files.size(file), 0, "image/jpeg",
+                "\"" + key.substring(0, key.lastIndexOf('.')) + "\"");
+    }
+}
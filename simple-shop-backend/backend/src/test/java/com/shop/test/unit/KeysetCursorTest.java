@@ -0,0 +1,42 @@
+package com.shop.test.unit;
+
+import com.shop.dto.KeysetCursor;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetCursorTest {
+
+    // 测试用例 DTO-001：游标编码后可以原样解析
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        // 输入/前置条件：带纳秒的创建时间和商品ID
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000);
+        KeysetCursor cursor = new KeysetCursor(createdAt, 42L);
+
+        // 执行编码和解析
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        // 预期结果：字段保持一致
+        assertEquals(createdAt, decoded.getCreatedAt(), "创建时间应保持一致");
+        assertEquals(42L, decoded.getId(), "ID应保持一致");
+    }
+
+    // 测试用例 DTO-002：非法游标抛出IllegalArgumentException
+    @Test
+    public void testDecodeInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not-a-cursor"),
+                "非法游标应抛出异常");
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(""),
+                "空游标应抛出异常");
+    }
+
+    // 测试用例 DTO-003：创建时间为NULL的历史数据也能生成游标
+    @Test
+    public void testNullCreatedAtRoundTrip() {
+        KeysetCursor decoded = KeysetCursor.decode(new KeysetCursor(null, 7L).encode());
+
+        assertTrue(decoded.isNullCreatedAt(), "创建时间应为空");
+        assertEquals(7L, decoded.getId(), "ID应保持一致");
+    }
+}
@@ -0,0 +1,33 @@
+package com.shop.test.unit;
+
+import com.shop.security.PasswordHasher;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    // 测试用例 PWD-001：哈希带随机盐，可校验；明文按旧格式校验，明文和低迭代次数的哈希需要重新生成
+    @Test
+    public void testHashMatchAndRehash() {
+        PasswordHasher hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "iterations", 1000);
+
+        String hash = hasher.hash("secret1");
+        assertTrue(hash.startsWith("pbkdf2-sha256$1000$"));
+        assertNotEquals(hash, hasher.hash("secret1"));
+        assertTrue(hasher.matches("secret1", hash));
+        assertFalse(hasher.matches("secret2", hash));
+        assertFalse(hasher.matches("secret1", "pbkdf2-sha256$1000$broken"));
+        assertFalse(hasher.needsRehash(hash));
+
+        assertTrue(hasher.matches("secret1", "secret1"));
+        assertFalse(hasher.matches("secret1", "secret2"));
+        assertFalse(hasher.matches("secret1", null));
+        assertTrue(hasher.needsRehash("secret1"));
+
+        ReflectionTestUtils.setField(hasher, "iterations", 2000);
+        assertTrue(hasher.matches("secret1", hash));
+        assertTrue(hasher.needsRehash(hash));
+    }
+}
@@ -0,0 +1,137 @@
+package com.shop.test.unit;
+
+import com.shop.event.ProductSnapshot;
+import com.shop.search.BigramTokenizer;
+import com.shop.search.ProductSearchIndex;
+import com.shop.search.ProductSearchQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ProductSearchIndex();
+        index.put(product(1L, "华为手机", "<p>全新未拆封</p>", 2999.0, 10L, true, false));
+        index.put(product(2L, "手机壳", "适用于华为手机", 29.0, 11L, true, false));
+        index.put(product(3L, "运动鞋", "iPhone同款配色", 399.0, 20L, true, true));
+        index.put(product(4L, "旧款手机", "已下架", 199.0, 10L, false, false));
+    }
+
+    // 测试用例 SRCH-001：中文二元分词、英文小写、去除HTML标签
+    @Test
+    public void testTokenize() {
+        assertEquals(Arrays.asList("华为", "为手", "手机", "iphone", "15"),
+                BigramTokenizer.tokenize("华为手机 iPhone 15"));
+        assertEquals(Arrays.asList("全新", "鞋"), BigramTokenizer.tokenize("<p>全新</p>&nbsp;<b>鞋</b>"));
+    }
+
+    // 测试用例 SRCH-002：名称命中的商品排在描述命中的前面
+    @Test
+    public void testNameRanksAboveDescription() {
+        ProductSearchIndex.SearchHits hits = index.search(query("华为手机"), 0, 10);
+
+        assertEquals(2, hits.getTotal());
+        assertEquals(Arrays.asList(1L, 2L), hits.getProductIds());
+    }
+
+    // 测试用例 SRCH-003：二级分类、价格区间和状态筛选
+    @Test
+    public void testFilters() {
+        ProductSearchQuery query = query("手机");
+        query.setSubCategoryId(10L);
+        assertEquals(Arrays.asList(1L, 4L), sorted(index.search(query, 0, 10).getProductIds()));
+
+        query.setActive(true);
+        assertEquals(Arrays.asList(1L), index.search(query, 0, 10).getProductIds());
+
+        ProductSearchQuery cheap = query("手机");
+        cheap.setMaxPrice(100.0);
+        assertEquals(Arrays.asList(2L), index.search(cheap, 0, 10).getProductIds());
+
+        ProductSearchQuery frozen = new ProductSearchQuery();
+        frozen.setFrozen(true);
+        assertEquals(Arrays.asList(3L), index.search(frozen, 0, 10).getProductIds());
+    }
+
+    // 测试用例 SRCH-004：修改后按新内容检索，旧内容不再命中
+    @Test
+    public void testUpdateReplacesDocument() {
+        index.put(product(3L, "篮球鞋", "", 499.0, 20L, true, false));
+
+        assertEquals(0, index.search(query("运动"), 0, 10).getTotal());
+        assertEquals(Arrays.asList(3L), index.search(query("篮球"), 0, 10).getProductIds());
+        assertEquals(4, index.size());
+    }
+
+    // 测试用例 SRCH-005：单个汉字匹配包含该字的商品，分页返回
+    @Test
+    public void testSingleCharacterAndPaging() {
+        ProductSearchIndex.SearchHits hits = index.search(query("机"), 1, 2);
+
+        assertEquals(3, hits.getTotal());
+        assertEquals(2, hits.getProductIds().size());
+    }
+
+    // 测试用例 SRCH-006：只改状态时原地更新，不改变无关键词列表中的先后顺序
+    @Test
+    public void testStateOnlyUpdateKeepsPosition() {
+        ProductSearchQuery all = new ProductSearchQuery();
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), index.search(all, 0, 10).getProductIds());
+
+        index.put(product(1L, "华为手机", "<p>全新未拆封</p>", 2999.0, 10L, true, true));
+
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), index.search(all, 0, 10).getProductIds());
+        ProductSearchQuery frozen = new ProductSearchQuery();
+        frozen.setFrozen(true);
+        assertEquals(Arrays.asList(3L, 1L), index.search(frozen, 0, 10).getProductIds());
+    }
+
+    // 测试用例 SRCH-007：大量改名触发压缩后检索结果和顺序保持正确
+    @Test
+    public void testCompactionAfterManyRenames() {
+        for (int i = 0; i < 30000; i++) {
+            index.put(product(2L, "手机壳" + (i % 2 == 0 ? "红色" : "蓝色"), "适用于华为手机", 29.0, 11L, true, false));
+        }
+
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(2L), index.search(query("蓝色"), 0, 10).getProductIds());
+        assertEquals(0, index.search(query("红色"), 0, 10).getTotal());
+        assertEquals(Arrays.asList(1L, 2L), index.search(query("华为手机"), 0, 10).getProductIds());
+        assertEquals(Arrays.asList(2L, 4L, 3L, 1L), index.search(new ProductSearchQuery(), 0, 10).getProductIds());
+    }
+
+    // 测试用例 SRCH-008：偏移量超过匹配数时返回空页和总数
+    @Test
+    public void testOffsetBeyondHits() {
+        ProductSearchIndex.SearchHits hits = index.search(query("手机"), Integer.MAX_VALUE, 20);
+
+        assertEquals(3, hits.getTotal());
+        assertTrue(hits.getProductIds().isEmpty());
+        assertTrue(index.search(new ProductSearchQuery(), Integer.MAX_VALUE - 5, 20).getProductIds().isEmpty());
+    }
+
+    private static ProductSearchQuery query(String keyword) {
+        ProductSearchQuery query = new ProductSearchQuery();
+        query.setKeyword(keyword);
+        return query;
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        List<Long> copy = new ArrayList<>(ids);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private static ProductSnapshot product(Long id, String name, String description, double price,
+                                           Long subCategoryId, boolean active, boolean frozen) {
+        return new ProductSnapshot(id, name, description, null, price, active, frozen, subCategoryId, null);
+    }
+}
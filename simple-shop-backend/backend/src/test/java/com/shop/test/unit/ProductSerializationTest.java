@@ -1,9 +1,15 @@
 package com.shop.test.unit;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.dto.ProductDTO;
 import com.shop.model.Product;
+import com.shop.model.SubCategory;
 import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ProductSerializationTest {
@@ -45,4 +51,45 @@ public class ProductSerializationTest {
         assertTrue(json.contains("\"price\":99.0"), "价格字段序列化错误");
         assertTrue(json.contains("\"active\":true"), "active字段序列化错误");
     }
-}
\ No newline at end of file
+
+    // 测试用例 ENT-003：ProductDTO序列化结果与原实体JSON字段一致
+    @Test
+    public void testDTOMatchesEntityJson() {
+        // 输入/前置条件：带二级分类和时间字段的商品（与原控制器一样清除分类引用）
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        SubCategory subCategory = new SubCategory();
+        subCategory.setId(10L);
+        subCategory.setName("手机");
+        subCategory.setActive(true);
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("测试商品");
+        product.setDescription("<p>描述</p>");
+        product.setImageUrl("/api/files/images/a.jpg");
+        product.setPrice(99.5);
+        product.setActive(true);
+        product.setFrozen(false);
+        product.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+        product.setUpdatedAt(LocalDateTime.of(2024, 5, 2, 8, 30));
+        product.setSubCategory(subCategory);
+
+        // 执行序列化
+        JsonNode entityJson = mapper.valueToTree(product);
+        JsonNode dtoJson = mapper.valueToTree(ProductDTO.fromEntity(product));
+
+        // 预期结果：顶层字段名和值一致，二级分类的ID和名称一致
+        List<String> entityFields = new ArrayList<>();
+        entityJson.fieldNames().forEachRemaining(entityFields::add);
+        List<String> dtoFields = new ArrayList<>();
+        dtoJson.fieldNames().forEachRemaining(dtoFields::add);
+        assertEquals(entityFields.size(), dtoFields.size(), "字段数量应一致");
+        assertTrue(dtoFields.containsAll(entityFields), "DTO应包含实体的全部字段");
+        for (String field : entityFields) {
+            if (!"subCategory".equals(field)) {
+                assertEquals(entityJson.get(field), dtoJson.get(field), field + "字段值应一致");
+            }
+        }
+        assertEquals(10L, dtoJson.get("subCategory").get("id").asLong());
+        assertEquals("手机", dtoJson.get("subCategory").get("name").asText());
+    }
+}
@@ -1,5 +1,8 @@
 package com.shop.test.unit;
 
+import com.shop.dto.CursorPageDTO;
+import com.shop.dto.KeysetCursor;
+import com.shop.dto.ProductListItemDTO;
 import com.shop.model.Product;
 import com.shop.repository.ProductRepository;
 import com.shop.service.ProductService;
@@ -8,6 +11,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -18,6 +26,9 @@ public class ProductServiceTest {
     @Mock
     private ProductRepository productRepository; // 模拟Repository
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher; // 模拟事件发布
+
     @InjectMocks
     private ProductService productService;
 
@@ -70,4 +81,27 @@ public class ProductServiceTest {
         assertFalse(mockProduct.isFrozen(), "商品状态应更新为未冻结");
         verify(productRepository).save(mockProduct);
     }
-}
\ No newline at end of file
+
+    // 测试用例 SER-007：键集分页多取一条判断下一页
+    @Test
+    public void testGetProductPage_HasMore() {
+        // 输入/前置条件：仓库返回size+1条记录
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<ProductListItemDTO> rows = new ArrayList<>();
+        for (long i = 3; i >= 1; i--) {
+            rows.add(new ProductListItemDTO(i, "商品" + i, null, 10.0, true, false,
+                    base.plusMinutes(i), null, null));
+        }
+        when(productRepository.findListItemsFirstPage(any(Pageable.class))).thenReturn(rows);
+
+        // 执行分页查询（每页2条）
+        CursorPageDTO<ProductListItemDTO> page = productService.getProductPage(null, 2);
+
+        // 预期结果：返回2条，游标指向第2条
+        assertEquals(2, page.getItems().size(), "应只返回一页数据");
+        assertTrue(page.isHasMore(), "应提示还有下一页");
+        KeysetCursor next = KeysetCursor.decode(page.getNextCursor());
+        assertEquals(2L, next.getId(), "游标应指向本页最后一条");
+        assertEquals(base.plusMinutes(2), next.getCreatedAt(), "游标时间应为本页最后一条的创建时间");
+    }
+}
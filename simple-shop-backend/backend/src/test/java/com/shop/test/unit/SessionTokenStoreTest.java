@@ -0,0 +1,40 @@
+package com.shop.test.unit;
+
+import com.shop.session.SessionPrincipal;
+import com.shop.session.SessionTokenStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionTokenStoreTest {
+
+    // 测试用例 TOK-004：令牌携带身份，过期后拒绝并被定期清除
+    @Test
+    public void testIssueResolveAndExpire() throws Exception {
+        SessionTokenStore store = new SessionTokenStore();
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofMillis(200));
+
+        String token = store.issue(SessionPrincipal.Role.CUSTOMER, 42L, "alice");
+        SessionPrincipal principal = store.resolve(token);
+        assertNotNull(principal);
+        assertEquals(42L, principal.getId());
+        assertEquals("alice", principal.getUsername());
+        assertTrue(principal.isCustomer());
+
+        // 另一个实例的签名密钥不同，同样格式的令牌无法通过校验
+        SessionTokenStore other = new SessionTokenStore();
+        ReflectionTestUtils.setField(other, "ttl", Duration.ofMillis(200));
+        assertNull(other.resolve(token));
+        assertNull(store.resolve(token + "x"));
+        assertNull(store.resolve("no-signature"));
+
+        String expiring = store.issue(SessionPrincipal.Role.SELLER, 1L, "seller");
+        assertEquals(2, store.size());
+        Thread.sleep(250);
+        assertNull(store.resolve(token));
+        store.purgeExpired();
+        assertEquals(0, store.size());
+        assertNull(store.resolve(expiring));
+    }
+}
@@ -0,0 +1,56 @@
+package com.shop.benchmark;
+
+import com.shop.SimpleShopApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 基准使用的应用上下文
+ * 不启动Web服务器，每个上下文使用独立的H2内存库和临时图片目录；
+ * 配置以命令行参数传入，优先级高于jar中application.properties的MySQL配置
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... overrides) {
+        Path uploadDir;
+        try {
+            uploadDir = Files.createTempDirectory("shop-bench-images");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.main.web-application-type", "none");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=MySQL");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("logging.level.root", "WARN");
+        properties.put("file.upload-dir", uploadDir.toString());
+        properties.put("image.shard.migrate-on-startup", "false");
+        properties.put("image.gc.enabled", "false");
+        properties.put("security.password.iterations", "1000");
+
+        List<String> args = new ArrayList<>();
+        properties.forEach((key, value) -> args.add("--" + key + "=" + value));
+        for (String override : overrides) {
+            args.add("--" + override);
+        }
+        return new SpringApplicationBuilder(SimpleShopApplication.class).run(args.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,86 @@
+package com.shop.benchmark;
+
+import com.shop.dto.CategoryDTO;
+import com.shop.dto.SubCategoryDTO;
+import com.shop.model.SubCategory;
+import com.shop.service.CategoryService;
+import com.shop.service.SubCategoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分类DTO转换：CategoryServiceImpl/SubCategoryServiceImpl从数据库读取实体并转换为DTO，
+ * 以及启用分类从分类树缓存读取的路径
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogDtoBenchmark {
+
+    private static final int SUB_CATEGORIES_PER_CATEGORY = 8;
+
+    @Param({"10", "100"})
+    private int categories;
+
+    private ConfigurableApplicationContext context;
+
+    private CategoryService categoryService;
+
+    private SubCategoryService subCategoryService;
+
+    private Long categoryId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        List<SubCategory> subCategories = new SyntheticDataset(context)
+                .categories(categories, SUB_CATEGORIES_PER_CATEGORY);
+        categoryService = context.getBean(CategoryService.class);
+        subCategoryService = context.getBean(SubCategoryService.class);
+        categoryId = subCategories.get(0).getCategory().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CategoryDTO> allCategories() {
+        return categoryService.getAllCategoryDTOs();
+    }
+
+    @Benchmark
+    public List<SubCategoryDTO> allSubCategories() {
+        return subCategoryService.getAllSubCategoryDTOs();
+    }
+
+    @Benchmark
+    public List<SubCategoryDTO> subCategoriesOfCategory() {
+        return subCategoryService.getSubCategoryDTOsByCategoryId(categoryId);
+    }
+
+    // 启用的一级分类，命中分类树缓存
+    @Benchmark
+    public List<CategoryDTO> activeCategoriesCached() {
+        return categoryService.getActiveCategoryDTOs();
+    }
+}
@@ -0,0 +1,99 @@
+package com.shop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shop.dto.ProductListItemDTO;
+import com.shop.filter.DeflaterPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * 商品列表响应压缩：不同列表长度和压缩级别下每个响应的压缩耗时，以及复用池中Deflater与每次新建的对比。
+ * 压缩后的字节数与耗时无关，在准备阶段输出一次
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int items;
+
+    @Param({"1", "6", "9"})
+    private int level;
+
+    private final byte[] output = new byte[1 << 20];
+
+    private byte[] json;
+
+    private DeflaterPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        json = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(listItems(items));
+        pool = new DeflaterPool(level, 1);
+        long compressed = pooled();
+        System.out.printf("items=%d level=%d: %d -> %d bytes (%.1f%% saved)%n", items, level, json.length, compressed,
+                100.0 * (json.length - compressed) / json.length);
+    }
+
+    @Benchmark
+    public long pooled() {
+        Deflater deflater = pool.borrow();
+        try {
+            return deflate(deflater);
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    // 每个响应新建Deflater，小列表时分配和释放本地内存的开销占比最大
+    @Benchmark
+    public long newDeflater() {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            return deflate(deflater);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private long deflate(Deflater deflater) {
+        deflater.setInput(json);
+        deflater.finish();
+        long length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(output);
+        }
+        // gzip头尾共18字节
+        return length + 18;
+    }
+
+    private static List<ProductListItemDTO> listItems(int count) {
+        List<ProductListItemDTO> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new ProductListItemDTO((long) i, "测试商品" + i, "/api/files/images/" + Integer.toHexString(i * 7919) + ".jpg",
+                    10.0 + i, i % 2 == 0, false, LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i),
+                    (long) (i % 20), "二级分类" + (i % 20)));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,75 @@
+package com.shop.benchmark;
+
+import com.shop.dto.CursorPageDTO;
+import com.shop.dto.CustomerOrderRow;
+import com.shop.model.Customer;
+import com.shop.model.Product;
+import com.shop.service.CustomerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户订单查询：CustomerService.getCustomerOrders的行映射，以及键集分页取第一页
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerOrdersBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"50", "1000"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerService customerService;
+
+    private Long customerId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        SyntheticDataset dataset = new SyntheticDataset(context);
+        List<Product> products = dataset.products(200, dataset.categories(5, 4));
+        Customer customer = dataset.customer("bench_buyer");
+        dataset.orders(customer, orders, products);
+        // 其他客户的订单，查询需要按customer_id筛选
+        dataset.orders(dataset.customer("other_buyer"), orders, products);
+        customerService = context.getBean(CustomerService.class);
+        customerId = customer.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CustomerOrderRow> allOrders() {
+        return customerService.getCustomerOrders(customerId, null, "desc");
+    }
+
+    @Benchmark
+    public CursorPageDTO<CustomerOrderRow> firstPage() {
+        return customerService.getCustomerOrderPage(customerId, null, "desc", null, PAGE_SIZE);
+    }
+}
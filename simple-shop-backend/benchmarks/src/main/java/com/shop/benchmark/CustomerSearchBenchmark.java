@@ -0,0 +1,75 @@
+package com.shop.benchmark;
+
+import com.shop.search.CustomerSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户列表搜索（GET /api/customers?keyword=）：用户名/手机号片段查询，按采样统计p50/p99等分位延迟
+ * 关键词模拟卖家逐字输入，取某个客户用户名或手机号中长度1到8的片段
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class CustomerSearchBenchmark {
+
+    private static final int KEYWORD_COUNT = 1024;
+
+    private static final int PAGE_SIZE = 10;
+
+    private static final String[] NAMES = {"zhang", "wang", "li", "zhao", "liu", "chen", "yang", "huang", "zhou", "wu",
+            "xu", "sun", "ma", "zhu", "hu", "guo", "he", "lin", "luo", "gao"};
+
+    private static final String[] PREFIXES = {"138", "139", "137", "150", "151", "158", "186", "188", "177", "199"};
+
+    @Param({"100000", "1000000"})
+    private int customers;
+
+    private CustomerSearchIndex index;
+
+    private String[] keywords;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SyntheticDataset.SEED);
+        index = new CustomerSearchIndex();
+        String[] usernames = new String[customers];
+        String[] phones = new String[customers];
+        for (int i = 0; i < customers; i++) {
+            usernames[i] = NAMES[random.nextInt(NAMES.length)] + NAMES[random.nextInt(NAMES.length)] + i;
+            phones[i] = PREFIXES[random.nextInt(PREFIXES.length)] + String.format("%08d", random.nextInt(100_000_000));
+            index.add((long) i + 1, usernames[i], phones[i]);
+        }
+        keywords = new String[KEYWORD_COUNT];
+        for (int i = 0; i < KEYWORD_COUNT; i++) {
+            int customer = random.nextInt(customers);
+            String source = random.nextBoolean() ? usernames[customer] : phones[customer];
+            int length = 1 + random.nextInt(Math.min(8, source.length()));
+            int start = random.nextInt(source.length() - length + 1);
+            keywords[i] = source.substring(start, start + length);
+        }
+    }
+
+    @Benchmark
+    public CustomerSearchIndex.SearchHits search() {
+        return index.search(keywords[next++ & (KEYWORD_COUNT - 1)], 0, PAGE_SIZE);
+    }
+}
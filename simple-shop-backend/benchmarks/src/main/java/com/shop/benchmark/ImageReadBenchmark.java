@@ -0,0 +1,148 @@
+package com.shop.benchmark;
+
+import com.shop.controller.FileController;
+import com.shop.service.ImageStoreService;
+import com.shop.storage.ImageFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.imageio.ImageIO;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片读取（GET /api/files/images/{name}）：直接调用FileController，响应写入内存
+ * source=cache时图片在第二次访问后进入堆外缓存；source=storage时缓存容量为0，每次从磁盘读取。
+ * 没有Tomcat时不走sendfile，磁盘路径用FileChannel.transferTo写出
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageReadBenchmark {
+
+    private static final int IMAGE_SIZE = 200;
+
+    @Param({"cache", "storage"})
+    private String source;
+
+    private ConfigurableApplicationContext context;
+
+    private FileController fileController;
+
+    private String fileName;
+
+    private String etag;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start("image.cache.max-size=" + ("cache".equals(source) ? "64MB" : "0"));
+        ImageStoreService imageStoreService = context.getBean(ImageStoreService.class);
+        byte[] png = noisePng();
+        fileName = imageStoreService.commit(
+                imageStoreService.receive(new ByteArrayInputStream(png), ImageFormat.PNG, png.length));
+        fileController = context.getBean(FileController.class);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        fileController.getImage(fileName, null,
+                new MockHttpServletRequest("GET", "/api/files/images/" + fileName), first);
+        etag = first.getHeader("ETag");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long fullBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/images/" + fileName);
+        DiscardingResponse response = new DiscardingResponse();
+        fileController.getImage(fileName, null, request, response);
+        return response.written;
+    }
+
+    // 带If-None-Match的重新验证，返回304
+    @Benchmark
+    public int notModified() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/images/" + fileName);
+        request.addHeader("If-None-Match", etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileController.getImage(fileName, null, request, response);
+        return response.getStatus();
+    }
+
+    /**
+     * 只统计写出字节数的响应
+     * MockHttpServletResponse的输出流逐字节写入，耗时会远超被测的读取路径
+     */
+    private static final class DiscardingResponse extends HttpServletResponseWrapper {
+
+        private long written;
+
+        private final ServletOutputStream output = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written += len;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+
+        DiscardingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return output;
+        }
+    }
+
+    // 随机噪点几乎不可压缩，PNG大小接近原始像素数据（约120KB）
+    private static byte[] noisePng() throws Exception {
+        Random random = new Random(SyntheticDataset.SEED);
+        BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < IMAGE_SIZE; y++) {
+            for (int x = 0; x < IMAGE_SIZE; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+}
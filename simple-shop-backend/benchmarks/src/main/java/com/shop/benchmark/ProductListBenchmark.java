@@ -0,0 +1,73 @@
+package com.shop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.shop.dto.ProductDTO;
+import com.shop.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品列表（GET /api/products）：查询并转换为ProductDTO，以及用应用的ObjectMapper序列化
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductListBenchmark {
+
+    @Param({"100", "1000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductService productService;
+
+    private ObjectWriter writer;
+
+    private List<ProductDTO> dtos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        SyntheticDataset dataset = new SyntheticDataset(context);
+        dataset.products(products, dataset.categories(10, 5));
+        productService = context.getBean(ProductService.class);
+        writer = context.getBean(ObjectMapper.class).writer();
+        dtos = productService.getAllProductDTOs();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 只序列化已转换好的列表
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(dtos);
+    }
+
+    // 查询、DTO转换和序列化，对应接口的完整处理过程
+    @Benchmark
+    public byte[] loadAndSerialize() throws Exception {
+        return writer.writeValueAsBytes(productService.getAllProductDTOs());
+    }
+}
@@ -0,0 +1,107 @@
+package com.shop.benchmark;
+
+import com.shop.event.ProductSnapshot;
+import com.shop.search.ProductSearchIndex;
+import com.shop.search.ProductSearchQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品搜索（GET /api/products/search）：内存倒排索引上的关键词查询，按采样统计p50/p99等分位延迟
+ * 查询轮流取自预先生成的一组关键词，一半只带关键词，其余附加上架状态、价格区间或二级分类筛选
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String[] BRANDS = {"华为", "小米", "苹果", "三星", "联想", "索尼", "佳能", "耐克", "阿迪达斯", "优衣库",
+            "海尔", "美的", "格力", "戴尔", "惠普", "李宁", "安踏", "飞利浦", "松下", "无印良品"};
+
+    private static final String[] TYPES = {"手机", "耳机", "笔记本电脑", "平板", "相机", "镜头", "手表", "运动鞋", "背包", "外套",
+            "衬衫", "冰箱", "洗衣机", "空调", "电饭煲", "吹风机", "台灯", "沙发", "床垫", "餐桌"};
+
+    private static final String[] ADJECTIVES = {"全新", "二手", "正品", "限量版", "九成新", "国行", "港版", "经典款", "新款", "特价"};
+
+    private static final String[] PHRASES = {"包装完好", "支持验货", "同城面交", "可小刀", "配件齐全", "无划痕", "保修期内",
+            "搬家急出", "送礼佳品", "仅拆封试用", "颜色如图", "尺码偏大", "发票齐全", "功能正常", "电池健康"};
+
+    private static final String[] KEYWORDS = {"华为手机", "小米", "运动鞋", "全新耳机", "二手相机", "苹果手表", "佳能镜头",
+            "戴尔笔记本", "包装完好", "冰箱", "限量版运动鞋", "无印良品沙发", "鞋", "保修期内手机", "港版", "iphone"};
+
+    @Param({"100000", "1000000"})
+    private int products;
+
+    private ProductSearchIndex index;
+
+    private ProductSearchQuery[] queries;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SyntheticDataset.SEED);
+        index = new ProductSearchIndex();
+        for (long id = 1; id <= products; id++) {
+            String name = pick(random, ADJECTIVES) + pick(random, BRANDS) + pick(random, TYPES)
+                    + (random.nextInt(10) == 0 ? " iPhone" : "");
+            String description = "<p>" + pick(random, PHRASES) + "，" + pick(random, PHRASES) + "</p>";
+            index.put(new ProductSnapshot(id, name, description, null, 10 + random.nextInt(10000),
+                    random.nextInt(10) != 0, random.nextInt(20) == 0, (long) random.nextInt(50), null));
+        }
+        queries = new ProductSearchQuery[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = randomQuery(random);
+        }
+    }
+
+    @Benchmark
+    public ProductSearchIndex.SearchHits search() {
+        ProductSearchQuery query = queries[next++ & (QUERY_COUNT - 1)];
+        return index.search(query, 0, PAGE_SIZE);
+    }
+
+    private static ProductSearchQuery randomQuery(Random random) {
+        ProductSearchQuery query = new ProductSearchQuery();
+        query.setKeyword(pick(random, KEYWORDS));
+        switch (random.nextInt(6)) {
+            case 0:
+                query.setActive(true);
+                break;
+            case 1:
+                query.setMinPrice(100.0);
+                query.setMaxPrice(2000.0);
+                break;
+            case 2:
+                query.setSubCategoryId((long) random.nextInt(50));
+                break;
+            default:
+                break;
+        }
+        return query;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
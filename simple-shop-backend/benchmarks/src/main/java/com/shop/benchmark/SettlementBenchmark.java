@@ -0,0 +1,110 @@
+package com.shop.benchmark;
+
+import com.shop.dto.SettlementRequestDTO;
+import com.shop.dto.SettlementResultDTO;
+import com.shop.model.Buyer;
+import com.shop.model.Product;
+import com.shop.repository.BuyerRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.service.BuyerService;
+import com.shop.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 购买意向结算：逐条completeTransaction与批量settleTransactions的对比
+ * 每次调用前新建intents条已预订商品的购买意向，调用后删除，一半成交一半取消
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SettlementBenchmark {
+
+    @Param({"100", "1000"})
+    private int intents;
+
+    private ConfigurableApplicationContext context;
+
+    private BuyerService buyerService;
+
+    private ProductService productService;
+
+    private BuyerRepository buyerRepository;
+
+    private ProductRepository productRepository;
+
+    private List<Long> buyerIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        buyerService = context.getBean(BuyerService.class);
+        productService = context.getBean(ProductService.class);
+        buyerRepository = context.getBean(BuyerRepository.class);
+        productRepository = context.getBean(ProductRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void createIntents() {
+        buyerIds = new ArrayList<>(intents);
+        for (int i = 0; i < intents; i++) {
+            Product product = new Product();
+            product.setName("结算商品" + i);
+            product.setPrice(10.0);
+            product = productService.createProduct(product);
+            productService.reserveProduct(product.getId());
+            Buyer buyer = new Buyer();
+            buyer.setName("买家" + i);
+            buyer.setProduct(product);
+            buyerIds.add(buyerRepository.save(buyer).getId());
+        }
+    }
+
+    // 删除本次调用的数据，内存库不随调用次数增长
+    @TearDown(Level.Invocation)
+    public void deleteIntents() {
+        buyerRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Benchmark
+    public int perItem() {
+        for (int i = 0; i < buyerIds.size(); i++) {
+            buyerService.completeTransaction(buyerIds.get(i), i % 2 == 0);
+        }
+        return buyerIds.size();
+    }
+
+    @Benchmark
+    public List<SettlementResultDTO> batch() {
+        List<SettlementRequestDTO> requests = new ArrayList<>(buyerIds.size());
+        for (int i = 0; i < buyerIds.size(); i++) {
+            requests.add(new SettlementRequestDTO(buyerIds.get(i), i % 2 == 0));
+        }
+        return buyerService.settleTransactions(requests);
+    }
+}
@@ -0,0 +1,117 @@
+package com.shop.benchmark;
+
+import com.shop.model.Buyer;
+import com.shop.model.Category;
+import com.shop.model.Customer;
+import com.shop.model.Product;
+import com.shop.model.SubCategory;
+import com.shop.repository.BuyerRepository;
+import com.shop.repository.CategoryRepository;
+import com.shop.repository.CustomerRepository;
+import com.shop.repository.ProductRepository;
+import com.shop.repository.SubCategoryRepository;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 可重现的合成数据
+ * 所有名称、价格、描述长度和关联关系都由固定种子的随机数决定，同样的参数在每次运行中生成相同的数据
+ */
+final class SyntheticDataset {
+
+    static final long SEED = 20240601L;
+
+    private static final String[] WORDS = {"轻薄", "旗舰", "限量", "经典", "升级版", "家用", "便携", "高性能",
+            "防水", "无线", "大容量", "新款", "复古", "智能", "加厚", "速干"};
+
+    private final ApplicationContext context;
+
+    private final Random random = new Random(SEED);
+
+    SyntheticDataset(ApplicationContext context) {
+        this.context = context;
+    }
+
+    // 在启动时初始化的分类之外再添加categories个一级分类，每个下面subCategoriesPerCategory个二级分类
+    List<SubCategory> categories(int categories, int subCategoriesPerCategory) {
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        SubCategoryRepository subCategoryRepository = context.getBean(SubCategoryRepository.class);
+        List<SubCategory> subCategories = new ArrayList<>();
+        for (int i = 0; i < categories; i++) {
+            Category category = new Category();
+            category.setName("分类" + i);
+            category.setDescription(text(20));
+            category.setActive(random.nextInt(10) > 0);
+            category.setSortOrder(i);
+            category.setIcon("/icons/c" + i + ".png");
+            category = categoryRepository.save(category);
+            for (int j = 0; j < subCategoriesPerCategory; j++) {
+                SubCategory subCategory = new SubCategory();
+                subCategory.setName("分类" + i + "-" + j);
+                subCategory.setDescription(text(20));
+                subCategory.setActive(random.nextInt(10) > 0);
+                subCategory.setSortOrder(j);
+                subCategory.setIcon("/icons/c" + i + "-" + j + ".png");
+                subCategory.setCategory(category);
+                subCategories.add(subCategory);
+            }
+        }
+        return subCategoryRepository.saveAll(subCategories);
+    }
+
+    List<Product> products(int count, List<SubCategory> subCategories) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName(WORDS[random.nextInt(WORDS.length)] + WORDS[random.nextInt(WORDS.length)] + "商品" + i);
+            product.setDescription(text(40 + random.nextInt(400)));
+            product.setPrice(Math.round(random.nextDouble() * 100000) / 100.0);
+            product.setImageUrl("/api/files/images/" + Long.toHexString(random.nextLong()) + ".jpg");
+            product.setSubCategory(subCategories.get(random.nextInt(subCategories.size())));
+            products.add(product);
+        }
+        return context.getBean(ProductRepository.class).saveAll(products);
+    }
+
+    Customer customer(String username) {
+        Customer customer = new Customer();
+        customer.setUsername(username);
+        customer.setPassword("benchmark");
+        customer.setPhone("138" + String.format("%08d", random.nextInt(100_000_000)));
+        customer.setDefaultLocation(text(12));
+        return context.getBean(CustomerRepository.class).save(customer);
+    }
+
+    // 为客户生成count条订单，商品从products中随机选取，约三分之一已完成
+    void orders(Customer customer, int count, List<Product> products) {
+        List<Buyer> buyers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Buyer buyer = new Buyer();
+            buyer.setName("买家" + i);
+            buyer.setPhone(customer.getPhone());
+            buyer.setAddress(text(16));
+            buyer.setNotes(random.nextBoolean() ? text(10) : null);
+            buyer.setProduct(products.get(random.nextInt(products.size())));
+            buyer.setCustomerId(customer.getId());
+            buyers.add(buyer);
+        }
+        BuyerRepository buyerRepository = context.getBean(BuyerRepository.class);
+        buyers = buyerRepository.saveAll(buyers);
+        // 创建时会重置完成状态，保存后再标记
+        for (Buyer buyer : buyers) {
+            buyer.setCompleted(random.nextInt(3) == 0);
+        }
+        buyerRepository.saveAll(buyers);
+    }
+
+    private String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.substring(0, length);
+    }
+}
@@ -7,6 +7,26 @@ import axios from 'axios'
 axios.defaults.baseURL = 'http://localhost:8081/api'
 // 允许跨域携带cookie
 axios.defaults.withCredentials = true
+// 登录后的会话令牌随每个请求发送
+axios.interceptors.request.use(config => {
+  const token = localStorage.getItem('token')
+  if (token) {
+    config.headers.Authorization = `Bearer ${token}`
+  }
+  return config
+})
+// 后端重启后旧令牌失效，收到401时清除登录状态并回到登录页
+axios.interceptors.response.use(response => response, error => {
+  if (error.response && error.response.status === 401 && localStorage.getItem('token')) {
+    const seller = !!localStorage.getItem('sellerLoggedIn')
+    localStorage.removeItem('token')
+    localStorage.removeItem('sellerLoggedIn')
+    localStorage.removeItem('customerLoggedIn')
+    localStorage.removeItem('customerUsername')
+    router.push(seller ? '/seller/login' : '/login')
+  }
+  return Promise.reject(error)
+})
 
 // 全局注册axios
 const app = createApp(App)
@@ -119,8 +119,8 @@ router.beforeEach((to, from, next) => {
         next()
       }
     } else {
-      // 其他需要登录的页面（客户）
-      if (!localStorage.getItem('customerLoggedIn')) {
+      // 其他需要登录的页面（客户），旧版本登录时没有保存会话令牌，需要重新登录
+      if (!localStorage.getItem('customerLoggedIn') || !localStorage.getItem('token')) {
         next({ name: 'customerLogin' })
       } else {
         next()